@@ -0,0 +1,429 @@
+package swan.g09.cs230a2;
+
+import java.util.Arrays;
+
+/**
+ * An A* {@link PathFinder} which doesn't allocate once it has grown to the size of the level.
+ * Cells are int indices into primitive arrays holding each cell's cost so far, estimate
+ * and parent, and the open list is a binary heap of indices. Rather than clearing the
+ * arrays before every search, each search has a new generation number, and a cell's
+ * entries only count if they were stamped with the current generation.
+ * The estimate is the Manhattan distance, which never overestimates on a grid without
+ * diagonal moves, or the landmark estimate of a {@link LandmarkTable} if one is given,
+ * and ties are broken towards the cell furthest from the start.
+ *
+ * <p>A path finder can only run one search at a time, so each thread has its own,
+ * from {@link #forLevel(int, int, LandmarkTable)}. Subclasses can change which cells a cell leads to
+ * by overriding {@link #expand(int, int, int, WalkableGrid)}.</p>
+ *
+ * @version 0.1
+ */
+class AStarPathFinder implements PathFinder {
+
+    /**
+     * The path finder of each thread.
+     */
+    private static final ThreadLocal<AStarPathFinder> FINDERS = ThreadLocal.withInitial(AStarPathFinder::new);
+
+    /**
+     * The change in x of each step, north, east, south and west.
+     */
+    static final int[] STEP_X = {0, 1, 0, -1};
+
+    /**
+     * The change in y of each step, north, east, south and west.
+     */
+    static final int[] STEP_Y = {-1, 0, 1, 0};
+
+    /**
+     * The width of the grid being searched.
+     */
+    private int width;
+
+    /**
+     * The height of the grid being searched.
+     */
+    private int height;
+
+    /**
+     * The number of the current search.
+     */
+    private int generation;
+
+    /**
+     * The generation each cell was last reached in. Its other entries are only valid in that generation.
+     */
+    private int[] reached = new int[0];
+
+    /**
+     * The generation each cell was last closed in.
+     */
+    private int[] closed = new int[0];
+
+    /**
+     * The cost of the cheapest path found to each cell.
+     */
+    private int[] cost = new int[0];
+
+    /**
+     * The cost so far plus the estimate of each cell.
+     */
+    private int[] estimate = new int[0];
+
+    /**
+     * The cell before each cell on the cheapest path found to it.
+     */
+    private int[] parent = new int[0];
+
+    /**
+     * The index in the heap of each open cell.
+     */
+    private int[] heapIndex = new int[0];
+
+    /**
+     * The open cells, as a binary min-heap ordered by estimate.
+     */
+    private int[] heap = new int[0];
+
+    /**
+     * The number of open cells.
+     */
+    private int heapSize;
+
+    /**
+     * The number of cells expanded by the last search.
+     */
+    private int expandedCount;
+
+    /**
+     * The landmark distances to estimate with, null to estimate with the Manhattan distance.
+     */
+    private LandmarkTable landmarks;
+
+    /**
+     * The distances from each landmark to the goal of the current search.
+     */
+    private int[] goalLandmarks = new int[0];
+
+    /**
+     * Gets the calling thread's path finder, sized for a level.
+     * @param levelWidth The width of the level.
+     * @param levelHeight The height of the level.
+     * @return The path finder.
+     */
+    static AStarPathFinder forLevel(int levelWidth, int levelHeight) {
+        return forLevel(levelWidth, levelHeight, null);
+    }
+
+    /**
+     * Gets the calling thread's path finder, sized for a level and estimating with its landmarks.
+     * @param levelWidth The width of the level.
+     * @param levelHeight The height of the level.
+     * @param table The landmark distances of the level, null to estimate with the Manhattan distance.
+     * @return The path finder.
+     */
+    static AStarPathFinder forLevel(int levelWidth, int levelHeight, LandmarkTable table) {
+        AStarPathFinder finder = FINDERS.get();
+        finder.resize(levelWidth, levelHeight);
+        finder.landmarks = table;
+        return finder;
+    }
+
+    /**
+     * Sets the size of the grid, growing the arrays if needed.
+     * @param gridWidth The width of the grid.
+     * @param gridHeight The height of the grid.
+     */
+    final void resize(int gridWidth, int gridHeight) {
+        width = gridWidth;
+        height = gridHeight;
+        int cells = gridWidth * gridHeight;
+        if (cells > reached.length) {
+            reached = new int[cells];
+            closed = new int[cells];
+            cost = new int[cells];
+            estimate = new int[cells];
+            parent = new int[cells];
+            heapIndex = new int[cells];
+            heap = new int[cells];
+            generation = 0;
+        }
+    }
+
+    /**
+     * Finds the first step of a shortest path between two cells.
+     * @param start The packed cell to start from, which doesn't need to be walkable.
+     * @param goal The packed cell to reach.
+     * @param grid The cells which can be walked through, including the goal, refreshed on this tick.
+     * @return The packed cell to step into next, or {@link #NO_PATH} if the goal can't be reached.
+     */
+    @Override
+    public int findFirstStep(int start, int goal, WalkableGrid grid) {
+        if (start == goal || !isInGrid(start) || !isInGrid(goal)) {
+            return NO_PATH;
+        }
+        startSearch();
+
+        int goalX = Coordinate.getX(goal);
+        int goalY = Coordinate.getY(goal);
+        int source = indexOf(start);
+        int target = indexOf(goal);
+        if (landmarks != null) {
+            landmarks.refresh();
+            if (goalLandmarks.length < landmarks.getLandmarkCount()) {
+                goalLandmarks = new int[landmarks.getLandmarkCount()];
+            }
+            landmarks.copyDistances(target, goalLandmarks);
+        }
+        open(source, -1, 0, distance(source, goalX, goalY));
+
+        while (heapSize > 0) {
+            int cell = pop();
+            if (cell == target) {
+                return firstStep(source, target);
+            }
+            closed[cell] = generation;
+            expandedCount++;
+            expand(cell, goalX, goalY, grid);
+        }
+        return NO_PATH;
+    }
+
+    /**
+     * Gets the number of cells expanded by the last search.
+     * @return The number of cells taken from the open list, not counting the goal.
+     */
+    @Override
+    public int getExpandedCount() {
+        return expandedCount;
+    }
+
+    /**
+     * Reaches the cells a cell leads to. By default these are its walkable neighbours.
+     * @param cell The index of the cell being expanded.
+     * @param goalX The x coordinate of the goal.
+     * @param goalY The y coordinate of the goal.
+     * @param grid The cells which can be walked through.
+     */
+    void expand(int cell, int goalX, int goalY, WalkableGrid grid) {
+        int x = cell % width;
+        int y = cell / width;
+        for (int i = 0; i < STEP_X.length; i++) {
+            int nextX = x + STEP_X[i];
+            int nextY = y + STEP_Y[i];
+            if (nextX < 0 || nextY < 0 || nextX >= width || nextY >= height) {
+                continue;
+            }
+            int next = nextY * width + nextX;
+            if (closed[next] != generation && grid.isOpen(nextX, nextY)) {
+                reach(next, cell, cost[cell] + 1, goalX, goalY);
+            }
+        }
+    }
+
+    /**
+     * Reaches a cell from the cell being expanded, opening it or lowering its cost.
+     * Closed cells are ignored.
+     * @param next The index of the cell reached.
+     * @param from The index of the cell being expanded.
+     * @param nextCost The cost of the path to the cell through the expanded cell.
+     * @param goalX The x coordinate of the goal.
+     * @param goalY The y coordinate of the goal.
+     */
+    final void reach(int next, int from, int nextCost, int goalX, int goalY) {
+        if (closed[next] == generation) {
+            return;
+        }
+        if (reached[next] != generation) {
+            open(next, from, nextCost, nextCost + distance(next, goalX, goalY));
+        } else if (nextCost < cost[next]) {
+            estimate[next] -= cost[next] - nextCost;
+            cost[next] = nextCost;
+            parent[next] = from;
+            siftUp(heapIndex[next]);
+        }
+    }
+
+    /**
+     * Gets the width of the grid being searched.
+     * @return The width.
+     */
+    final int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the grid being searched.
+     * @return The height.
+     */
+    final int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the cost of the cheapest path found to a cell in this search.
+     * @param cell The index of a reached cell.
+     * @return The cost.
+     */
+    final int getCost(int cell) {
+        return cost[cell];
+    }
+
+    /**
+     * Gets the cell before a cell on the cheapest path found to it in this search.
+     * @param cell The index of a reached cell.
+     * @return The index of the cell before, -1 for the start.
+     */
+    final int getParent(int cell) {
+        return parent[cell];
+    }
+
+    /**
+     * Starts a new generation, so every cell counts as unreached.
+     */
+    private void startSearch() {
+        heapSize = 0;
+        expandedCount = 0;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(closed, 0);
+            generation = 0;
+        }
+        generation++;
+    }
+
+    /**
+     * Walks back from the goal to find the step taken from the start. The cell reached
+     * from the start may be further away in a straight line, so the step is one cell towards it.
+     * @param source The index of the start.
+     * @param target The index of the goal.
+     * @return The packed cell of the first step.
+     */
+    int firstStep(int source, int target) {
+        int cell = target;
+        while (parent[cell] != source) {
+            cell = parent[cell];
+        }
+        int x = source % width;
+        int y = source / width;
+        return Coordinate.pack(x + Integer.signum(cell % width - x), y + Integer.signum(cell / width - y));
+    }
+
+    /**
+     * Checks whether a packed cell is inside the grid.
+     * @param key The packed cell.
+     * @return true if the cell is in the grid.
+     */
+    private boolean isInGrid(int key) {
+        int x = Coordinate.getX(key);
+        int y = Coordinate.getY(key);
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Gets the index of a packed cell.
+     * @param key The packed cell.
+     * @return The index of the cell in the arrays.
+     */
+    private int indexOf(int key) {
+        return Coordinate.getY(key) * width + Coordinate.getX(key);
+    }
+
+    /**
+     * Estimates the distance from a cell to the goal, by the Manhattan distance or the landmarks.
+     * @param cell The index of the cell.
+     * @param goalX The x coordinate of the goal.
+     * @param goalY The y coordinate of the goal.
+     * @return The estimate, never more than the true distance.
+     */
+    private int distance(int cell, int goalX, int goalY) {
+        int manhattan = Math.abs(cell % width - goalX) + Math.abs(cell / width - goalY);
+        return landmarks == null ? manhattan : landmarks.estimate(cell, goalLandmarks, manhattan);
+    }
+
+    /**
+     * Reaches a cell for the first time this search and adds it to the open list.
+     * @param cell The index of the cell.
+     * @param from The index of the cell it was reached from, -1 for the start.
+     * @param cellCost The cost of the path to the cell.
+     * @param cellEstimate The cost of the path plus the estimate to the goal.
+     */
+    private void open(int cell, int from, int cellCost, int cellEstimate) {
+        reached[cell] = generation;
+        cost[cell] = cellCost;
+        estimate[cell] = cellEstimate;
+        parent[cell] = from;
+        heap[heapSize] = cell;
+        heapIndex[cell] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    /**
+     * Removes the open cell with the lowest estimate.
+     * @return The index of the cell.
+     */
+    private int pop() {
+        int top = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Checks whether one open cell should be searched before another.
+     * @param a The index of the first cell.
+     * @param b The index of the second cell.
+     * @return true if the first cell has a lower estimate, or an equal one and a higher cost.
+     */
+    private boolean isBefore(int a, int b) {
+        return estimate[a] < estimate[b] || (estimate[a] == estimate[b] && cost[a] > cost[b]);
+    }
+
+    /**
+     * Moves a heap entry up until its parent comes before it.
+     * @param index The index in the heap of the entry.
+     */
+    private void siftUp(int index) {
+        int cell = heap[index];
+        int i = index;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (!isBefore(cell, heap[up])) {
+                break;
+            }
+            heap[i] = heap[up];
+            heapIndex[heap[i]] = i;
+            i = up;
+        }
+        heap[i] = cell;
+        heapIndex[cell] = i;
+    }
+
+    /**
+     * Moves a heap entry down until it comes before both its children.
+     * @param index The index in the heap of the entry.
+     */
+    private void siftDown(int index) {
+        int cell = heap[index];
+        int i = index;
+        int child = 2 * i + 1;
+        while (child < heapSize) {
+            if (child + 1 < heapSize && isBefore(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!isBefore(heap[child], cell)) {
+                break;
+            }
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+            child = 2 * i + 1;
+        }
+        heap[i] = cell;
+        heapIndex[cell] = i;
+    }
+}
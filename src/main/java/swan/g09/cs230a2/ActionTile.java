@@ -35,9 +35,25 @@ abstract class ActionTile extends Tile {
     }
 
     /**
-     * Handler that gets called every tick.
+     * Handler that gets called on the ticks the tile asks to be woken on.
      */
     public void tick() {
         // do nothing by default
     }
+
+    /**
+     * Whether this tile does anything when ticked, so it needs to be visited by the timer.
+     * @return true if the tile overrides tick with some behaviour.
+     */
+    public boolean isTickable() {
+        return false;
+    }
+
+    /**
+     * How many ticks after the level starts a tickable tile should first be ticked.
+     * @return The delay in ticks, or {@link TickRegistry#NO_WAKE} to wait until the tile schedules itself.
+     */
+    public int getInitialWakeDelay() {
+        return TickRegistry.NO_WAKE;
+    }
 }
@@ -39,10 +39,20 @@ abstract class Actor extends Tile {
     }
 
     /**
-     * This Method should handle how the actor processes its movements per tick.
+     * This Method should handle how the actor processes its movements when woken.
+     * Actors are only ticked on the ticks they ask for, so an actor which needs
+     * ticking again should call {@link GameManager#scheduleWake} from here.
      * */
     protected abstract void tick();
 
+    /**
+     * How many ticks after the level starts the actor should first be ticked.
+     * @return The delay in ticks, or {@link TickRegistry#NO_WAKE} to wait until the actor schedules itself.
+     * */
+    protected int getInitialWakeDelay() {
+        return TickRegistry.NO_WAKE;
+    }
+
     /**
      * This Method should check if moving in a specific direction is valid.
      * @param dir the direction of movement
@@ -55,10 +65,8 @@ abstract class Actor extends Tile {
      * @param dir the direction to move in
      * */
     protected void move(Direction dir) {
-        Point2D destPos = directionToPosition(getPosition(), dir);
-        if (destPos != null) {
-            GameManager.moveActor(getPosition(), destPos);
-        }
+        int pos = getPositionKey();
+        GameManager.moveActor(pos, dir.calculateNewPosition(pos));
     }
 
     /**
@@ -68,13 +76,7 @@ abstract class Actor extends Tile {
      * @return The position the Actor will be in if it moves.
      */
     protected Point2D directionToPosition(Point2D pos, Direction dir) {
-        return switch (dir) {
-            case NORTH -> new Point2D(pos.getX(), pos.getY() - 1);
-            case EAST -> new Point2D(pos.getX() + 1, pos.getY());
-            case SOUTH -> new Point2D(pos.getX(), pos.getY() + 1);
-            case WEST -> new Point2D(pos.getX() - 1, pos.getY());
-            default -> null;
-        };
+        return dir.calculateNewPosition(pos);
     }
 
     /**
@@ -92,6 +94,15 @@ abstract class Actor extends Tile {
      * @return The type of tile at that position, null if none
      * */
     protected TileType checkPosition(Point2D position) {
+        return checkPosition(Coordinate.of(position));
+    }
+
+    /**
+     * This method calls the layer class for the tile at a given packed position.
+     * @param position the packed position (see {@link Coordinate})
+     * @return The type of tile at that position, null if none
+     * */
+    protected TileType checkPosition(int position) {
         Tile tile = GameManager.checkTile(position);
         if (tile == null) {
             return null;
@@ -107,6 +118,16 @@ abstract class Actor extends Tile {
      * @return True if the actor can move to the position.
      */
     protected boolean positionTraversable(Point2D pos, boolean isMonster) {
+        return positionTraversable(Coordinate.of(pos), isMonster);
+    }
+
+    /**
+     * Check if a tile at a certain packed position is able to be moved to.
+     * @param pos Packed position to move to (see {@link Coordinate}).
+     * @param isMonster If the actor is a monster, consider players to not be an obstacle.
+     * @return True if the actor can move to the position.
+     */
+    protected boolean positionTraversable(int pos, boolean isMonster) {
         TileType newTileType = checkPosition(pos);
         if (!canWalkOverTile(newTileType)) {
             return false;
@@ -144,6 +165,18 @@ abstract class Actor extends Tile {
      * otherwise, false.
      */
     protected boolean isTileOccupiedByActor(final Point2D position) {
+        return isTileOccupiedByActor(Coordinate.of(position));
+    }
+
+    /**
+     * Checks if a tile at a specific packed position is
+     * occupied by another actor.
+     *
+     * @param position The packed position to check (see {@link Coordinate}).
+     * @return True if the tile is occupied by a monster or block;
+     * otherwise, false.
+     */
+    protected boolean isTileOccupiedByActor(final int position) {
         Actor actorAtPosition = GameManager.checkActor(position);
         return actorAtPosition != null;
     }
@@ -165,10 +198,13 @@ abstract class Actor extends Tile {
     }
 
     /**
-     * Changes the direction the actor is facing.
+     * Changes the direction the actor is facing, and has the game canvas draw it again.
      * @param dir The new direction the actor is facing.
      * */
     public void setFacingDir(Direction dir) {
+        if (facing != dir && getPosition() != null) {
+            GameManager.markCellDirty(getPositionKey());
+        }
         facing = dir;
     }
 
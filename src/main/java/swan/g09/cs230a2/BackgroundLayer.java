@@ -0,0 +1,240 @@
+package swan.g09.cs230a2;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The tiles of the level drawn once at one tile size, so the game canvas can copy them onto
+ * itself each frame rather than drawing every wall and path again. Walls, paths and most other
+ * tiles never change during a level, and the few which do are drawn again one at a time.
+ *
+ * <p>The level is split into square chunks of about {@link #CHUNK_PIXELS} pixels, each drawn
+ * into its own image the first time any of it is on the canvas, since a single image of a large
+ * level would be far too big. Only the chunks drawn most recently are kept, so on a level larger
+ * than the window the chunks scrolled away from are forgotten and drawn again if they come back.</p>
+ *
+ * @version 0.1
+ */
+final class BackgroundLayer {
+
+    /**
+     * The width and height of a chunk in pixels, at most.
+     */
+    private static final int CHUNK_PIXELS = 512;
+
+    /**
+     * The most chunks kept at once, enough to cover a 4K window with room to scroll.
+     */
+    private static final int MAX_CHUNKS = 96;
+
+    /**
+     * The colour of a cell with no tile.
+     */
+    private static final int EMPTY_ARGB = 0xFF000000;
+
+    /**
+     * The sprites of the tiles.
+     */
+    private final SpriteAtlas sprites;
+
+    /**
+     * The width of the level.
+     */
+    private final int levelWidth;
+
+    /**
+     * The height of the level.
+     */
+    private final int levelHeight;
+
+    /**
+     * The size tiles are drawn in pixels.
+     */
+    private final int tileSize;
+
+    /**
+     * The width and height of a chunk in cells.
+     */
+    private final int chunkCells;
+
+    /**
+     * The width of the level in chunks.
+     */
+    private final int chunksAcross;
+
+    /**
+     * The pixels of a cell with no tile.
+     */
+    private final int[] emptyPixels;
+
+    /**
+     * The chunks kept, by chunk index, the least recently drawn first.
+     */
+    private final Map<Integer, Chunk> chunks = new LinkedHashMap<>(MAX_CHUNKS, 1, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Chunk> eldest) {
+            return size() > MAX_CHUNKS;
+        }
+    };
+
+    /**
+     * The image of a chunk, and the sprite drawn in each of its cells.
+     */
+    private static final class Chunk {
+        /**
+         * The tiles of the chunk's cells.
+         */
+        private final WritableImage image;
+
+        /**
+         * The image path of the tile drawn in each cell, row by row, null for a cell with no tile.
+         */
+        private final String[] paths;
+
+        /**
+         * Creates an empty chunk.
+         * @param width The width of the chunk in cells.
+         * @param height The height of the chunk in cells.
+         * @param size The size tiles are drawn in pixels.
+         */
+        private Chunk(int width, int height, int size) {
+            image = new WritableImage(width * size, height * size);
+            paths = new String[width * height];
+        }
+    }
+
+    /**
+     * Creates the background of a level at a tile size, with no chunks drawn yet.
+     * @param atlas The sprites of the tiles.
+     * @param width The width of the level.
+     * @param height The height of the level.
+     * @param size The size to draw tiles in pixels.
+     */
+    BackgroundLayer(SpriteAtlas atlas, int width, int height, int size) {
+        sprites = atlas;
+        levelWidth = width;
+        levelHeight = height;
+        tileSize = size;
+        chunkCells = Math.max(1, CHUNK_PIXELS / size);
+        chunksAcross = (width + chunkCells - 1) / chunkCells;
+        emptyPixels = new int[size * size];
+        Arrays.fill(emptyPixels, EMPTY_ARGB);
+    }
+
+    /**
+     * Copies the background onto the canvas, only the chunks at least partly on it.
+     * @param gc The graphics context of the canvas.
+     * @param gridLeft Where on the canvas the left of the grid is.
+     * @param gridTop Where on the canvas the top of the grid is.
+     * @param width The width of the canvas.
+     * @param height The height of the canvas.
+     */
+    void draw(GraphicsContext gc, int gridLeft, int gridTop, double width, double height) {
+        int chunkSize = chunkCells * tileSize;
+        int chunksDown = (levelHeight + chunkCells - 1) / chunkCells;
+        int firstX = Math.max(0, Math.floorDiv(-gridLeft, chunkSize));
+        int firstY = Math.max(0, Math.floorDiv(-gridTop, chunkSize));
+        int lastX = Math.min(chunksAcross - 1, Math.floorDiv((int) Math.ceil(width) - 1 - gridLeft, chunkSize));
+        int lastY = Math.min(chunksDown - 1, Math.floorDiv((int) Math.ceil(height) - 1 - gridTop, chunkSize));
+        for (int chunkY = firstY; chunkY <= lastY; chunkY++) {
+            for (int chunkX = firstX; chunkX <= lastX; chunkX++) {
+                gc.drawImage(getChunk(chunkX, chunkY).image,
+                        gridLeft + chunkX * chunkSize, gridTop + chunkY * chunkSize);
+            }
+        }
+    }
+
+    /**
+     * Draws the tile of a cell into its chunk again if its sprite has changed, then copies
+     * the cell onto the canvas. Every chunk on the canvas was kept when the background was last drawn, so if the cell's
+     * chunk isn't kept, the cell isn't on the canvas and nothing is drawn.
+     * @param gc The graphics context of the canvas.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @param gridLeft Where on the canvas the left of the grid is.
+     * @param gridTop Where on the canvas the top of the grid is.
+     */
+    void drawCell(GraphicsContext gc, int x, int y, int gridLeft, int gridTop) {
+        if (!refreshCell(x, y)) {
+            return;
+        }
+        int chunkX = x / chunkCells;
+        int chunkY = y / chunkCells;
+        Chunk chunk = chunks.get(chunkY * chunksAcross + chunkX);
+        gc.drawImage(chunk.image, (x - chunkX * chunkCells) * tileSize, (y - chunkY * chunkCells) * tileSize,
+                tileSize, tileSize, gridLeft + x * tileSize, gridTop + y * tileSize, tileSize, tileSize);
+    }
+
+    /**
+     * Draws the tile of a cell into its chunk again if its sprite has changed, without copying
+     * anything onto the canvas, so a chunk kept while the cell changed isn't copied out of date
+     * later. A cell whose chunk isn't kept is left, since the chunk is drawn from the level's
+     * tiles as they are then if it is needed again.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @return true if the cell's chunk is kept, false if it isn't.
+     */
+    boolean refreshCell(int x, int y) {
+        Chunk chunk = chunks.get((y / chunkCells) * chunksAcross + x / chunkCells);
+        if (chunk == null) {
+            return false;
+        }
+        drawTile(chunk, x, y);
+        return true;
+    }
+
+    /**
+     * Gets the image of a chunk, drawing it from the level's tiles if it isn't kept.
+     * @param chunkX The x coordinate of the chunk, in chunks.
+     * @param chunkY The y coordinate of the chunk, in chunks.
+     * @return The chunk.
+     */
+    private Chunk getChunk(int chunkX, int chunkY) {
+        int key = chunkY * chunksAcross + chunkX;
+        Chunk chunk = chunks.get(key);
+        if (chunk != null) {
+            return chunk;
+        }
+        int left = chunkX * chunkCells;
+        int top = chunkY * chunkCells;
+        int right = Math.min(levelWidth, left + chunkCells);
+        int bottom = Math.min(levelHeight, top + chunkCells);
+        chunk = new Chunk(right - left, bottom - top, tileSize);
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x++) {
+                drawTile(chunk, x, y);
+            }
+        }
+        chunks.put(key, chunk);
+        return chunk;
+    }
+
+    /**
+     * Draws the tile of a cell into the image of its chunk, unless its sprite is already drawn there.
+     * @param chunk The cell's chunk.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     */
+    private void drawTile(Chunk chunk, int x, int y) {
+        int column = x % chunkCells;
+        int row = y % chunkCells;
+        int cell = row * ((int) chunk.image.getWidth() / tileSize) + column;
+        Tile tile = GameManager.checkTile(x, y);
+        String path = tile == null ? null : tile.getImagePath();
+        if (path != null && path.equals(chunk.paths[cell])) {
+            return;
+        }
+        chunk.paths[cell] = path;
+        int[] pixels = path == null ? null : sprites.getPixels(path, tileSize);
+        if (pixels == null) {
+            pixels = emptyPixels;
+        }
+        chunk.image.getPixelWriter().setPixels(column * tileSize, row * tileSize, tileSize, tileSize,
+                PixelFormat.getIntArgbInstance(), pixels, 0, tileSize);
+    }
+}
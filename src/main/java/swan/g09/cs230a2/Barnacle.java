@@ -9,7 +9,6 @@ import javafx.geometry.Point2D;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 
 import static swan.g09.cs230a2.GameManager.getPlayerInstance;
@@ -30,11 +29,6 @@ public class Barnacle extends Actor {
     private static final ArrayList<TileType> BLOCKED_TILES =
             new ArrayList<>(List.of(TileType.BLOCK, TileType.WALL));
 
-    /**
-     * Stores how many times the barnacle has ticked.
-     * */
-    private static int currentTick = 0;
-
     /**
      * Boolean that states if the player is currently trapped within the barnacle,
      * true if the player is trapped.
@@ -56,11 +50,20 @@ public class Barnacle extends Actor {
      */
     @Override
     protected void tick() {
-        currentTick++;
+        GameManager.scheduleWake(this, 1);
         trapPlayer();
         checkEvent();
     }
 
+    /**
+     * Barnacles watch for the player on every tick, starting with the first.
+     * @return 1
+     */
+    @Override
+    protected int getInitialWakeDelay() {
+        return 1;
+    }
+
 
     /**
      * Checks if the actor can move,
@@ -75,7 +78,7 @@ public class Barnacle extends Actor {
     }
 
     /**
-     * Checks if the player can be trapped, by checking through a map of positions.
+     * Checks if the player can be trapped, by checking that nothing blocks the row between them.
      *
      * @return true, if the player can be trapped.
      * */
@@ -83,70 +86,49 @@ public class Barnacle extends Actor {
     private boolean canTrapPlayer() {
         Point2D playerPos = getPlayerPosition();
         Point2D barnaclePos = this.getPosition();
-        HashMap<Tile, Point2D> blockedTilesMap = getBlockedTiles(); // map used to keep track of blocked tiles
-
-        int direction = (int) Math.signum(barnaclePos.getX() - playerPos.getX());
-
-        // Iterate over the tiles between the player and the barnacle
-        double startX = playerPos.getX();
-        double endX = barnaclePos.getX();
-        for (double x = startX + direction; x != endX; x += direction) {
-            Point2D tilePos = new Point2D(x, playerPos.getY());
-            // Check if the tile at the current position is blocked
-            if (blockedTilesMap.containsValue(tilePos)) {
-                return false; // Player is blocked by a tile
-            }
-        }
 
-        // Check if the player is on the same Y coordinate as the barnacle
-        return playerPos.getY() == barnaclePos.getY();
+        // Check if the player is on the same Y coordinate as the barnacle, with no wall or block between
+        return playerPos.getY() == barnaclePos.getY()
+                && GameManager.isLineOfSightClear(Coordinate.of(playerPos), getPositionKey());
     }
 
     /**
      * Traps the player, starting the barnacle event.
+     * The player is trapped along with the other changes made this tick.
      * */
     public void trapPlayer() {
         if (canTrapPlayer()) {
-            getPlayerInstance().setTrapped(true);
-            playerTrapped = true;
-            ChipsChallengeApplication.startEvent();
+            GameManager.applyChange(() -> {
+                Player player = getPlayerInstance();
+                if (player != null) {
+                    player.setTrapped(true);
+                    playerTrapped = true;
+                    ChipsChallengeApplication.startEvent();
+                }
+            });
         }
     }
 
     /**
-     * Searches through the map for blocked tiles to exclude from the canTrapPlayer() method.
-     * @return a hashmap of blocked tiles, that do not need to be checked.
+     * Checks if the barnacle needs to be removed from the map.
      * */
-    private HashMap<Tile, Point2D> getBlockedTiles() {
-        HashMap<Tile, Point2D> blockedTilesMap = new HashMap<>();
-
-        // First, add the blocked tiles from BLOCKED_TILES
-        for (TileType tileType : BLOCKED_TILES) {
-            for (Point2D pos : GameManager.getBlockedTile(tileType)) {
-                Tile blockedTile = GameManager.checkTile(pos);
-                blockedTilesMap.put(blockedTile, pos);
-            }
-        }
-
-        // Then, add the blocked tiles from Level.blocksList
-        for (Tile blockedTile : GameManager.getBlocks()) {
-            Point2D pos = blockedTile.getPosition();
-            blockedTilesMap.put(blockedTile, pos);
+    private void checkEvent() {
+        if (BarnacleEvent.isEventWon()) {
+            GameManager.applyChange(this::endEvent);
         }
-
-        return blockedTilesMap;
     }
 
     /**
-     * Checks if the barnacle needs to be removed from the map.
-     * */
-    private void checkEvent() {
-        if (BarnacleEvent.isEventWon()) {
+     * Removes the nearest barnacle and frees the player, if no other barnacle
+     * has already done so this tick.
+     */
+    private void endEvent() {
+        Player player = getPlayerInstance();
+        if (BarnacleEvent.isEventWon() && player != null) {
             removeActor(findNearest().getPosition());
-            getPlayerInstance().setTrapped(false);
+            player.setTrapped(false);
             ChipsChallengeApplication.endEvent();
             BarnacleEvent.setEventWon(false);
-
         }
     }
 
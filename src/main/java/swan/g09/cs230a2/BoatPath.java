@@ -17,25 +17,15 @@ public final class BoatPath extends ActionTile {
      */
     private Boolean boatHere;
 
-    /**
-     * Keeps track on whether this tile has already been moved this tick to maintain update order.
-     */
-    private Boolean movedThisTick = false;
-
     /**
      * If the boat's path is not a loop, this keeps track of which direction it is currently going.
      */
     private Boolean reverse = false;
 
     /**
-     * How long since the boat has last moved, so it can move every MOVE_INTERVAL ticks.
+     * The number of ticks the boat waits on each tile before moving on.
      */
-    private int ticksSinceMove = 0;
-
-    /**
-     * The interval between each time the boat moves.
-     */
-    private static final int MOVE_INTERVAL = 7;
+    private static final int MOVE_INTERVAL = 8;
 
     /**
      * Constructor for a BoatPath.
@@ -76,7 +66,6 @@ public final class BoatPath extends ActionTile {
      */
     public void moveBoatTo(Boolean isReversing) {
         this.boatHere = true;
-        this.movedThisTick = true;
         this.reverse = isReversing;
 
         updateImagePath("sprites/Boat.png");
@@ -123,6 +112,9 @@ public final class BoatPath extends ActionTile {
         }
     }
 
+    /**
+     * Moves the boat on to the next tile of its path, taking any rider with it.
+     */
     @Override
     public void tick() {
         if (this.boatHere) {
@@ -141,18 +133,37 @@ public final class BoatPath extends ActionTile {
                 nextTile = GameManager.checkTile(nextPosition);
             }
 
-            if (ticksSinceMove > BoatPath.MOVE_INTERVAL && !this.movedThisTick
-                && nextTile instanceof BoatPath nextBoatTile) {
-                this.ticksSinceMove = 0;
-                nextBoatTile.moveBoatTo(this.reverse);
-                this.moveBoatAway();
+            if (nextTile instanceof BoatPath nextBoatTile) {
+                boolean reversing = this.reverse;
+                GameManager.applyChange(() -> {
+                    nextBoatTile.moveBoatTo(reversing);
+                    GameManager.scheduleWake(nextBoatTile, MOVE_INTERVAL);
+                    this.moveBoatAway();
+                });
             } else {
-                this.movedThisTick = false;
-                this.ticksSinceMove += 1;
+                GameManager.scheduleWake(this, MOVE_INTERVAL);
             }
         }
     }
 
+    /**
+     * Boat paths move their boat along when ticked.
+     * @return true
+     */
+    @Override
+    public boolean isTickable() {
+        return true;
+    }
+
+    /**
+     * A boat that starts on this tile waits one move interval before setting off.
+     * @return The move interval if a boat is here, otherwise no wake.
+     */
+    @Override
+    public int getInitialWakeDelay() {
+        return this.boatHere ? MOVE_INTERVAL : TickRegistry.NO_WAKE;
+    }
+
     /**
      * Get the save file representation of the current tile.
      * @return the character representing the tile in its current state
@@ -33,11 +33,6 @@ public class Bug extends Actor {
      */
     private boolean followLeftEdge;
 
-    /**
-     * Stores how many times the bug has been ticked.
-     */
-    private int currentTick = 0;
-
     /**
      * Constructor to initialize a Bug instance.
      *
@@ -59,11 +54,7 @@ public class Bug extends Actor {
      */
     @Override
     protected void tick() {
-        currentTick++;
-
-        if (currentTick % MOVE_INTERVAL != 0) {
-            return;
-        }
+        GameManager.scheduleWake(this, MOVE_INTERVAL);
 
         Direction nextDirection = determineNextDirection();
 
@@ -73,6 +64,15 @@ public class Bug extends Actor {
         }
     }
 
+    /**
+     * The first move happens one move interval after the level starts.
+     * @return The move interval.
+     */
+    @Override
+    protected int getInitialWakeDelay() {
+        return MOVE_INTERVAL;
+    }
+
     /**
      * Checks if the Bug can move in a specific direction based
      * on the grid layout and obstacles.
@@ -118,45 +118,42 @@ public class Bug extends Actor {
 
         Direction dir = getFacingDir();
 
-        Point2D bugPos = getPosition();
+        int bugPos = getPositionKey();
 
-        Point2D frontOfBug;
-        Point2D sideOfBug;
-        Point2D otherSideOfBug;
-        Point2D backSideOfBug;
+        int frontOfBug;
+        int sideOfBug;
+        int otherSideOfBug;
+        int backSideOfBug;
 
         int sideOffset = (followLeftEdge ? -1 : 1);
 
         switch (dir) {
             case NORTH -> {
-                frontOfBug = new Point2D(bugPos.getX(), bugPos.getY() - 1);
-                sideOfBug = new Point2D(bugPos.getX() + sideOffset, bugPos.getY());
-                otherSideOfBug = new Point2D(bugPos.getX() - sideOffset, bugPos.getY());
-                backSideOfBug = new Point2D(bugPos.getX() + sideOffset, bugPos.getY() + 1);
+                frontOfBug = Coordinate.offset(bugPos, 0, -1);
+                sideOfBug = Coordinate.offset(bugPos, sideOffset, 0);
+                otherSideOfBug = Coordinate.offset(bugPos, -sideOffset, 0);
+                backSideOfBug = Coordinate.offset(bugPos, sideOffset, 1);
             }
             case EAST -> {
-                frontOfBug = new Point2D(bugPos.getX() + 1, bugPos.getY());
-                sideOfBug = new Point2D(bugPos.getX(), bugPos.getY() + sideOffset);
-                otherSideOfBug = new Point2D(bugPos.getX(), bugPos.getY() - sideOffset);
-                backSideOfBug = new Point2D(bugPos.getX() - 1, bugPos.getY() + sideOffset);
+                frontOfBug = Coordinate.offset(bugPos, 1, 0);
+                sideOfBug = Coordinate.offset(bugPos, 0, sideOffset);
+                otherSideOfBug = Coordinate.offset(bugPos, 0, -sideOffset);
+                backSideOfBug = Coordinate.offset(bugPos, -1, sideOffset);
             }
             case SOUTH -> {
-                frontOfBug = new Point2D(bugPos.getX(), bugPos.getY() + 1);
-                sideOfBug = new Point2D(bugPos.getX() - sideOffset, bugPos.getY());
-                otherSideOfBug = new Point2D(bugPos.getX() + sideOffset, bugPos.getY());
-                backSideOfBug = new Point2D(bugPos.getX() - sideOffset, bugPos.getY() - 1);
+                frontOfBug = Coordinate.offset(bugPos, 0, 1);
+                sideOfBug = Coordinate.offset(bugPos, -sideOffset, 0);
+                otherSideOfBug = Coordinate.offset(bugPos, sideOffset, 0);
+                backSideOfBug = Coordinate.offset(bugPos, -sideOffset, -1);
             }
             case WEST -> {
-                frontOfBug = new Point2D(bugPos.getX() - 1, bugPos.getY());
-                sideOfBug = new Point2D(bugPos.getX(), bugPos.getY() - sideOffset);
-                otherSideOfBug = new Point2D(bugPos.getX(), bugPos.getY() + sideOffset);
-                backSideOfBug = new Point2D(bugPos.getX() + 1, bugPos.getY() - sideOffset);
+                frontOfBug = Coordinate.offset(bugPos, -1, 0);
+                sideOfBug = Coordinate.offset(bugPos, 0, -sideOffset);
+                otherSideOfBug = Coordinate.offset(bugPos, 0, sideOffset);
+                backSideOfBug = Coordinate.offset(bugPos, 1, -sideOffset);
             }
             default -> {
-                frontOfBug = null;
-                sideOfBug = null;
-                otherSideOfBug = null;
-                backSideOfBug = null;
+                return null;
             }
         }
 
@@ -0,0 +1,35 @@
+package swan.g09.cs230a2;
+
+/**
+ * How monsters chasing the player find their way to them on a level.
+ *
+ * @version 0.1
+ */
+public enum ChaseStrategy {
+    /**
+     * Chosen when the level is loaded, from how open the level is and how many monsters chase the player.
+     */
+    AUTOMATIC,
+    /**
+     * One distance field shared by every monster, see {@link PlayerDistanceField}, with frogs
+     * planning their moves around each other, see {@link CooperativePlanner}.
+     * Best when many monsters chase the player.
+     */
+    SHARED_FIELD,
+    /**
+     * Each monster searches for the player with A*, see {@link AStarPathFinder}, estimating
+     * distances from the level's landmarks, see {@link LandmarkTable}.
+     * Best on levels with many walls and few monsters chasing the player.
+     */
+    A_STAR,
+    /**
+     * Each monster searches for the player with jump point search, see {@link JumpPointPathFinder}.
+     * Best on open levels with few monsters chasing the player.
+     */
+    JUMP_POINT,
+    /**
+     * Each monster searches an abstract graph of the level's clusters, see {@link HierarchicalPathFinder}.
+     * Best on very large levels with few monsters chasing the player, though paths may be a little longer.
+     */
+    HIERARCHICAL
+}
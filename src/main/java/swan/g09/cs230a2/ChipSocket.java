@@ -51,6 +51,7 @@ public class ChipSocket extends Tile {
             GameManager.setPath(getPosition());
             return true;
         }
+        GameManager.markCellDirty(getPositionKey());
         return false;
     }
 }
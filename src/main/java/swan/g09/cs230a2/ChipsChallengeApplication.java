@@ -185,6 +185,10 @@ public class ChipsChallengeApplication extends Application {
      * Starts the barnacle event.
      */
     public static void startEvent() {
+        // There is no window to show the event in when running headless
+        if (primaryStage == null) {
+            return;
+        }
         // ensures thread is open
         Platform.runLater(() -> {
             if (!barnacleEventStarted) {
@@ -199,6 +203,9 @@ public class ChipsChallengeApplication extends Application {
      * Ends the barnacle event.
      */
     public static void endEvent() {
+        if (primaryStage == null) {
+            return;
+        }
         Platform.runLater(() -> {
             final StackPane root = (StackPane) getStage().getScene().getRoot();
             if (root.getChildren().size() > 1 && barnacleEventStarted) {
@@ -2,7 +2,7 @@ package swan.g09.cs230a2;
 
 /**
  * A {@code Clock} that displays the remaining time for each level.
- * Stores this time for use in calculating score.
+ * Stores this time for use in calculating score, in the current {@link GameSession}.
  * @author Caragh Waite
  * @author Barnaby Morley-Smith
  * @version 0.1
@@ -13,23 +13,14 @@ public class Clock {
      */
     private static final int MS_PER_SEC = 1000;
 
-    /**
-     * The total time for the level.
-     */
-    private static int totalTime = 0;
-
-    /**
-     * The time remaining on the level.
-     */
-    private static int remainingTime = 0;
-
     /**
      * Re-initialises the clock with the supplied level duration.
      * @param duration The duration in seconds of the level.
      */
     public static void setLevelDuration(int duration) {
-        totalTime = duration;
-        remainingTime = duration;
+        GameSession session = GameSession.current();
+        session.clockTotalTime = duration;
+        session.clockRemainingTime = duration;
     }
 
     /**
@@ -37,8 +28,10 @@ public class Clock {
      * @param currentLevelTick The count of how many ticks have passed since the level began.
      */
     public static void tick(int currentLevelTick) {
-      remainingTime = Math.max(0, totalTime - (currentLevelTick * GameTimer.getTickRate() / MS_PER_SEC));
-      if (remainingTime == 0) {
+      GameSession session = GameSession.current();
+      session.clockRemainingTime = Math.max(0,
+              session.clockTotalTime - (currentLevelTick * GameTimer.getTickRate() / MS_PER_SEC));
+      if (session.clockRemainingTime == 0) {
           GameManager.endGame(GameManager.DeathState.TIME_OUT);
       }
     }
@@ -48,20 +41,22 @@ public class Clock {
      * @return The number of seconds left.
      */
     public static int getRemainingTime() {
-        return remainingTime;
+        return GameSession.current().clockRemainingTime;
     }
 
     /**
      * Resets the level duration to the original duration.
      */
     public static void resetLevelDuration() {
-        remainingTime = totalTime;
+        GameSession session = GameSession.current();
+        session.clockRemainingTime = session.clockTotalTime;
     }
 
     /**
      * Resets the remaining time to the total time.
      */
     public static void resetRemainingTime() {
-        remainingTime = totalTime;
+        GameSession session = GameSession.current();
+        session.clockRemainingTime = session.clockTotalTime;
     }
 }
@@ -0,0 +1,501 @@
+package swan.g09.cs230a2;
+
+import java.util.Arrays;
+
+/**
+ * An abstract graph of a level for hierarchical path finding (HPA*), see {@link HierarchicalPathFinder}.
+ * The level is split into square clusters, and wherever cells on both sides of the border
+ * between two clusters can be walked through, an entrance is made: one at the middle of a
+ * short run of such cells, or one at each end of a long run. The cells of the entrances are
+ * the nodes of the graph. A node is linked to the node across the border from it, and to the
+ * other nodes of its cluster by the length of the shortest path between them inside the cluster.
+ *
+ * <p>The graph is built for the whole level when created. After that, when a cell changes
+ * whether it can be walked through, only its cluster's borders and the nodes of the
+ * clusters sharing them are built again, the next time the graph is refreshed.</p>
+ *
+ * @version 0.1
+ */
+final class ClusterGraph {
+
+    /**
+     * The width and height of a cluster.
+     */
+    static final int CLUSTER_SIZE = 16;
+
+    /**
+     * The distance between nodes which can't reach each other inside their cluster.
+     */
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The number of rows of bits a search of a cluster needs.
+     */
+    static final int SEARCH_ROWS = 3 * CLUSTER_SIZE;
+
+    /**
+     * The shortest run of cells along a border given an entrance at each end, rather than one in the middle.
+     */
+    private static final int SPLIT_ENTRANCE_LENGTH = 6;
+
+    /**
+     * The most nodes a cluster can have: an entrance at every other cell of each border.
+     */
+    private static final int MAX_NODES = 2 * CLUSTER_SIZE;
+
+    /**
+     * The bits of a row of a cluster.
+     */
+    private static final int ROW_MASK = (1 << CLUSTER_SIZE) - 1;
+
+    /**
+     * Where the rows of cells reached start in the rows of a search of a cluster, after the rows of open cells.
+     */
+    private static final int REACHED = CLUSTER_SIZE;
+
+    /**
+     * Where the rows of cells reached by the last step start in the rows of a search of a cluster.
+     */
+    private static final int FRONTIER = 2 * CLUSTER_SIZE;
+
+    /**
+     * The cells which can be walked through.
+     */
+    private final WalkableGrid grid;
+
+    /**
+     * The width of the level.
+     */
+    private final int width;
+
+    /**
+     * The height of the level.
+     */
+    private final int height;
+
+    /**
+     * The number of clusters across the level.
+     */
+    private final int clustersX;
+
+    /**
+     * The number of clusters down the level.
+     */
+    private final int clustersY;
+
+    /**
+     * The entrances on the east border of each cluster, as pairs of the cell inside and the cell east of it.
+     */
+    private final int[][] eastBorders;
+
+    /**
+     * The entrances on the south border of each cluster, as pairs of the cell inside and the cell south of it.
+     */
+    private final int[][] southBorders;
+
+    /**
+     * The cell index of each node of each cluster.
+     */
+    private final int[][] nodes;
+
+    /**
+     * The cells across a border from each node of each cluster, two for each node, -1 if unused.
+     */
+    private final int[][] partners;
+
+    /**
+     * The distance between each pair of nodes of each cluster, inside the cluster.
+     */
+    private final int[][] distances;
+
+    /**
+     * Whether each cluster has had a cell change since it was last built.
+     */
+    private final boolean[] dirty;
+
+    /**
+     * The clusters which have had a cell change since they were last built.
+     */
+    private final int[] dirtyClusters;
+
+    /**
+     * The number of clusters which have had a cell change since they were last built.
+     */
+    private volatile int dirtyCount;
+
+    /**
+     * Whether each cluster's nodes need building again while refreshing.
+     */
+    private final boolean[] stale;
+
+    /**
+     * The entrances of a border being built.
+     */
+    private final int[] entrances = new int[2 * CLUSTER_SIZE];
+
+    /**
+     * The distance of each cell of a cluster from the cell a search started from.
+     */
+    private final int[] localDistance = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+
+    /**
+     * The rows of bits of a search of a cluster.
+     */
+    private final int[] localRows = new int[SEARCH_ROWS];
+
+    /**
+     * Builds the graph of a level.
+     * @param grid The cells of the level which can be walked through.
+     */
+    ClusterGraph(WalkableGrid grid) {
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        clustersX = (width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        clustersY = (height + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        int clusters = clustersX * clustersY;
+        eastBorders = new int[clusters][];
+        southBorders = new int[clusters][];
+        nodes = new int[clusters][];
+        partners = new int[clusters][];
+        distances = new int[clusters][];
+        dirty = new boolean[clusters];
+        dirtyClusters = new int[clusters];
+        stale = new boolean[clusters];
+
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            buildBorders(cluster);
+        }
+        for (int cluster = 0; cluster < clusters; cluster++) {
+            buildNodes(cluster);
+        }
+        grid.setChangeListener(this::cellChanged);
+    }
+
+    /**
+     * Gets the width of the level.
+     * @return The width.
+     */
+    int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the level.
+     * @return The height.
+     */
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the cluster a cell is in.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @return The index of the cluster.
+     */
+    int getClusterOf(int x, int y) {
+        return y / CLUSTER_SIZE * clustersX + x / CLUSTER_SIZE;
+    }
+
+    /**
+     * Gets the x coordinate of the west edge of a cluster.
+     * @param cluster The index of the cluster.
+     * @return The x coordinate of the cluster's first column.
+     */
+    int getClusterX(int cluster) {
+        return cluster % clustersX * CLUSTER_SIZE;
+    }
+
+    /**
+     * Gets the y coordinate of the north edge of a cluster.
+     * @param cluster The index of the cluster.
+     * @return The y coordinate of the cluster's first row.
+     */
+    int getClusterY(int cluster) {
+        return cluster / clustersX * CLUSTER_SIZE;
+    }
+
+    /**
+     * Gets the nodes of a cluster. The array mustn't be changed.
+     * @param cluster The index of the cluster.
+     * @return The cell index of each node.
+     */
+    int[] getNodes(int cluster) {
+        return nodes[cluster];
+    }
+
+    /**
+     * Gets the cells across a border from the nodes of a cluster. The array mustn't be changed.
+     * @param cluster The index of the cluster.
+     * @return Two cell indices for each node, -1 where unused.
+     */
+    int[] getPartners(int cluster) {
+        return partners[cluster];
+    }
+
+    /**
+     * Gets the distances between the nodes of a cluster. The array mustn't be changed.
+     * @param cluster The index of the cluster.
+     * @return The distance from node i to node j at i times the number of nodes plus j,
+     * {@link #UNREACHABLE} if they can't reach each other inside the cluster.
+     */
+    int[] getDistances(int cluster) {
+        return distances[cluster];
+    }
+
+    /**
+     * Finds which node of a cluster a cell is.
+     * @param cluster The index of the cluster.
+     * @param cell The index of the cell.
+     * @return The index of the node in the cluster, -1 if the cell isn't a node.
+     */
+    int indexOfNode(int cluster, int cell) {
+        int[] clusterNodes = nodes[cluster];
+        for (int i = 0; i < clusterNodes.length; i++) {
+            if (clusterNodes[i] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the clusters whose cells have changed since the last refresh, after refreshing the grid.
+     */
+    void refresh() {
+        grid.refresh();
+        if (dirtyCount == 0) {
+            return;
+        }
+        synchronized (this) {
+            int count = dirtyCount;
+            for (int i = 0; i < count; i++) {
+                int cluster = dirtyClusters[i];
+                dirty[cluster] = false;
+                // The cluster's west and north borders belong to its neighbours
+                buildBorders(cluster);
+                stale[cluster] = true;
+                int x = cluster % clustersX;
+                int y = cluster / clustersX;
+                if (x > 0) {
+                    buildBorders(cluster - 1);
+                    stale[cluster - 1] = true;
+                }
+                if (y > 0) {
+                    buildBorders(cluster - clustersX);
+                    stale[cluster - clustersX] = true;
+                }
+                if (x + 1 < clustersX) {
+                    stale[cluster + 1] = true;
+                }
+                if (y + 1 < clustersY) {
+                    stale[cluster + clustersX] = true;
+                }
+            }
+            for (int cluster = 0; cluster < stale.length; cluster++) {
+                if (stale[cluster]) {
+                    stale[cluster] = false;
+                    buildNodes(cluster);
+                }
+            }
+            dirtyCount = 0;
+        }
+    }
+
+    /**
+     * Records that a cell has changed whether it can be walked through.
+     * @param position The packed cell which changed.
+     */
+    private synchronized void cellChanged(int position) {
+        int cluster = getClusterOf(Coordinate.getX(position), Coordinate.getY(position));
+        if (!dirty[cluster]) {
+            dirty[cluster] = true;
+            dirtyClusters[dirtyCount] = cluster;
+            dirtyCount = dirtyCount + 1;
+        }
+    }
+
+    /**
+     * Finds the entrances on the east and south borders of a cluster.
+     * @param cluster The index of the cluster.
+     */
+    private void buildBorders(int cluster) {
+        int x0 = getClusterX(cluster);
+        int y0 = getClusterY(cluster);
+        int x1 = Math.min(x0 + CLUSTER_SIZE, width);
+        int y1 = Math.min(y0 + CLUSTER_SIZE, height);
+        eastBorders[cluster] = x1 < width ? findEntrances(x1 - 1, y0, 0, 1, y1 - y0, 1, 0) : new int[0];
+        southBorders[cluster] = y1 < height ? findEntrances(x0, y1 - 1, 1, 0, x1 - x0, 0, 1) : new int[0];
+    }
+
+    /**
+     * Finds the entrances along a border.
+     * @param startX The x coordinate of the first cell inside the cluster along the border.
+     * @param startY The y coordinate of the first cell inside the cluster along the border.
+     * @param alongX The change in x along the border.
+     * @param alongY The change in y along the border.
+     * @param length The number of cells along the border.
+     * @param acrossX The change in x to the cell across the border.
+     * @param acrossY The change in y to the cell across the border.
+     * @return Pairs of the cell inside the cluster and the cell across the border, for each entrance.
+     */
+    private int[] findEntrances(int startX, int startY, int alongX, int alongY, int length,
+                                int acrossX, int acrossY) {
+        int count = 0;
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            int x = startX + i * alongX;
+            int y = startY + i * alongY;
+            boolean open = i < length && grid.isOpen(x, y) && grid.isOpen(x + acrossX, y + acrossY);
+            if (open && runStart == -1) {
+                runStart = i;
+            } else if (!open && runStart != -1) {
+                int first = runStart;
+                int last = i - 1;
+                if (last - first + 1 >= SPLIT_ENTRANCE_LENGTH) {
+                    count = addEntrance(count, startX + first * alongX, startY + first * alongY, acrossX, acrossY);
+                    count = addEntrance(count, startX + last * alongX, startY + last * alongY, acrossX, acrossY);
+                } else {
+                    int middle = (first + last) / 2;
+                    count = addEntrance(count, startX + middle * alongX, startY + middle * alongY, acrossX, acrossY);
+                }
+                runStart = -1;
+            }
+        }
+        return Arrays.copyOf(entrances, count);
+    }
+
+    /**
+     * Adds an entrance to the border being built.
+     * @param count The number of entries so far.
+     * @param x The x coordinate of the cell inside the cluster.
+     * @param y The y coordinate of the cell inside the cluster.
+     * @param acrossX The change in x to the cell across the border.
+     * @param acrossY The change in y to the cell across the border.
+     * @return The new number of entries.
+     */
+    private int addEntrance(int count, int x, int y, int acrossX, int acrossY) {
+        entrances[count] = y * width + x;
+        entrances[count + 1] = (y + acrossY) * width + x + acrossX;
+        return count + 2;
+    }
+
+    /**
+     * Collects the nodes of a cluster from its four borders, and finds the distances between them.
+     * @param cluster The index of the cluster.
+     */
+    private void buildNodes(int cluster) {
+        int[] clusterNodes = new int[MAX_NODES];
+        int[] clusterPartners = new int[2 * MAX_NODES];
+        Arrays.fill(clusterPartners, -1);
+        int count = 0;
+
+        int x = cluster % clustersX;
+        int y = cluster / clustersX;
+        count = addNodes(clusterNodes, clusterPartners, count, eastBorders[cluster], 0);
+        count = addNodes(clusterNodes, clusterPartners, count, southBorders[cluster], 0);
+        if (x > 0) {
+            count = addNodes(clusterNodes, clusterPartners, count, eastBorders[cluster - 1], 1);
+        }
+        if (y > 0) {
+            count = addNodes(clusterNodes, clusterPartners, count, southBorders[cluster - clustersX], 1);
+        }
+
+        int[] clusterDistances = new int[count * count];
+        for (int i = 0; i < count; i++) {
+            searchCluster(cluster, clusterNodes[i], localDistance, localRows);
+            for (int j = 0; j < count; j++) {
+                clusterDistances[i * count + j] = localDistance[toLocal(cluster, clusterNodes[j])];
+            }
+        }
+        nodes[cluster] = Arrays.copyOf(clusterNodes, count);
+        partners[cluster] = Arrays.copyOf(clusterPartners, 2 * count);
+        distances[cluster] = clusterDistances;
+    }
+
+    /**
+     * Adds the cells of a border's entrances on one side as nodes, each linked to the cell on the other side.
+     * A cell on two borders becomes a single node with two partners.
+     * @param clusterNodes The nodes so far.
+     * @param clusterPartners The partners of the nodes so far.
+     * @param count The number of nodes so far.
+     * @param border The entrances of the border.
+     * @param side 0 to add the first cell of each pair, 1 to add the second.
+     * @return The new number of nodes.
+     */
+    private static int addNodes(int[] clusterNodes, int[] clusterPartners, int count, int[] border, int side) {
+        int added = count;
+        for (int i = 0; i < border.length; i += 2) {
+            int cell = border[i + side];
+            int partner = border[i + 1 - side];
+            int node = 0;
+            while (node < added && clusterNodes[node] != cell) {
+                node++;
+            }
+            if (node == added) {
+                clusterNodes[added++] = cell;
+            }
+            int slot = clusterPartners[2 * node] == -1 ? 2 * node : 2 * node + 1;
+            clusterPartners[slot] = partner;
+        }
+        return added;
+    }
+
+    /**
+     * Finds the distance of every cell of a cluster from one cell, without leaving the cluster.
+     * The cell searched from doesn't need to be walkable. Each row of the cluster is held as
+     * bits, so a whole step of the search is taken at once for each row.
+     * @param cluster The index of the cluster.
+     * @param from The index of the cell to search from.
+     * @param distance Filled with the distance of each cell, as indices in the cluster.
+     * @param rows Space for three sets of rows of bits: the open cells, the cells reached, and the last step.
+     */
+    void searchCluster(int cluster, int from, int[] distance, int[] rows) {
+        int x0 = getClusterX(cluster);
+        int y0 = getClusterY(cluster);
+        int count = Math.min(CLUSTER_SIZE, height - y0);
+        int word = x0 >>> WalkableGrid.WORD_SHIFT;
+        int shift = x0 & WalkableGrid.BIT_MASK;
+        for (int row = 0; row < count; row++) {
+            rows[row] = (int) (grid.getWord(false, y0 + row, word) >>> shift) & ROW_MASK;
+            rows[REACHED + row] = 0;
+            rows[FRONTIER + row] = 0;
+        }
+        Arrays.fill(distance, UNREACHABLE);
+
+        int start = toLocal(cluster, from);
+        rows[REACHED + start / CLUSTER_SIZE] = 1 << start % CLUSTER_SIZE;
+        rows[FRONTIER + start / CLUSTER_SIZE] = 1 << start % CLUSTER_SIZE;
+        distance[start] = 0;
+        boolean spreading = true;
+        for (int steps = 1; spreading; steps++) {
+            spreading = false;
+            int above = 0;
+            for (int row = 0; row < count; row++) {
+                int last = rows[FRONTIER + row];
+                int below = row + 1 < count ? rows[FRONTIER + row + 1] : 0;
+                int next = (last << 1 | last >>> 1 | above | below) & rows[row] & ~rows[REACHED + row];
+                above = last;
+                rows[FRONTIER + row] = next;
+                if (next != 0) {
+                    spreading = true;
+                    rows[REACHED + row] |= next;
+                    for (int bits = next; bits != 0; bits &= bits - 1) {
+                        distance[row * CLUSTER_SIZE + Integer.numberOfTrailingZeros(bits)] = steps;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the index of a cell within its cluster.
+     * @param cluster The index of the cluster.
+     * @param cell The index of the cell in the level.
+     * @return The index of the cell in the cluster.
+     */
+    int toLocal(int cluster, int cell) {
+        return (cell / width - getClusterY(cluster)) * CLUSTER_SIZE + cell % width - getClusterX(cluster);
+    }
+}
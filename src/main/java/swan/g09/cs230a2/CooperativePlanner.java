@@ -0,0 +1,600 @@
+package swan.g09.cs230a2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import javafx.geometry.Point2D;
+
+/**
+ * Plans the next few moves of every frog chasing the player together, so a crowd of frogs
+ * following the {@link PlayerDistanceField} down the same corridor doesn't keep walking
+ * into each other. Each frog's plan reserves the cells it will pass through, and later plans
+ * are searched through space and time around the ticks those cells are held on, waiting or
+ * stepping aside rather than colliding.
+ *
+ * <p>A frog holds a cell from the tick it moves in until the tick it moves out, including
+ * that tick, since frogs decide their moves from the level as it was before the tick, and
+ * holds the cell its plan ends in until it is planned again.
+ * Plans look {@link #WINDOW} moves ahead and are followed until they run out, stop matching
+ * where the frog is, or the player moves. Only {@link #MAX_REPLANS_PER_TICK} frogs are planned
+ * again on each tick, those whose plans can't be followed first; the rest keep following
+ * their plans, or step along the field if they have none.</p>
+ *
+ * <p>Plans are made before the frogs are ticked, in grid order, so the result doesn't depend
+ * on the order frogs are woken in, and frogs ticked in parallel only read the plans.</p>
+ *
+ * @version 0.1
+ */
+final class CooperativePlanner {
+
+    /**
+     * The number of moves ahead a plan is made for.
+     */
+    private static final int WINDOW = 4;
+
+    /**
+     * The most frogs planned again on one tick.
+     */
+    private static final int MAX_REPLANS_PER_TICK = 256;
+
+    /**
+     * The most cells a frog can be in after the same number of moves, within {@link #WINDOW} moves.
+     */
+    private static final int MAX_LAYER_CELLS = 2 * WINDOW * WINDOW + 2 * WINDOW + 1;
+
+    /**
+     * The change in x of each step, north, east, south and west, then waiting.
+     */
+    private static final int[] STEP_X = {0, 1, 0, -1, 0};
+
+    /**
+     * The change in y of each step, north, east, south and west, then waiting.
+     */
+    private static final int[] STEP_Y = {-1, 0, 1, 0, 0};
+
+    /**
+     * Returned when a frog has no move to follow.
+     */
+    private static final int NO_MOVE = -1;
+
+    /**
+     * The initial capacity of the reservation arrays.
+     */
+    private static final int INITIAL_RESERVATIONS = 64;
+
+    /**
+     * A frog's moves over the next few ticks.
+     */
+    private static final class Plan {
+        /**
+         * The frog following the plan.
+         */
+        private final Frog frog;
+
+        /**
+         * The packed cell the frog starts in, then the packed cell it is in after each move.
+         */
+        private final int[] cells = new int[WINDOW + 1];
+
+        /**
+         * The number of moves planned, 0 if the frog has no moves planned and stays where it is.
+         */
+        private int length;
+
+        /**
+         * The tick of the first move.
+         */
+        private long startTick;
+
+        /**
+         * The packed cell the player was in when the plan was made.
+         */
+        private int playerKey;
+
+        /**
+         * Creates an empty plan.
+         * @param planFrog The frog following the plan.
+         */
+        private Plan(Frog planFrog) {
+            frog = planFrog;
+        }
+
+        /**
+         * Checks whether the plan holds a cell on a tick. After its last move, the frog
+         * holds the cell it ends in until it is planned again.
+         * @param cell The packed cell.
+         * @param tick The tick, no earlier than the start of the plan.
+         * @return true if the frog is in the cell on the tick, or moves into or out of it.
+         */
+        private boolean holds(int cell, long tick) {
+            long elapsed = tick - startTick;
+            long moves = Math.min(elapsed / Frog.MOVE_INTERVAL + 1, length);
+            if (cells[(int) moves] == cell) {
+                return true;
+            }
+            // On the tick of a move the frog still holds the cell it leaves
+            long move = elapsed / Frog.MOVE_INTERVAL;
+            return elapsed % Frog.MOVE_INTERVAL == 0 && move < length && cells[(int) move] == cell;
+        }
+
+        /**
+         * Finds where the plan has the frog before the moves of a tick.
+         * @param tick The tick, no earlier than the start of the plan.
+         * @return The packed cell.
+         */
+        private int cellBefore(long tick) {
+            long moves = (tick - startTick + Frog.MOVE_INTERVAL - 1) / Frog.MOVE_INTERVAL;
+            return cells[(int) Math.min(moves, length)];
+        }
+
+        /**
+         * Drops the plan's moves, so the frog holds the cell it is in.
+         * @param tick The current tick.
+         */
+        private void park(long tick) {
+            cells[0] = frog.getPositionKey();
+            length = 0;
+            startTick = tick;
+        }
+    }
+
+    /**
+     * The cells which can be walked through, including the player's cell.
+     */
+    private final WalkableGrid walkable;
+
+    /**
+     * The distance to the player, guiding the plans.
+     */
+    private final PlayerDistanceField field;
+
+    /**
+     * The plan of each frog which has had one.
+     */
+    private final IdentityHashMap<Frog, Plan> plans = new IdentityHashMap<>();
+
+    /**
+     * Every plan, in the order they were first made.
+     */
+    private final ArrayList<Plan> planList = new ArrayList<>();
+
+    /**
+     * The width of the level.
+     */
+    private final int width;
+
+    /**
+     * The pass each cell was last reserved in. A cell's first reservation is only valid in that pass.
+     */
+    private final int[] reservedPass;
+
+    /**
+     * The first reservation of each cell, an index into the reservations.
+     */
+    private final int[] firstReservation;
+
+    /**
+     * The next reservation of the same cell after each reservation, -1 for none.
+     */
+    private int[] nextReservation = new int[INITIAL_RESERVATIONS];
+
+    /**
+     * The plan which made each reservation, which may no longer hold the cell once planned again.
+     */
+    private Plan[] reservingPlan = new Plan[INITIAL_RESERVATIONS];
+
+    /**
+     * The number of reservations made this pass.
+     */
+    private int reservationCount;
+
+    /**
+     * The pass each frog due on the current tick was given a step in, by its cell.
+     */
+    private final int[] stepPass;
+
+    /**
+     * The packed cell each frog due on the current tick should step into, by its cell.
+     */
+    private final int[] step;
+
+    /**
+     * The frogs due on the current tick, each their distance from the player above their index in the registry.
+     */
+    private long[] dueOrder = new long[INITIAL_RESERVATIONS];
+
+    /**
+     * The number of the current pass, one each tick.
+     */
+    private int pass;
+
+    /**
+     * The packed cells a plan being searched for can be in after each move, layer by layer.
+     */
+    private final int[] layerCells = new int[(WINDOW + 1) * MAX_LAYER_CELLS];
+
+    /**
+     * The index in the layer before of the cell each cell in a layer was reached from.
+     */
+    private final int[] layerParents = new int[(WINDOW + 1) * MAX_LAYER_CELLS];
+
+    /**
+     * The number of cells in each layer.
+     */
+    private final int[] layerSizes = new int[WINDOW + 1];
+
+    /**
+     * The layer each cell was last added to, numbered across searches, so it is only added to a layer once.
+     */
+    private final int[] seen;
+
+    /**
+     * The number of the current layer.
+     */
+    private int layerStamp;
+
+    /**
+     * The packed cell of the player on the current tick, {@link PathFinder#NO_PATH} if there is no player.
+     */
+    private int playerKey = PathFinder.NO_PATH;
+
+    /**
+     * Creates a planner for a level.
+     * @param walkable The cells of the level which can be walked through, including the player's cell.
+     * @param field The distance to the player.
+     */
+    CooperativePlanner(WalkableGrid walkable, PlayerDistanceField field) {
+        this.walkable = walkable;
+        this.field = field;
+        width = walkable.getWidth();
+        int cells = width * walkable.getHeight();
+        reservedPass = new int[cells];
+        firstReservation = new int[cells];
+        stepPass = new int[cells];
+        step = new int[cells];
+        seen = new int[cells];
+    }
+
+    /**
+     * Plans the moves of the frogs due on the current tick, before any of them are woken.
+     * Frogs which can't follow their plans are planned again first, then frogs whose plans
+     * were made before the player moved, while the budget for the tick lasts.
+     * @param registry The registry holding the entities due on the current tick, in grid order.
+     */
+    void planDue(TickRegistry registry) {
+        long tick = registry.getCurrentTick();
+        Point2D player = GameSession.current().actorLayer.findFirstPositionOf(TileType.PLAYER);
+        playerKey = player == null ? PathFinder.NO_PATH : Coordinate.of(player);
+        nextPass();
+        reindex(tick);
+
+        int count = sortDueFrogs(registry);
+        int replans = 0;
+        for (int i = 0; i < count; i++) {
+            Frog frog = (Frog) registry.getDue((int) dueOrder[i]);
+            Plan plan = plans.get(frog);
+            if (findMove(plan, frog.getPositionKey(), tick) != NO_MOVE) {
+                continue;
+            }
+            if (replans < MAX_REPLANS_PER_TICK) {
+                replan(frog, tick);
+                replans++;
+            } else {
+                // Over budget, the frog steps along the field and others keep clear of it
+                planFor(frog).park(tick);
+                reserve(plans.get(frog));
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            Frog frog = (Frog) registry.getDue((int) dueOrder[i]);
+            int from = frog.getPositionKey();
+            Plan plan = plans.get(frog);
+            if (plan.playerKey != playerKey && replans < MAX_REPLANS_PER_TICK) {
+                replan(frog, tick);
+                replans++;
+            }
+            int move = findMove(plan, from, tick);
+            if (move != NO_MOVE) {
+                int cell = indexOf(from);
+                stepPass[cell] = pass;
+                step[cell] = plan.cells[move];
+            }
+        }
+    }
+
+    /**
+     * Sorts the frogs due on the current tick which aren't trapped, closest to the player
+     * first, then in grid order, so frogs nearer the front of a crowd are planned first.
+     * @param registry The registry holding the entities due on the current tick, in grid order.
+     * @return The number of frogs sorted into {@link #dueOrder}.
+     */
+    private int sortDueFrogs(TickRegistry registry) {
+        int count = 0;
+        for (int i = 0; i < registry.getDueCount(); i++) {
+            if (registry.getDue(i) instanceof Frog frog && !frog.isTrapped()) {
+                if (count == dueOrder.length) {
+                    dueOrder = Arrays.copyOf(dueOrder, count * 2);
+                }
+                long distance = field.getDistance(frog.getPositionKey());
+                dueOrder[count++] = distance << Integer.SIZE | i;
+            }
+        }
+        Arrays.sort(dueOrder, 0, count);
+        return count;
+    }
+
+    /**
+     * Finds the next step towards the player of a frog due on the current tick.
+     * @param from The packed cell of the frog.
+     * @return The packed cell to step into, the frog's own cell to wait, or {@link PathFinder#NO_PATH}
+     * if the player can't be reached.
+     */
+    int findStep(int from) {
+        int cell = indexOf(from);
+        return stepPass[cell] == pass ? step[cell] : field.findNextStep(from);
+    }
+
+    /**
+     * Finds which move of a plan a frog makes on a tick.
+     * @param plan The frog's plan, null if it has none.
+     * @param from The packed cell the frog is in.
+     * @param tick The tick.
+     * @return The number of the move, {@link #NO_MOVE} if the frog can't follow the plan on the tick.
+     */
+    private int findMove(Plan plan, int from, long tick) {
+        if (plan == null || plan.length == 0) {
+            return NO_MOVE;
+        }
+        long elapsed = tick - plan.startTick;
+        if (elapsed % Frog.MOVE_INTERVAL != 0 || elapsed / Frog.MOVE_INTERVAL >= plan.length) {
+            return NO_MOVE;
+        }
+        int move = (int) (elapsed / Frog.MOVE_INTERVAL) + 1;
+        int next = plan.cells[move];
+        if (plan.cells[move - 1] != from || next != from && !walkable.test(next)) {
+            return NO_MOVE;
+        }
+        return move;
+    }
+
+    /**
+     * Reserves the cells of every plan again. Plans of frogs which have left the level are
+     * dropped, and frogs which aren't where their plans have them are parked where they are.
+     * @param tick The current tick.
+     */
+    private void reindex(long tick) {
+        int kept = 0;
+        for (int i = 0; i < planList.size(); i++) {
+            Plan plan = planList.get(i);
+            int at = plan.frog.getPositionKey();
+            if (GameManager.checkActor(at) != plan.frog) {
+                plans.remove(plan.frog);
+                continue;
+            }
+            if (plan.cellBefore(tick) != at) {
+                plan.park(tick);
+            }
+            reserve(plan);
+            planList.set(kept++, plan);
+        }
+        // Remove from the end rather than clearing a sub list, which would allocate every tick
+        for (int i = planList.size() - 1; i >= kept; i--) {
+            planList.remove(i);
+        }
+    }
+
+    /**
+     * Gets a frog's plan, making an empty one if it has none.
+     * @param frog The frog.
+     * @return The frog's plan.
+     */
+    private Plan planFor(Frog frog) {
+        Plan plan = plans.get(frog);
+        if (plan == null) {
+            plan = new Plan(frog);
+            plan.park(0);
+            plans.put(frog, plan);
+            planList.add(plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Plans a frog's next moves, around the reservations of the other frogs.
+     * The frog moves to the cell closest to the player it can reach in {@link #WINDOW}
+     * moves, or to the player if it can reach them sooner.
+     * @param frog The frog.
+     * @param tick The tick of its first move.
+     */
+    private void replan(Frog frog, long tick) {
+        Plan plan = planFor(frog);
+        plan.park(tick);
+        plan.playerKey = playerKey;
+        int from = plan.cells[0];
+        if (field.getDistance(from) != PlayerDistanceField.UNREACHABLE) {
+            search(plan, tick);
+        }
+        reserve(plan);
+    }
+
+    /**
+     * Searches through space and time for a plan's moves, starting from the frog's cell.
+     * @param plan The plan, with no moves.
+     * @param tick The tick of the first move.
+     */
+    private void search(Plan plan, long tick) {
+        layerCells[0] = plan.cells[0];
+        layerSizes[0] = 1;
+        int last = 0;
+        int best = NO_MOVE;
+        for (int layer = 1; layer <= WINDOW && layerSizes[layer - 1] > 0; layer++) {
+            nextLayerStamp();
+            layerSizes[layer] = 0;
+            long moveTick = tick + (long) (layer - 1) * Frog.MOVE_INTERVAL;
+            int reachedPlayer = addLayer(plan, layer, moveTick);
+            if (layerSizes[layer] > 0) {
+                last = layer;
+            }
+            if (reachedPlayer != NO_MOVE) {
+                best = reachedPlayer;
+                break;
+            }
+        }
+        if (last == 0) {
+            return;
+        }
+        if (best == NO_MOVE) {
+            best = findClosest(last);
+        }
+
+        // Walk back from the chosen cell to the frog
+        plan.length = last;
+        int index = best;
+        for (int layer = last; layer > 0; layer--) {
+            plan.cells[layer] = layerCells[layer * MAX_LAYER_CELLS + index];
+            index = layerParents[layer * MAX_LAYER_CELLS + index];
+        }
+    }
+
+    /**
+     * Finds every cell a plan can be in after a move, from the cells it can be in before it.
+     * @param plan The plan being searched for.
+     * @param layer The number of the move.
+     * @param moveTick The tick of the move.
+     * @return The index in the layer of the player's cell if the move reaches it, {@link #NO_MOVE} if not.
+     */
+    private int addLayer(Plan plan, int layer, long moveTick) {
+        int before = (layer - 1) * MAX_LAYER_CELLS;
+        int after = layer * MAX_LAYER_CELLS;
+        for (int i = 0; i < layerSizes[layer - 1]; i++) {
+            int cell = layerCells[before + i];
+            int x = Coordinate.getX(cell);
+            int y = Coordinate.getY(cell);
+            for (int direction = 0; direction < STEP_X.length; direction++) {
+                int nextX = x + STEP_X[direction];
+                int nextY = y + STEP_Y[direction];
+                int next = Coordinate.pack(nextX, nextY);
+                boolean waiting = next == cell;
+                if (!waiting && !walkable.isOpen(nextX, nextY)) {
+                    continue;
+                }
+                int index = nextY * width + nextX;
+                if (seen[index] == layerStamp || !isFree(plan, next, moveTick)
+                        || !isFree(plan, next, moveTick + Frog.MOVE_INTERVAL)) {
+                    continue;
+                }
+                if (layer == 1 && !waiting) {
+                    Actor actor = GameManager.checkActor(next);
+                    if (actor != null && !(actor instanceof Player)) {
+                        continue;
+                    }
+                }
+                seen[index] = layerStamp;
+                int size = layerSizes[layer]++;
+                layerCells[after + size] = next;
+                layerParents[after + size] = i;
+                if (next == playerKey) {
+                    return size;
+                }
+            }
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * Finds the cell of a layer closest to the player, the first of them if several are as close.
+     * @param layer The number of the layer.
+     * @return The index of the cell in the layer.
+     */
+    private int findClosest(int layer) {
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < layerSizes[layer]; i++) {
+            int cell = layerCells[layer * MAX_LAYER_CELLS + i];
+            int distance = field.getDistance(cell);
+            if (distance < bestDistance || distance == bestDistance && cell == layerCells[0]) {
+                best = i;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Checks whether a cell is free for a plan on a tick, because no other plan holds it.
+     * @param plan The plan.
+     * @param cell The packed cell.
+     * @param tick The tick.
+     * @return true if the cell is free, or only held by the plan itself.
+     */
+    private boolean isFree(Plan plan, int cell, long tick) {
+        int index = indexOf(cell);
+        if (reservedPass[index] != pass) {
+            return true;
+        }
+        for (int r = firstReservation[index]; r != -1; r = nextReservation[r]) {
+            Plan other = reservingPlan[r];
+            if (other != plan && other.holds(cell, tick)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reserves the cells of a plan for this pass.
+     * @param plan The plan.
+     */
+    private void reserve(Plan plan) {
+        for (int move = 0; move <= plan.length; move++) {
+            int cell = plan.cells[move];
+            if (move > 0 && cell == plan.cells[move - 1]) {
+                continue;
+            }
+            if (reservationCount == reservingPlan.length) {
+                nextReservation = Arrays.copyOf(nextReservation, reservationCount * 2);
+                reservingPlan = Arrays.copyOf(reservingPlan, reservationCount * 2);
+            }
+            int index = indexOf(cell);
+            nextReservation[reservationCount] = reservedPass[index] == pass ? firstReservation[index] : -1;
+            reservingPlan[reservationCount] = plan;
+            reservedPass[index] = pass;
+            firstReservation[index] = reservationCount++;
+        }
+    }
+
+    /**
+     * Starts a new pass, so no cell is reserved and no frog has a step.
+     */
+    private void nextPass() {
+        if (pass == Integer.MAX_VALUE) {
+            Arrays.fill(reservedPass, 0);
+            Arrays.fill(stepPass, 0);
+            pass = 0;
+        }
+        pass++;
+        reservationCount = 0;
+        Arrays.fill(reservingPlan, null);
+    }
+
+    /**
+     * Starts a new layer of a search, so no cell has been added to it.
+     */
+    private void nextLayerStamp() {
+        if (layerStamp == Integer.MAX_VALUE) {
+            Arrays.fill(seen, 0);
+            layerStamp = 0;
+        }
+        layerStamp++;
+    }
+
+    /**
+     * Gets the index of a packed cell.
+     * @param key The packed cell.
+     * @return The index of the cell in the arrays.
+     */
+    private int indexOf(int key) {
+        return Coordinate.getY(key) * width + Coordinate.getX(key);
+    }
+}
@@ -0,0 +1,173 @@
+package swan.g09.cs230a2;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javafx.geometry.Point2D;
+
+/**
+ * Helper methods for the packed coordinates used by the engine core.
+ * A coordinate is packed into a single int, with the x coordinate in the low
+ * 16 bits and the y coordinate in the high 16 bits (both signed), so positions
+ * can be passed around and stepped in a direction without allocating.
+ * Canonical Point2D instances are cached for the cells of loaded levels, so
+ * converting back to a Point2D does not allocate either.
+ *
+ * @version 0.1
+ */
+public final class Coordinate {
+
+    /**
+     * The number of bits used to store each axis.
+     */
+    private static final int AXIS_BITS = 16;
+
+    /**
+     * Mask for the bits storing the x coordinate.
+     */
+    private static final int X_MASK = 0xFFFF;
+
+    /**
+     * How many cells outside each edge of a level are also cached, so stepping off the grid does not allocate.
+     */
+    private static final int CACHE_MARGIN = 1;
+
+    /**
+     * The cache of canonical points, replaced whenever a larger level is reserved.
+     */
+    private static volatile PointCache cache = new PointCache(0, 0);
+
+    /**
+     * A fixed-size table of canonical points, filled in lazily.
+     */
+    private static final class PointCache {
+        /**
+         * The number of cached columns, including the margins.
+         */
+        private final int columns;
+
+        /**
+         * The number of cached rows, including the margins.
+         */
+        private final int rows;
+
+        /**
+         * The canonical points, indexed by row then column.
+         */
+        private final AtomicReferenceArray<Point2D> points;
+
+        /**
+         * Creates an empty cache covering a level of the given size.
+         * @param width The width of the level.
+         * @param height The height of the level.
+         */
+        PointCache(int width, int height) {
+            columns = width + CACHE_MARGIN + CACHE_MARGIN;
+            rows = height + CACHE_MARGIN + CACHE_MARGIN;
+            points = new AtomicReferenceArray<>(columns * rows);
+        }
+    }
+
+    /**
+     * Coordinate only provides static helpers.
+     */
+    private Coordinate() {
+    }
+
+    /**
+     * Packs a coordinate into a single int.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The packed coordinate.
+     */
+    public static int pack(int x, int y) {
+        return (y << AXIS_BITS) | (x & X_MASK);
+    }
+
+    /**
+     * Packs a Point2D into a single int.
+     * @param position The position to pack.
+     * @return The packed coordinate.
+     */
+    public static int of(Point2D position) {
+        return pack((int) position.getX(), (int) position.getY());
+    }
+
+    /**
+     * Gets the x coordinate of a packed coordinate.
+     * @param key The packed coordinate.
+     * @return The x coordinate.
+     */
+    public static int getX(int key) {
+        return (short) key;
+    }
+
+    /**
+     * Gets the y coordinate of a packed coordinate.
+     * @param key The packed coordinate.
+     * @return The y coordinate.
+     */
+    public static int getY(int key) {
+        return key >> AXIS_BITS;
+    }
+
+    /**
+     * Offsets a packed coordinate.
+     * @param key The packed coordinate.
+     * @param dx The change in x.
+     * @param dy The change in y.
+     * @return The packed coordinate after moving.
+     */
+    public static int offset(int key, int dx, int dy) {
+        return pack(getX(key) + dx, getY(key) + dy);
+    }
+
+    /**
+     * Makes sure canonical points are cached for a level of the given size.
+     * @param width The width of the level.
+     * @param height The height of the level.
+     */
+    public static synchronized void reserve(int width, int height) {
+        PointCache current = cache;
+        int columns = width + CACHE_MARGIN + CACHE_MARGIN;
+        int rows = height + CACHE_MARGIN + CACHE_MARGIN;
+        if (columns > current.columns || rows > current.rows) {
+            cache = new PointCache(Math.max(width, current.columns - CACHE_MARGIN - CACHE_MARGIN),
+                    Math.max(height, current.rows - CACHE_MARGIN - CACHE_MARGIN));
+        }
+    }
+
+    /**
+     * Gets the Point2D for a packed coordinate.
+     * Points inside reserved levels are shared, so the result must not be compared by identity.
+     * @param key The packed coordinate.
+     * @return The position as a Point2D.
+     */
+    public static Point2D toPoint(int key) {
+        return toPoint(getX(key), getY(key));
+    }
+
+    /**
+     * Gets the Point2D for a coordinate.
+     * Points inside reserved levels are shared, so the result must not be compared by identity.
+     * @param x The x coordinate.
+     * @param y The y coordinate.
+     * @return The position as a Point2D.
+     */
+    public static Point2D toPoint(int x, int y) {
+        PointCache current = cache;
+        int column = x + CACHE_MARGIN;
+        int row = y + CACHE_MARGIN;
+        if (column < 0 || row < 0 || column >= current.columns || row >= current.rows) {
+            return new Point2D(x, y);
+        }
+
+        int index = row * current.columns + column;
+        Point2D point = current.points.get(index);
+        if (point == null) {
+            // If another thread got there first, use its point so there is only ever one per cell
+            current.points.compareAndSet(index, null, new Point2D(x, y));
+            point = current.points.get(index);
+        }
+        return point;
+    }
+}
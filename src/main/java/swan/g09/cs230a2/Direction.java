@@ -33,23 +33,26 @@ public enum Direction {
      * @return The new position after moving in the specified direction.
      */
     public Point2D calculateNewPosition(Point2D position) {
-        double newX = position.getX();
-        double newY = position.getY();
+        return Coordinate.toPoint(calculateNewPosition(Coordinate.of(position)));
+    }
 
-        switch (this) {
+    /**
+     * Calculates the packed position after moving in a specific direction.
+     *
+     * @param key The current packed position (see {@link Coordinate}).
+     * @return The new packed position after moving in the specified direction.
+     */
+    public int calculateNewPosition(int key) {
+        return switch (this) {
             case NORTH ->
-                newY--;
+                Coordinate.offset(key, 0, -1);
             case EAST ->
-                newX++;
+                Coordinate.offset(key, 1, 0);
             case SOUTH ->
-                newY++;
+                Coordinate.offset(key, 0, 1);
             case WEST ->
-                newX--;
-            default -> {
-            }
-        }
-
-        return new Point2D(newX, newY);
+                Coordinate.offset(key, -1, 0);
+        };
     }
 
     /**
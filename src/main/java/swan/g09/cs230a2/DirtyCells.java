@@ -0,0 +1,95 @@
+package swan.g09.cs230a2;
+
+import java.util.Arrays;
+
+/**
+ * The cells of the level which look different since the game canvas last drew them, so the
+ * canvas only has to draw those again. A cell is marked whenever its tile is replaced, an
+ * actor moves into or out of it or turns, its item is removed, or its tile or item changes
+ * sprite, see {@link GameManager#markCellDirty(int)}.
+ *
+ * <p>Cells are marked by the thread ticking the game and taken by the JavaFX thread drawing
+ * it, so both are synchronized. Each cell is only listed once however often it's marked.</p>
+ *
+ * @version 0.1
+ */
+final class DirtyCells {
+
+    /**
+     * The number of cells listed before the list first has to grow.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The width of the level.
+     */
+    private final int width;
+
+    /**
+     * The height of the level.
+     */
+    private final int height;
+
+    /**
+     * A bit for each cell, row by row, set if the cell is listed.
+     */
+    private final long[] marked;
+
+    /**
+     * The packed positions of the marked cells, in the order they were first marked.
+     */
+    private int[] cells = new int[INITIAL_CAPACITY];
+
+    /**
+     * The number of marked cells.
+     */
+    private int count;
+
+    /**
+     * Creates a list of dirty cells for a level, with no cell marked.
+     * @param levelWidth The width of the level.
+     * @param levelHeight The height of the level.
+     */
+    DirtyCells(int levelWidth, int levelHeight) {
+        width = levelWidth;
+        height = levelHeight;
+        marked = new long[(int) (((long) levelWidth * levelHeight + WalkableGrid.BIT_MASK)
+                >>> WalkableGrid.WORD_SHIFT)];
+    }
+
+    /**
+     * Marks a cell as needing to be drawn again. Cells outside the level are ignored.
+     * @param position The packed position of the cell.
+     */
+    synchronized void mark(int position) {
+        int x = Coordinate.getX(position);
+        int y = Coordinate.getY(position);
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return;
+        }
+        int index = y * width + x;
+        long bit = 1L << (index & WalkableGrid.BIT_MASK);
+        if ((marked[index >>> WalkableGrid.WORD_SHIFT] & bit) != 0) {
+            return;
+        }
+        marked[index >>> WalkableGrid.WORD_SHIFT] |= bit;
+        if (count == cells.length) {
+            cells = Arrays.copyOf(cells, count * 2);
+        }
+        cells[count++] = position;
+    }
+
+    /**
+     * Takes every marked cell, leaving none marked.
+     * @return The packed positions of the cells marked since they were last taken.
+     */
+    synchronized int[] take() {
+        int[] taken = Arrays.copyOf(cells, count);
+        for (int i = 0; i < count; i++) {
+            int index = Coordinate.getY(cells[i]) * width + Coordinate.getX(cells[i]);
+            marked[index >>> WalkableGrid.WORD_SHIFT] &= ~(1L << (index & WalkableGrid.BIT_MASK));
+        }
+        count = 0;
+        return taken;
+    }
+}
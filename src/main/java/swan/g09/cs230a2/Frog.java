@@ -3,9 +3,7 @@ package swan.g09.cs230a2;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.PriorityQueue;
 
 import javafx.geometry.Point2D;
 
@@ -19,7 +17,7 @@ public class Frog extends Actor {
     /**
      * How many ticks should pass between each time the frog moves.
      */
-    private static final int MOVE_INTERVAL = 9;
+    static final int MOVE_INTERVAL = 9;
 
     /**
      * The list of tiles that the frog can walk on.
@@ -28,11 +26,6 @@ public class Frog extends Actor {
     private static final ArrayList<TileType> WALKABLE =
             new ArrayList<>(List.of(TileType.PATH, TileType.BUTTON, TileType.TRAP));
 
-    /**
-     * Stores how many times the frog has been ticked.
-     */
-    private int currentTick = 0;
-
     /**
      * Constructor to initialize a Frog instance.
      *
@@ -51,9 +44,9 @@ public class Frog extends Actor {
      */
     @Override
     protected void tick() {
-        currentTick++;
+        GameManager.scheduleWake(this, MOVE_INTERVAL);
 
-        if (currentTick % MOVE_INTERVAL != 0 || isTrapped()) {
+        if (isTrapped()) {
             return;
         }
 
@@ -65,6 +58,15 @@ public class Frog extends Actor {
         }
     }
 
+    /**
+     * The first move happens one move interval after the level starts.
+     * @return The move interval.
+     */
+    @Override
+    protected int getInitialWakeDelay() {
+        return MOVE_INTERVAL;
+    }
+
     /**
      * Checks if the Frog can move in a specific direction based
      * on the grid layout and obstacles.
@@ -98,19 +100,35 @@ public class Frog extends Actor {
 
 
     /**
-     * Determines the next direction for the Frog to move based
-     * on the A* pathfinding algorithm.
+     * Determines the next direction for the Frog to move, towards the player,
+     * see {@link GameManager#findStepTowardsPlayer(int)}.
      *
      * @return The next valid direction for the Frog to move,
-     * or null if no available path.
+     * or null if no available path or the Frog should wait.
      */
     private Direction determineNextDirection() {
-        ArrayList<Point2D> path = findShortestPath();
-        if (!path.isEmpty()) {
-            return posToDirection(path.get(0));
-        } else {
-            return pickRandomDir();
+        int step = GameManager.findStepTowardsPlayer(getPositionKey());
+        if (step != PathFinder.NO_PATH) {
+            return posToDirection(Coordinate.toPoint(step));
+        }
+        return pickRandomDir();
+    }
+
+    /**
+     * Checks if frogs can path through a cell. Frogs don't walk onto traps,
+     * unless the player is on the trap.
+     * @param position The packed position of the cell.
+     * @return true if the cell can be part of a frog's path.
+     */
+    static boolean canPathThrough(int position) {
+        Tile tile = GameManager.checkTile(position);
+        if (tile == null || !WALKABLE.contains(tile.getType())) {
+            return false;
         }
+        if (GameManager.checkActor(position) instanceof Player player) {
+            return !player.isInvincible();
+        }
+        return tile.getType() != TileType.TRAP;
     }
 
     /**
@@ -133,75 +151,6 @@ public class Frog extends Actor {
         return null;
     }
 
-    /**
-     * Finds the shortest path from the current position to the player's position.
-     * @return The list of positions that make up the path.
-     */
-    private ArrayList<Point2D> findShortestPath() {
-        Point2D start = getPosition();
-        Point2D end = GameManager.getPlayerPosition();
-
-        if (end == null) {
-            return new ArrayList<>();
-        }
-
-        ArrayList<Point2D> closedList = new ArrayList<>();
-        HashMap<Point2D, PathFindNode> nodes = new HashMap<>();
-
-        PathFindNode rootNode = new PathFindNode(start);
-        nodes.put(start, rootNode);
-
-        PriorityQueue<PathFindDetails> openList =
-                new PriorityQueue<>((o1, o2) -> (int) Math.round(o1.getVal() - o2.getVal()));
-
-        openList.add(new PathFindDetails(0.0, start));
-
-        while (!openList.isEmpty()) {
-            PathFindDetails p = openList.peek();
-            Point2D pos = p.getPos();
-
-            // Remove from the open list
-            openList.poll();
-            closedList.add(pos);
-
-            for (Direction direction : Direction.values()) {
-                Point2D neighbour = directionToPosition(pos, direction);
-
-                if (positionTraversable(neighbour, true)) {
-                    if (neighbour.equals(end)) {
-                        PathFindNode neighbourNode = new PathFindNode(neighbour);
-                        neighbourNode.setParent(nodes.get(pos));
-                        nodes.put(neighbour, neighbourNode);
-                        return nodeParentsToList(neighbourNode);
-                    } else if (!closedList.contains(neighbour)
-                            && positionTraversable(neighbour, true)
-                            && checkPosition(neighbour) != TileType.TRAP) {
-                        PathFindNode node = nodes.get(pos);
-                        int newG = node.getG() + 1;
-                        double newH = calculateHVal(neighbour, end);
-                        double newF = newG + newH;
-
-                        PathFindNode neighbourNode = nodes.get(neighbour);
-                        if (neighbourNode == null || neighbourNode.getF() > newF) {
-                            if (neighbourNode == null) {
-                                neighbourNode = new PathFindNode(neighbour);
-                                neighbourNode.setParent(nodes.get(pos));
-                                nodes.put(neighbour, neighbourNode);
-                            }
-
-                            openList.add(new PathFindDetails(newF, neighbour));
-
-                            neighbourNode.setG(newG);
-                            neighbourNode.setH(newH);
-                        }
-                    }
-                }
-            }
-        }
-
-        return new ArrayList<>();
-    }
-
     /**
      * Picks a random, and valid, direction.
      * @return The randomly picked direction.
@@ -216,31 +165,4 @@ public class Frog extends Actor {
         }
         return null;
     }
-
-    /**
-     * Calculate the h value of a position for the A* search algorithm.
-     * @param current The current position
-     * @param end The destination position.
-     * @return The h value
-     */
-    private double calculateHVal(Point2D current, Point2D end) {
-        return Math.sqrt(Math.pow((current.getX() - end.getX()), 2.0) + Math.pow((current.getY() - end.getY()), 2.0));
-    }
-
-    /**
-     * Create a list of positions (a path) from the PathFindNode parent heirarchy.
-     * @param node The destination node.
-     * @return A path as a list of positions, constructed from the nested parents of the node.
-     */
-    private ArrayList<Point2D> nodeParentsToList(PathFindNode node) {
-        ArrayList<Point2D> list = new ArrayList<>();
-
-        PathFindNode n = node;
-        while (n.getParent() != null) {
-            list.add(0, n.getPos());
-            n = n.getParent();
-        }
-
-        return list;
-    }
 }
@@ -1,20 +1,14 @@
 package swan.g09.cs230a2;
 
+import javafx.animation.AnimationTimer;
 import javafx.geometry.Point2D;
 import javafx.geometry.VPos;
-import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.TextAlignment;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.HashMap;
-
 /**
  * The canvas for rendering the game.
  *
@@ -48,29 +42,104 @@ class GameCanvas extends Canvas {
     private static final Color CANVAS_BACKGROUND = Color.web("#404040");
 
     /**
-     * Rotation value for actors facing North.
+     * The tile, actor and item sprites, with actors' sprites turned to face each direction.
+     */
+    private static final SpriteAtlas SPRITES = new SpriteAtlas();
+
+    /**
+     * The time in nanoseconds for the camera to close most of the distance to the player, 1 - 1/e of it.
+     */
+    private static final double CAMERA_LAG_NANOS = 120_000_000;
+
+    /**
+     * How close in pixels the camera has to get to where it is heading to stop there.
+     */
+    private static final double CAMERA_SNAP_DISTANCE = 0.5;
+
+    /**
+     * Where on the canvas the camera puts the left of the grid, before rounding to a pixel.
+     */
+    private double cameraLeft;
+
+    /**
+     * Where on the canvas the camera puts the top of the grid, before rounding to a pixel.
+     */
+    private double cameraTop;
+
+    /**
+     * When the camera last moved, in nanoseconds, 0 if it hasn't.
+     */
+    private long cameraNanos;
+
+    /**
+     * Draws the canvas each frame while the camera is scrolling.
+     */
+    private final AnimationTimer cameraTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            draw();
+        }
+    };
+
+    /**
+     * The first column of cells on the canvas, less a cell of margin, when the whole grid was last drawn.
+     */
+    private int visibleLeft;
+
+    /**
+     * The first row of cells on the canvas, less a cell of margin, when the whole grid was last drawn.
+     */
+    private int visibleTop;
+
+    /**
+     * The last column of cells on the canvas, plus a cell of margin, when the whole grid was last drawn.
+     */
+    private int visibleRight;
+
+    /**
+     * The last row of cells on the canvas, plus a cell of margin, when the whole grid was last drawn.
+     */
+    private int visibleBottom;
+
+    /**
+     * The tiles of the level drawn at the current tile size, null until the grid is first drawn.
+     */
+    private BackgroundLayer background;
+
+    /**
+     * The font of chip sockets' text at the current tile size, null until the grid is first drawn.
+     */
+    private Font chipSocketFont;
+
+    /**
+     * The width of the canvas when the whole grid was last drawn.
+     */
+    private double drawnWidth;
+
+    /**
+     * The height of the canvas when the whole grid was last drawn.
      */
-    private static final int NORTH_ACTOR_ROTATION = 270;
+    private double drawnHeight;
 
     /**
-     * Rotation value for actors facing East.
+     * Where on the canvas the left of the grid was when the whole grid was last drawn.
      */
-    private static final int EAST_ACTOR_ROTATION = 0;
+    private int drawnGridLeft;
 
     /**
-     * Rotation value for actors facing South.
+     * Where on the canvas the top of the grid was when the whole grid was last drawn.
      */
-    private static final int SOUTH_ACTOR_ROTATION = 90;
+    private int drawnGridTop;
 
     /**
-     * Rotation value for actors facing West.
+     * The size tiles were rendered when the whole grid was last drawn.
      */
-    private static final int WEST_ACTOR_ROTATION = 180;
+    private int drawnTileSize;
 
     /**
-     * Map for caching tile, actor and item sprites (by image path).
+     * The dirty cells of the level when the whole grid was last drawn, null if it hasn't been drawn.
      */
-    private static final HashMap<String, Image> TILE_IMAGE_CACHE = new HashMap<>();
+    private DirtyCells drawnCells;
 
     /**
      * The X offset of a chip socket's text, proportional to tile size.
@@ -109,7 +178,10 @@ class GameCanvas extends Canvas {
     }
 
     /**
-     * Draw the game grid onto the canvas.
+     * Draw the game grid onto the canvas. Only the cells which look different since the last
+     * draw are drawn again, unless the canvas has been resized, the grid has moved or the
+     * level has been loaded or restarted since, when the whole grid is drawn. Either way,
+     * only the cells on the canvas are drawn.
      */
     public void draw() {
         // Draw canvas.
@@ -157,6 +229,55 @@ class GameCanvas extends Canvas {
             }
         }
 
+        // Nothing can be drawn until the canvas is big enough for a tile
+        if (scaledTileSize < 1) {
+            drawnCells = null;
+            return;
+        }
+
+        // Take the changed cells before drawing, so cells changed while drawing are drawn next time
+        DirtyCells dirtyCells = GameManager.getDirtyCells();
+        int[] changed = dirtyCells.take();
+        boolean relaid = dirtyCells != drawnCells || width != drawnWidth || height != drawnHeight
+                || scaledTileSize != drawnTileSize;
+        moveCamera(gridLeft, gridTop, relaid);
+        gridLeft = (int) Math.round(cameraLeft);
+        gridTop = (int) Math.round(cameraTop);
+        if (!relaid && gridLeft == drawnGridLeft && gridTop == drawnGridTop) {
+            for (int key : changed) {
+                int x = Coordinate.getX(key);
+                int y = Coordinate.getY(key);
+                if (x >= visibleLeft && x <= visibleRight && y >= visibleTop && y <= visibleBottom) {
+                    renderCell(x, y, gridLeft, gridTop, scaledTileSize);
+                } else {
+                    // Off the canvas, but its chunk may be kept and scrolled back onto it later
+                    background.refreshCell(x, y);
+                }
+            }
+            return;
+        }
+        if (dirtyCells != drawnCells || scaledTileSize != drawnTileSize) {
+            background = new BackgroundLayer(SPRITES, GameManager.getLevelWidth(), GameManager.getLevelHeight(),
+                    scaledTileSize);
+            chipSocketFont = new Font("Consolas Bold", scaledTileSize * CHIP_SOCKET_FONT_SIZE);
+        }
+        // Chunks kept from the last frame are copied as they are, so draw the changed cells into them first
+        for (int key : changed) {
+            background.refreshCell(Coordinate.getX(key), Coordinate.getY(key));
+        }
+        drawnCells = dirtyCells;
+        drawnWidth = width;
+        drawnHeight = height;
+        drawnGridLeft = gridLeft;
+        drawnGridTop = gridTop;
+        drawnTileSize = scaledTileSize;
+        visibleLeft = Math.max(0, Math.floorDiv(-gridLeft, scaledTileSize) - 1);
+        visibleTop = Math.max(0, Math.floorDiv(-gridTop, scaledTileSize) - 1);
+        visibleRight = Math.min(GameManager.getLevelWidth() - 1,
+                Math.floorDiv((int) width - 1 - gridLeft, scaledTileSize) + 1);
+        visibleBottom = Math.min(GameManager.getLevelHeight() - 1,
+                Math.floorDiv((int) height - 1 - gridTop, scaledTileSize) + 1);
+
         // Fill the borders, don't fill the entire canvas because it causes flickering
         gc.setFill(CANVAS_BACKGROUND);
         gc.fillRect(0, 0, gridLeft, height);
@@ -164,139 +285,106 @@ class GameCanvas extends Canvas {
         gc.fillRect(gridLeft + GameManager.getLevelWidth() * scaledTileSize, 0, width, height);
         gc.fillRect(0, gridTop + GameManager.getLevelHeight() * scaledTileSize, width, height);
 
-        renderTiles(gridLeft, gridTop, scaledTileSize);
+        renderTiles(gridLeft, gridTop, scaledTileSize, width, height);
+    }
+
+    /**
+     * Moves the camera towards where the grid should be on the canvas. The camera closes the
+     * same fraction of the distance in the same time whatever the frame rate, and keeps the
+     * canvas redrawing every frame until it gets there.
+     * @param targetLeft Where on the canvas the left of the grid should be.
+     * @param targetTop Where on the canvas the top of the grid should be.
+     * @param snap true to move the camera straight there, such as when the canvas is resized.
+     */
+    private void moveCamera(int targetLeft, int targetTop, boolean snap) {
+        long now = System.nanoTime();
+        if (snap || cameraNanos == 0) {
+            cameraLeft = targetLeft;
+            cameraTop = targetTop;
+        } else {
+            double follow = 1 - Math.exp(-(now - cameraNanos) / CAMERA_LAG_NANOS);
+            cameraLeft += (targetLeft - cameraLeft) * follow;
+            cameraTop += (targetTop - cameraTop) * follow;
+            if (Math.abs(targetLeft - cameraLeft) < CAMERA_SNAP_DISTANCE
+                    && Math.abs(targetTop - cameraTop) < CAMERA_SNAP_DISTANCE) {
+                cameraLeft = targetLeft;
+                cameraTop = targetTop;
+            }
+        }
+        cameraNanos = now;
+        if (cameraLeft == targetLeft && cameraTop == targetTop) {
+            cameraTimer.stop();
+        } else {
+            cameraTimer.start();
+        }
     }
 
     /**
-     * Renders all the tiles, actors and items from the level grid.
+     * Renders all the tiles, actors and items from the level grid on the canvas. The tiles are
+     * copied from the background, and the actors, items and chip sockets' text drawn on top.
      * @param gridLeft Where on the canvas the left of the grid should be.
      * @param gridTop Where on the canvas the top of the grid should be.
      * @param tileSize The size to render tiles.
+     * @param width The width of the canvas.
+     * @param height The height of the canvas.
      */
-    private void renderTiles(int gridLeft, int gridTop, int tileSize) {
+    private void renderTiles(int gridLeft, int gridTop, int tileSize, double width, double height) {
         GraphicsContext gc = getGraphicsContext2D();
         gc.setImageSmoothing(false);
+        background.draw(gc, gridLeft, gridTop, width, height);
 
-        for (int x = 0; x < GameManager.getLevelWidth(); x++) {
-            for (int y = 0; y < GameManager.getLevelHeight(); y++) {
-                Point2D coordinate = new Point2D(x, y);
-                Tile tile = GameManager.checkTile(coordinate);
-                Actor actor = GameManager.checkActor(coordinate);
-                Item item = GameManager.checkItem(coordinate);
-                if (tile != null) {
-                    if (TILE_IMAGE_CACHE.containsKey(tile.getImagePath())) {
-                        Image img = TILE_IMAGE_CACHE.get(tile.getImagePath());
-                        gc.drawImage(img, gridLeft + x * tileSize, gridTop + y * tileSize, tileSize, tileSize);
-                    } else {
-                        try (InputStream stream = getClass().getResourceAsStream(tile.getImagePath())) {
-                            if (stream != null) {
-                                Image img = new Image(stream);
-                                gc.drawImage(img, gridLeft + x * tileSize, gridTop + y * tileSize, tileSize, tileSize);
-
-                                TILE_IMAGE_CACHE.put(tile.getImagePath(), img);
-                            } else {
-                                System.out.println("Image not found for tile at: (" + x + ", " + y + ")");
-                            }
-                        } catch (IOException e) {
-                            System.out.println("Failed loading image: " + tile.getImagePath());
-                        }
-                    }
-                    if (tile instanceof ChipSocket chipSocket) {
-                        gc.setTextAlign(TextAlignment.CENTER);
-                        gc.setTextBaseline(VPos.CENTER);
-                        gc.setFill(Color.BLACK);
-                        Font font = new Font("Consolas Bold", tileSize * CHIP_SOCKET_FONT_SIZE);
-                        gc.setFont(font);
-                        gc.fillText(
-                                Integer.toString(chipSocket.getRequiredChips()),
-                                gridLeft + x * tileSize + tileSize * CHIP_SOCKET_TEXT_OFFSET_X,
-                                gridTop + y * tileSize + tileSize * CHIP_SOCKET_TEXT_OFFSET_Y
-                        );
-                    }
-                } else {
-                    gc.setFill(Color.BLACK);
-                    gc.fillRect(gridLeft + x * tileSize, gridTop + y * tileSize, tileSize, tileSize);
-                }
-                if (actor != null) {
-                    try (InputStream stream = getClass().getResourceAsStream(actor.getImagePath())) {
-                        if (stream != null) {
-                            Image rotatedImage = getRotatedImage(actor);
-                            gc.drawImage(rotatedImage, gridLeft + x * tileSize, gridTop + y * tileSize,
-                                    tileSize, tileSize);
-                        } else {
-                            System.out.println("Image not found for actor at: (" + x + ", " + y + ")");
-                        }
-                    } catch (IOException e) {
-                        System.out.println("Failed loading image: " + actor.getImagePath());
-                    }
-                }
-                if (item != null) {
-                    if (TILE_IMAGE_CACHE.containsKey(item.getImagePath())) {
-                        Image img = TILE_IMAGE_CACHE.get(item.getImagePath());
-                        gc.drawImage(img, gridLeft + x * tileSize, gridTop + y * tileSize, tileSize, tileSize);
-                    } else {
-                        try (InputStream stream = getClass().getResourceAsStream(item.getImagePath())) {
-                            if (stream != null) {
-                                Image img = new Image(stream);
-                                gc.drawImage(img, gridLeft + x * tileSize, gridTop + y * tileSize,
-                                        tileSize, tileSize);
-
-                                TILE_IMAGE_CACHE.put(item.getImagePath(), img);
-                            } else {
-                                System.out.println("Image not found for item at: (" + x + ", " + y + ")");
-                            }
-                        } catch (IOException e) {
-                            System.out.println("Failed loading image: " + item.getImagePath());
-                        }
-                    }
-                }
+        for (int x = visibleLeft; x <= visibleRight; x++) {
+            for (int y = visibleTop; y <= visibleBottom; y++) {
+                renderEntities(x, y, gridLeft, gridTop, tileSize);
             }
         }
     }
 
     /**
-     * Get a rotated Image with the correct rotation for an Actor.
-     * @param actor The actor to use the rotation of.
-     * @return The rotated Image
+     * Renders the tile, actor and item of a cell of the level grid, drawing its tile into the background again.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @param gridLeft Where on the canvas the left of the grid should be.
+     * @param gridTop Where on the canvas the top of the grid should be.
+     * @param tileSize The size to render tiles.
      */
-    private static Image getRotatedImage(Actor actor) throws IOException {
-        String spritePath = actor.getImagePath();
-
-        // Get the cached image if possible, otherwise load it from resources
-        Image img;
-        if (TILE_IMAGE_CACHE.containsKey(spritePath)) {
-            img = TILE_IMAGE_CACHE.get(spritePath);
-        } else {
-            InputStream stream = GameCanvas.class.getResourceAsStream(spritePath);
-            if (stream == null) {
-                throw new IOException("Image stream was null!");
-            }
+    private void renderCell(int x, int y, int gridLeft, int gridTop, int tileSize) {
+        background.drawCell(getGraphicsContext2D(), x, y, gridLeft, gridTop);
+        renderEntities(x, y, gridLeft, gridTop, tileSize);
+    }
 
-            img = new Image(stream);
+    /**
+     * Renders what is drawn over the tile of a cell: a chip socket's text, and the cell's actor and item.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @param gridLeft Where on the canvas the left of the grid should be.
+     * @param gridTop Where on the canvas the top of the grid should be.
+     * @param tileSize The size to render tiles.
+     */
+    private void renderEntities(int x, int y, int gridLeft, int gridTop, int tileSize) {
+        GraphicsContext gc = getGraphicsContext2D();
+        Tile tile = GameManager.checkTile(x, y);
+        Actor actor = GameManager.checkActor(x, y);
+        Item item = GameManager.checkItem(x, y);
+        if (tile instanceof ChipSocket chipSocket) {
+            gc.setTextAlign(TextAlignment.CENTER);
+            gc.setTextBaseline(VPos.CENTER);
+            gc.setFill(Color.BLACK);
+            gc.setFont(chipSocketFont);
+            gc.fillText(
+                    Integer.toString(chipSocket.getRequiredChips()),
+                    gridLeft + x * tileSize + tileSize * CHIP_SOCKET_TEXT_OFFSET_X,
+                    gridTop + y * tileSize + tileSize * CHIP_SOCKET_TEXT_OFFSET_Y
+            );
         }
-
-        int rotation = NORTH_ACTOR_ROTATION;
-        switch (actor.getFacingDir()) {
-            case EAST -> {
-                rotation = EAST_ACTOR_ROTATION;
-            }
-            case SOUTH -> {
-                rotation = SOUTH_ACTOR_ROTATION;
-            }
-            case WEST -> {
-                rotation = WEST_ACTOR_ROTATION;
-            }
-            default -> {
-                // Do nothing
-            }
+        if (actor != null && !SPRITES.draw(gc, actor.getImagePath(), actor.getFacingDir(),
+                gridLeft + x * tileSize, gridTop + y * tileSize, tileSize)) {
+            System.out.println("Image not found for actor at: (" + x + ", " + y + ")");
+        }
+        if (item != null && !SPRITES.draw(gc, item.getImagePath(),
+                gridLeft + x * tileSize, gridTop + y * tileSize, tileSize)) {
+            System.out.println("Image not found for item at: (" + x + ", " + y + ")");
         }
-
-        ImageView iv = new ImageView(img);
-        iv.setRotate(rotation);
-
-        SnapshotParameters params = new SnapshotParameters();
-        params.setFill(Color.TRANSPARENT);
-        return iv.snapshot(params, null);
     }
 
     public static int getCurrentTileSize() {
@@ -0,0 +1,152 @@
+package swan.g09.cs230a2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many headless games in one process, such as for tournaments and bot ladders.
+ * Every game gets its own {@link GameSession} and tick deadlines, but the games share a
+ * small pool of scheduler threads instead of each having a timer thread, so thousands can
+ * be hosted at once. Games are only admitted while the host is below its capacity.
+ *
+ * @version 0.1
+ */
+public class GameHost {
+
+    /**
+     * The scheduler ticking every hosted game.
+     */
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * The most games that can be hosted at once.
+     */
+    private final int maxGames;
+
+    /**
+     * The number of games admitted which haven't finished, including games still loading.
+     */
+    private final AtomicInteger gameCount = new AtomicInteger();
+
+    /**
+     * The games currently being ticked.
+     */
+    private final Set<HostedGame> games = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The number of scheduler threads created, used to name them.
+     */
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    /**
+     * Whether the host has been shut down.
+     */
+    private volatile boolean shutDown;
+
+    /**
+     * Creates a host and starts its scheduler threads.
+     * @param maxGames The most games that can be hosted at once.
+     * @param threads The number of threads ticking the games.
+     * @throws IllegalArgumentException if either argument is less than 1
+     */
+    public GameHost(int maxGames, int threads) throws IllegalArgumentException {
+        if (maxGames < 1 || threads < 1) {
+            throw new IllegalArgumentException("A host needs at least one game slot and one thread!");
+        }
+        this.maxGames = maxGames;
+        scheduler = new ScheduledThreadPoolExecutor(threads, task -> {
+            Thread thread = new Thread(task, "game-host-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Loads a level in a new session and starts ticking it at the game's tick rate.
+     * @param levelPath The path of the level file.
+     * @return The hosted game.
+     * @throws IllegalStateException if the host is full, shut down, or the level couldn't be loaded
+     * @throws IOException if the level can't be read
+     */
+    public HostedGame admit(String levelPath) throws IllegalStateException, IOException {
+        if (shutDown) {
+            throw new IllegalStateException("Host has been shut down!");
+        }
+        if (gameCount.incrementAndGet() > maxGames) {
+            gameCount.decrementAndGet();
+            throw new IllegalStateException("Host is full!");
+        }
+
+        HostedGame game;
+        try {
+            game = new HostedGame(this, levelPath);
+        } catch (IOException | RuntimeException e) {
+            gameCount.decrementAndGet();
+            throw e;
+        }
+
+        games.add(game);
+        long period = TimeUnit.MILLISECONDS.toNanos(GameTimer.getTickRate());
+        game.schedule(scheduler.scheduleAtFixedRate(game, period, period, TimeUnit.NANOSECONDS));
+        return game;
+    }
+
+    /**
+     * Frees the slot of a game which has finished.
+     * @param game The finished game.
+     */
+    void release(HostedGame game) {
+        if (games.remove(game)) {
+            gameCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Checks if another game can be admitted.
+     * @return true if the host is below capacity and not shut down.
+     */
+    public boolean hasCapacity() {
+        return !shutDown && gameCount.get() < maxGames;
+    }
+
+    /**
+     * Gets the number of games being hosted.
+     * @return The number of games which haven't finished.
+     */
+    public int getGameCount() {
+        return gameCount.get();
+    }
+
+    /**
+     * Gets the most games that can be hosted at once.
+     * @return The capacity of the host.
+     */
+    public int getMaxGames() {
+        return maxGames;
+    }
+
+    /**
+     * Gets the games currently being hosted.
+     * @return A snapshot of the unfinished games.
+     */
+    public ArrayList<HostedGame> getGames() {
+        return new ArrayList<>(games);
+    }
+
+    /**
+     * Stops every game and the scheduler threads.
+     */
+    public void shutdown() {
+        shutDown = true;
+        for (HostedGame game : getGames()) {
+            game.stop();
+        }
+        scheduler.shutdownNow();
+    }
+}
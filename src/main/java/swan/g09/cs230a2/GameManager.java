@@ -7,6 +7,7 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import javafx.application.Platform;
 import javafx.geometry.Point2D;
@@ -14,6 +15,8 @@ import javafx.geometry.Point2D;
 
 /**
  * The GameManager class is responsible for managing communications between tiles on each layer.
+ * The level it manages belongs to the current {@link GameSession}.
+ * While entities are being ticked, changes to the level are buffered by {@link TickEffects}.
  *
  * @author Samuel Lomas
  * @version 0.1
@@ -43,70 +46,27 @@ public class GameManager {
     }
 
     /**
-     * The width of the loaded level.
+     * The most monsters chasing the player for each to search on their own,
+     * rather than share a distance field.
      */
-    private static int levelWidth;
+    private static final int MAX_JUMP_POINT_CHASERS = 8;
 
     /**
-     * The height of the loaded level.
+     * The least fraction of the level monsters can walk through for jump point search to be used,
+     * rather than A* with landmarks.
      */
-    private static int levelHeight;
+    private static final double MIN_JUMP_POINT_OPEN_RATIO = 0.8;
 
     /**
-     * The fov of the loaded level.
+     * The fewest cells an open level needs for a few monsters to search hierarchically, rather than with jump points.
      */
-    private static double levelFov;
-
-    /**
-     * The Layer class containing all Tiles.
-     * */
-    private static Layer<Tile> tileLayer;
-
-    /**
-     * The Layer class containing all Items.
-     * */
-    private static Layer<Item> itemLayer;
-
-    /**
-     * The Layer class containing all Actors.
-     * */
-    private static Layer<Actor> actorLayer;
+    private static final int MIN_HIERARCHICAL_CELLS = 512 * 512;
 
     /**
      * The PlayerProfile of the current player.
      */
     private static PlayerProfile playerProfile;
 
-    /**
-     * The timer managing the game.
-     */
-    private static GameTimer gameTimer;
-
-    /**
-     * The file name of the level, minus file type.
-     * */
-    private static String levelName;
-
-    /**
-     * The view controller for the game view.
-     */
-    private static GameViewController gameViewController;
-
-    /**
-     * The currently loaded level.
-     */
-    private static Level level;
-
-    /**
-     * Is this the last level.
-     * */
-    private static Boolean isLastLevel;
-
-    /**
-     * The number of the level in the load order.
-     * */
-    private static Integer levelNumber;
-
     /**
      * Default Constructor for GameManager.
      * */
@@ -121,10 +81,11 @@ public class GameManager {
      * @throws IllegalStateException if level not yet started
      * */
     public static Tile checkTile(Point2D position) {
-        if (tileLayer == null) {
+        GameSession session = GameSession.current();
+        if (session.tileLayer == null) {
             throw new IllegalStateException("Level has not yet been loaded!");
         }
-        return tileLayer.getAtPosition(position);
+        return session.tileLayer.getAtPosition(position);
     }
 
     /**
@@ -134,10 +95,11 @@ public class GameManager {
      * @throws IllegalStateException if level not yet started
      */
     public static Actor checkActor(Point2D position) {
-        if (actorLayer == null) {
+        GameSession session = GameSession.current();
+        if (session.actorLayer == null) {
             throw new IllegalStateException("Level has not yet been loaded!");
         }
-        return actorLayer.getAtPosition(position);
+        return session.actorLayer.getAtPosition(position);
     }
 
     /**
@@ -147,19 +109,97 @@ public class GameManager {
      * @throws IllegalStateException if level not yet started
      * */
     public static Item checkItem(Point2D position) {
-        if (itemLayer == null) {
+        GameSession session = GameSession.current();
+        if (session.itemLayer == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        return session.itemLayer.getAtPosition(position);
+    }
+
+    /**
+     * Checks for a tile at a position, without needing to build a Point2D.
+     * @param x the x coordinate to be checked
+     * @param y the y coordinate to be checked
+     * @return A tile if found, null if none
+     * @throws IllegalStateException if level not yet started
+     * */
+    public static Tile checkTile(int x, int y) {
+        GameSession session = GameSession.current();
+        if (session.tileLayer == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        return session.tileLayer.getAtPosition(x, y);
+    }
+
+    /**
+     * Checks for an actor at a position, without needing to build a Point2D.
+     * @param x the x coordinate to be checked
+     * @param y the y coordinate to be checked
+     * @return An actor if found, null if none
+     * @throws IllegalStateException if level not yet started
+     */
+    public static Actor checkActor(int x, int y) {
+        GameSession session = GameSession.current();
+        if (session.actorLayer == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        return session.actorLayer.getAtPosition(x, y);
+    }
+
+    /**
+     * Checks for an item at a position, without needing to build a Point2D.
+     * @param x the x coordinate to be checked
+     * @param y the y coordinate to be checked
+     * @return An item if found, null if none
+     * @throws IllegalStateException if level not yet started
+     * */
+    public static Item checkItem(int x, int y) {
+        GameSession session = GameSession.current();
+        if (session.itemLayer == null) {
             throw new IllegalStateException("Level has not yet been loaded!");
         }
-        return itemLayer.getAtPosition(position);
+        return session.itemLayer.getAtPosition(x, y);
+    }
+
+    /**
+     * Checks for a tile at a packed position.
+     * @param key the packed position to be checked (see {@link Coordinate})
+     * @return A tile if found, null if none
+     * @throws IllegalStateException if level not yet started
+     * */
+    public static Tile checkTile(int key) {
+        return checkTile(Coordinate.getX(key), Coordinate.getY(key));
+    }
+
+    /**
+     * Checks for an actor at a packed position.
+     * @param key the packed position to be checked (see {@link Coordinate})
+     * @return An actor if found, null if none
+     * @throws IllegalStateException if level not yet started
+     */
+    public static Actor checkActor(int key) {
+        return checkActor(Coordinate.getX(key), Coordinate.getY(key));
+    }
+
+    /**
+     * Checks for an item at a packed position.
+     * @param key the packed position to be checked (see {@link Coordinate})
+     * @return An item if found, null if none
+     * @throws IllegalStateException if level not yet started
+     * */
+    public static Item checkItem(int key) {
+        return checkItem(Coordinate.getX(key), Coordinate.getY(key));
     }
 
     /**
       * Update the inventory display in the game view.
      * */
     public static void updateInventoryDisplay() {
-        if (gameViewController != null && playerProfile != null) {
+        GameSession session = GameSession.current();
+        if (session.gameViewController != null && playerProfile != null) {
+            int[] inventory = Player.getInventory();
             Platform.runLater(() -> {
-                gameViewController.updateInventoryDisplay(Player.getInventory());
+                session.gameViewController.updateInventoryDisplay(inventory);
             });
         }
     }
@@ -180,10 +220,25 @@ public class GameManager {
      * @throws IllegalStateException If level not yet loaded
      * */
     public static void replaceTile(Point2D position, Tile tile) {
-        if (tileLayer == null) {
+        GameSession session = GameSession.current();
+        if (session.tileLayer == null) {
             throw new IllegalStateException("Level has not yet been loaded!");
         }
-        tileLayer.setAtPosition(position, tile);
+        TickEffects effects = session.currentEffects();
+        if (effects.isCollecting()) {
+            effects.replaceTile(Coordinate.of(position), tile);
+            return;
+        }
+        Tile oldTile = session.tileLayer.getAtPosition(position);
+        session.tileLayer.setAtPosition(position, tile);
+        session.occluders.cellChanged(Coordinate.of(position));
+        markCellDirty(Coordinate.of(position));
+        if (session.playerDistance != null) {
+            session.walkableGrid.tileChanged(Coordinate.of(position));
+            session.playerDistance.tileChanged(Coordinate.of(position));
+        }
+        session.tickRegistry.unregister(oldTile);
+        session.tickRegistry.register(tile);
     }
 
     /**
@@ -193,23 +248,50 @@ public class GameManager {
      * @throws IllegalStateException If level not yet loaded
      * */
     public static void moveActor(Point2D from, Point2D to) {
-        if (actorLayer == null) {
+        moveActor(Coordinate.of(from), Coordinate.of(to));
+    }
+
+    /**
+     * Move an actor to another packed position.
+     * @param from The packed position of the actor (see {@link Coordinate}).
+     * @param to The packed position the actor will move to
+     * @throws IllegalStateException If level not yet loaded
+     * */
+    public static void moveActor(int from, int to) {
+        GameSession session = GameSession.current();
+        if (session.actorLayer == null) {
             throw new IllegalStateException("Level has not yet been loaded!");
         }
 
-        Actor actor = actorLayer.getAtPosition(from);
+        Actor actor = session.actorLayer.getAtPosition(from);
+        TickEffects effects = session.currentEffects();
+        if (effects.isCollecting()) {
+            if (actor != null) {
+                effects.moveActor(actor, from, to);
+            }
+            return;
+        }
 
         if (actor != null) {
-            actor.setPosition(to);
-            actorLayer.removeFromPosition(from);
-            actorLayer.setAtPosition(to, actor);
+            Actor replaced = session.actorLayer.getAtPosition(to);
+            if (replaced != null && replaced != actor) {
+                session.tickRegistry.unregister(replaced);
+            }
+
+            actor.setPosition(Coordinate.toPoint(to));
+            session.actorLayer.removeFromPosition(from);
+            session.actorLayer.setAtPosition(to, actor);
+            session.occluders.cellChanged(from);
+            session.occluders.cellChanged(to);
+            markCellDirty(from);
+            markCellDirty(to);
 
-            Tile offTile = tileLayer.getAtPosition(from);
+            Tile offTile = session.tileLayer.getAtPosition(from);
             if (offTile instanceof ActionTile) {
                 ((ActionTile) offTile).walkedOff(actor);
             }
 
-            Tile onTile = tileLayer.getAtPosition(to);
+            Tile onTile = session.tileLayer.getAtPosition(to);
             if (onTile instanceof ActionTile) {
                 ((ActionTile) onTile).walkedOn(actor);
             }
@@ -223,10 +305,17 @@ public class GameManager {
      * @throws IllegalStateException if Level has not yet been loaded
      * */
     public static void removeItem(Point2D position) {
-        if (itemLayer == null) {
+        GameSession session = GameSession.current();
+        if (session.itemLayer == null) {
             throw new IllegalStateException("Level has not yet been loaded!");
         }
-        itemLayer.removeFromPosition(position);
+        TickEffects effects = session.currentEffects();
+        if (effects.isCollecting()) {
+            effects.removeItem(Coordinate.of(position));
+            return;
+        }
+        session.itemLayer.removeFromPosition(position);
+        markCellDirty(Coordinate.of(position));
     }
 
     /**
@@ -236,10 +325,48 @@ public class GameManager {
      * @throws IllegalStateException if Level has not yet been loaded
      * */
     public static void removeActor(Point2D position) {
-        if (actorLayer == null) {
+        GameSession session = GameSession.current();
+        if (session.actorLayer == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        TickEffects effects = session.currentEffects();
+        if (effects.isCollecting()) {
+            Actor actor = session.actorLayer.getAtPosition(position);
+            if (actor != null) {
+                effects.removeActor(actor, Coordinate.of(position));
+            }
+            return;
+        }
+        session.tickRegistry.unregister(session.actorLayer.getAtPosition(position));
+        session.actorLayer.removeFromPosition(position);
+        session.occluders.cellChanged(Coordinate.of(position));
+        markCellDirty(Coordinate.of(position));
+    }
+
+    /**
+     * Records that a cell looks different, so the game canvas draws it again. Does nothing
+     * if no level is loaded, so tiles can call it before they are put in a level, or if the
+     * game is headless, since nothing will ever take the cells to draw them.
+     * @param position The packed position of the cell (see {@link Coordinate}).
+     */
+    static void markCellDirty(int position) {
+        GameSession session = GameSession.current();
+        if (session.dirtyCells != null && !session.headless) {
+            session.dirtyCells.mark(position);
+        }
+    }
+
+    /**
+     * Gets the cells of the loaded level which look different since the game canvas last drew them.
+     * @return The dirty cells, replaced by a new list whenever a level is loaded or restarted.
+     * @throws IllegalStateException if level not yet loaded
+     */
+    static DirtyCells getDirtyCells() {
+        DirtyCells dirtyCells = GameSession.current().dirtyCells;
+        if (dirtyCells == null) {
             throw new IllegalStateException("Level has not yet been loaded!");
         }
-        actorLayer.removeFromPosition(position);
+        return dirtyCells;
     }
 
     /**
@@ -263,22 +390,148 @@ public class GameManager {
      * @param lv the level to get details from
      * */
     private static void setLevelParams(Level lv) {
-        levelWidth = lv.getWidth();
-        levelHeight = lv.getHeight();
+        GameSession session = GameSession.current();
+        session.levelWidth = lv.getWidth();
+        session.levelHeight = lv.getHeight();
 
-        tileLayer = lv.getTileLayer();
-        actorLayer = lv.getActorLayer();
-        itemLayer = lv.getItemLayer();
+        session.tileLayer = lv.getTileLayer();
+        session.actorLayer = lv.getActorLayer();
+        session.itemLayer = lv.getItemLayer();
+
+        buildTickRegistry();
+        session.occluders = new OccluderIndex(session.levelWidth, session.levelHeight);
+        session.visibility = new VisibilityService(session.occluders);
+        session.dirtyCells = new DirtyCells(session.levelWidth, session.levelHeight);
+        setUpChasing();
 
         // Trigger walkedOn for ActionTiles an Actor spawns on
-        for (Actor a : actorLayer.getAllElements()) {
-            Tile tile = tileLayer.getAtPosition(a.getPosition());
+        for (Actor a : session.actorLayer.getAllElements()) {
+            Tile tile = session.tileLayer.getAtPosition(a.getPosition());
             if (tile instanceof ActionTile) {
                 ((ActionTile) tile).walkedOn(a);
             }
         }
 
-        Clock.setLevelDuration(level.getDuration());
+        Clock.setLevelDuration(session.level.getDuration());
+    }
+
+    /**
+     * Registers every actor and ticking action tile in the loaded layers.
+     */
+    private static void buildTickRegistry() {
+        GameSession session = GameSession.current();
+        session.tickRegistry = new TickRegistry(session.levelHeight);
+        for (Tile tile : session.tileLayer.getAllElements()) {
+            session.tickRegistry.register(tile);
+        }
+        for (Actor actor : session.actorLayer.getAllElements()) {
+            session.tickRegistry.register(actor);
+        }
+    }
+
+    /**
+     * Starts the next tick of the level, before input is handled.
+     * @throws IllegalStateException if level not yet loaded
+     */
+    static void advanceTick() {
+        GameSession session = GameSession.current();
+        if (session.tickRegistry == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        session.tickRegistry.advance();
+    }
+
+    /**
+     * Ticks every actor and action tile due on the current tick.
+     * The changes they make to the level are buffered until they have all been
+     * ticked, then applied together, see {@link TickEffects}.
+     * @throws IllegalStateException if level not yet loaded
+     */
+    static void tickEntities() {
+        GameSession session = GameSession.current();
+        if (session.tickRegistry == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        if (session.cooperativePlanner != null) {
+            session.cooperativePlanner.planDue(session.tickRegistry);
+        }
+        session.tickEffects.begin();
+        if (session.parallelTicker != null) {
+            session.parallelTicker.wakeDue(session.tickRegistry, session.tickEffects);
+        } else {
+            session.tickRegistry.wakeDue(session.tickEffects);
+        }
+        session.tickEffects.commit();
+    }
+
+    /**
+     * Sets whether the entities due on a tick are split into regions ticked in parallel
+     * on the common fork-join pool. Either way a tick has the same result, see {@link ParallelTicker}.
+     * @param parallel true to tick entities in parallel, false to tick them sequentially.
+     */
+    public static void setParallelTicking(boolean parallel) {
+        GameSession session = GameSession.current();
+        session.parallelTicker = parallel ? new ParallelTicker(session, ForkJoinPool.commonPool()) : null;
+    }
+
+    /**
+     * Checks whether the entities due on a tick are ticked in parallel.
+     * @return true if entities are ticked in parallel.
+     */
+    public static boolean isParallelTicking() {
+        return GameSession.current().parallelTicker != null;
+    }
+
+    /**
+     * Makes a change to the level which isn't a move, removal or replacement,
+     * buffering it with the other changes if entities are being ticked.
+     * @param change The change to make.
+     */
+    static void applyChange(Runnable change) {
+        TickEffects effects = GameSession.current().currentEffects();
+        if (effects.isCollecting()) {
+            effects.run(change);
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * Asks for an actor or action tile to be ticked after a number of ticks,
+     * replacing any wake it already has pending. Wakes asked for while entities
+     * are being ticked are buffered with the other changes they make.
+     * @param entity The entity to wake.
+     * @param delay How many ticks from now to wake it, at least 1.
+     * @throws IllegalStateException if level not yet loaded
+     * @throws IllegalArgumentException if the delay is less than 1
+     */
+    static void scheduleWake(Tile entity, int delay) {
+        GameSession session = GameSession.current();
+        if (session.tickRegistry == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        TickEffects effects = session.currentEffects();
+        if (effects.isCollecting()) {
+            if (delay < 1) {
+                throw new IllegalArgumentException("Wake delay must be at least 1 tick!");
+            }
+            effects.scheduleWake(entity, delay);
+            return;
+        }
+        session.tickRegistry.scheduleWake(entity, delay);
+    }
+
+    /**
+     * Gets the number of times the entities in the level have been ticked.
+     * @return The current tick of the level.
+     * @throws IllegalStateException if level not yet loaded
+     */
+    static long getCurrentTick() {
+        GameSession session = GameSession.current();
+        if (session.tickRegistry == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        return session.tickRegistry.getCurrentTick();
     }
 
     /**
@@ -291,19 +544,20 @@ public class GameManager {
      */
     public static void loadLevel(String path, Integer lvlNumber, boolean lastLevel)
             throws InputMismatchException, IOException {
+        GameSession session = GameSession.current();
         try {
-            levelNumber = lvlNumber;
-            isLastLevel = lastLevel;
-            if (levelNumber != null) {
-                level = new Level(Level.class.getResourceAsStream(path));
+            session.levelNumber = lvlNumber;
+            session.isLastLevel = lastLevel;
+            if (session.levelNumber != null) {
+                session.level = new Level(Level.class.getResourceAsStream(path));
             } else {
-                level = new Level(path);
+                session.level = new Level(path);
             }
 
             String[] pathParts = path.split("[\\\\/]");
-            levelName = pathParts[pathParts.length - 1].split("\\.")[0];
-            level.readFile();
-            setLevelParams(level);
+            session.levelName = pathParts[pathParts.length - 1].split("\\.")[0];
+            session.level.readFile();
+            setLevelParams(session.level);
 
         } catch (FileNotFoundException e) {
             System.out.println("File not found: " + path);
@@ -316,22 +570,23 @@ public class GameManager {
      * @throws InputMismatchException If the level format was wrong (should never occur).
      */
     public static void loadFromAutosave(String path) throws InputMismatchException {
+        GameSession session = GameSession.current();
         try {
-            level = new Level(path);
+            session.level = new Level(path);
             String[] pathParts = path.split("[\\\\/]");
             String tmp = pathParts[pathParts.length - 1].split("\\.")[0];
-            levelName = tmp.split("-")[1];
+            session.levelName = tmp.split("-")[1];
 
-            level.readFile();
+            session.level.readFile();
 
-            setLevelParams(level);
+            setLevelParams(session.level);
 
-            levelNumber = level.getLevelNumber();
-            isLastLevel = level.isLastLevel();
-            levelFov = level.getLevelFov();
+            session.levelNumber = session.level.getLevelNumber();
+            session.isLastLevel = session.level.isLastLevel();
+            session.levelFov = session.level.getLevelFov();
 
-            Player p = (Player) checkActor(actorLayer.findPositionsOf(TileType.PLAYER).get(0));
-            p.setInventory(level.getInventory());
+            Player p = (Player) session.actorLayer.findFirstOf(TileType.PLAYER);
+            p.setInventory(session.level.getInventory());
         } catch (FileNotFoundException e) {
             System.out.println("File not found!" + path);
         }
@@ -342,8 +597,9 @@ public class GameManager {
      * @throws IOException If the level cannot be loaded.
      * */
     public static void loadNextLevel() throws IOException {
+        GameSession session = GameSession.current();
         ArrayList<LevelDetails> levelDetails = LevelDetails.readLevelIndex();
-        LevelDetails nextLevelDetails = levelDetails.get(levelNumber);
+        LevelDetails nextLevelDetails = levelDetails.get(session.levelNumber);
         loadLevel(nextLevelDetails.getPath(), nextLevelDetails.getLevelNum(), nextLevelDetails.isLastLevel());
     }
 
@@ -353,17 +609,24 @@ public class GameManager {
      * @param usedExtraLife true if this restart was due to using an extra life
      */
     public static void restartLevel(boolean usedExtraLife) {
-        if (level == null) {
+        GameSession session = GameSession.current();
+        if (session.level == null) {
             throw new IllegalStateException("Level has not yet been loaded!");
         }
 
-        tileLayer = level.getTileLayer();
-        actorLayer = level.getActorLayer();
-        itemLayer = level.getItemLayer();
+        session.tileLayer = session.level.getTileLayer();
+        session.actorLayer = session.level.getActorLayer();
+        session.itemLayer = session.level.getItemLayer();
+
+        buildTickRegistry();
+        session.occluders = new OccluderIndex(session.levelWidth, session.levelHeight);
+        session.visibility = new VisibilityService(session.occluders);
+        session.dirtyCells = new DirtyCells(session.levelWidth, session.levelHeight);
+        setUpChasing();
 
         // Trigger walkedOn for ActionTiles an Actor spawns on
-        for (Actor a : actorLayer.getAllElements()) {
-            Tile tile = tileLayer.getAtPosition(a.getPosition());
+        for (Actor a : session.actorLayer.getAllElements()) {
+            Tile tile = session.tileLayer.getAtPosition(a.getPosition());
             if (tile instanceof ActionTile) {
                 ((ActionTile) tile).walkedOn(a);
             }
@@ -374,7 +637,7 @@ public class GameManager {
             Clock.resetLevelDuration();
             Clock.resetRemainingTime();
         } else {
-            Clock.setLevelDuration(level.getDuration());
+            Clock.setLevelDuration(session.level.getDuration());
         }
 
     }
@@ -387,7 +650,7 @@ public class GameManager {
      * @return Whether a level has been loaded.
      */
     public static boolean isLevelLoaded() {
-        return tileLayer != null;
+        return GameSession.current().tileLayer != null;
     }
 
     /**
@@ -395,15 +658,17 @@ public class GameManager {
      * @return Whether the timer is running.
      */
     public static boolean isGameTimerRunning() {
-        return gameTimer != null && gameTimer.isRunning();
+        GameSession session = GameSession.current();
+        return session.gameTimer != null && session.gameTimer.isRunning();
     }
 
     /**
      * Stops the game timer running.
      */
     public static void stopTimer() {
-        if (gameTimer != null && gameTimer.isRunning()) {
-            gameTimer.stop();
+        GameSession session = GameSession.current();
+        if (session.gameTimer != null && session.gameTimer.isRunning()) {
+            session.gameTimer.stop();
         }
     }
 
@@ -411,9 +676,10 @@ public class GameManager {
      * Pauses the game timer.
      */
     public static void pauseTimer() {
-        if (gameTimer != null && gameTimer.isRunning()
-                && !gameTimer.isPaused()) {
-            gameTimer.pauseTimer();
+        GameSession session = GameSession.current();
+        if (session.gameTimer != null && session.gameTimer.isRunning()
+                && !session.gameTimer.isPaused()) {
+            session.gameTimer.pauseTimer();
         }
     }
 
@@ -421,9 +687,10 @@ public class GameManager {
      * Unpauses the game timer.
      */
     public static void unpauseTimer() {
-        if (gameTimer != null && gameTimer.isRunning()
-            && gameTimer.isPaused()) {
-            gameTimer.unpauseTimer();
+        GameSession session = GameSession.current();
+        if (session.gameTimer != null && session.gameTimer.isRunning()
+            && session.gameTimer.isPaused()) {
+            session.gameTimer.unpauseTimer();
         }
     }
 
@@ -431,9 +698,10 @@ public class GameManager {
      * Resets the game timer.
      */
     public static void resetTimer() {
-        if (gameTimer != null && gameTimer.isRunning()
-                && !gameTimer.isPaused()) {
-            gameTimer.resetLevelTimer();
+        GameSession session = GameSession.current();
+        if (session.gameTimer != null && session.gameTimer.isRunning()
+                && !session.gameTimer.isPaused()) {
+            session.gameTimer.resetLevelTimer();
         }
     }
 
@@ -443,7 +711,7 @@ public class GameManager {
      * @return The width of the level.
      */
     public static int getLevelWidth() {
-        return levelWidth;
+        return GameSession.current().levelWidth;
     }
 
     /**
@@ -452,7 +720,7 @@ public class GameManager {
      * @return The height of the level.
      */
     public static int getLevelHeight() {
-        return levelHeight;
+        return GameSession.current().levelHeight;
     }
 
     /**
@@ -461,7 +729,7 @@ public class GameManager {
      * @return The fov of the level.
      */
     public static double getLevelFov() {
-        return level.getLevelFov();
+        return GameSession.current().level.getLevelFov();
     }
 
     /**
@@ -469,15 +737,7 @@ public class GameManager {
      * @return an arraylist of all barnacles in the level.
      */
     public static ArrayList<Barnacle> getBarnacles() {
-        return level.getBarnacles();
-    }
-
-    /**
-     * Returns an arraylist of all blocks in the level.
-     * @return an arraylist of all blocks in the level.
-     */
-    public static ArrayList<Block> getBlocks() {
-        return level.getBlocksList();
+        return GameSession.current().level.getBarnacles();
     }
 
     /**
@@ -486,10 +746,11 @@ public class GameManager {
      * @throws IllegalStateException if level not loaded.
      * */
     public static boolean isNextPossible() throws IllegalStateException {
+        GameSession session = GameSession.current();
         if (!isLevelLoaded()) {
             throw new IllegalStateException("Level not loaded!");
         }
-        return !isLastLevel && levelNumber != null;
+        return !session.isLastLevel && session.levelNumber != null;
     }
 
     /**
@@ -498,11 +759,173 @@ public class GameManager {
      * @return The position of the player.
      */
     public static Point2D getPlayerPosition() {
-        ArrayList<Point2D> playerPositions = actorLayer.findPositionsOf(TileType.PLAYER);
-        if (playerPositions.isEmpty()) {
-            return null;
+        return GameSession.current().actorLayer.findFirstPositionOf(TileType.PLAYER);
+    }
+
+    /**
+     * Checks whether there is a clear line of sight between two packed positions, with no wall
+     * or block in the cells between them, see {@link VisibilityService#isLineClear(int, int)}.
+     * @param from The packed position of one end.
+     * @param to The packed position of the other end.
+     * @return true if nothing between the positions blocks sight.
+     * @throws IllegalStateException if level not yet loaded
+     */
+    static boolean isLineOfSightClear(int from, int to) {
+        GameSession session = GameSession.current();
+        if (session.visibility == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        return session.visibility.isLineClear(from, to);
+    }
+
+    /**
+     * Finds the cells visible from a packed position within a radius, remembered for the rest of the tick.
+     * @param origin The packed position to look from.
+     * @param radius The furthest distance to see, in cells.
+     * @param facing The direction of the quarter circle to look in, null to look all around.
+     * @return The visible cells, which mustn't be changed.
+     * @throws IllegalStateException if level not yet loaded
+     */
+    static VisibilityService.VisibleCells findVisibleCells(int origin, int radius, Direction facing) {
+        GameSession session = GameSession.current();
+        if (session.visibility == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        return session.visibility.findVisibleCells(origin, radius, facing, session.tickRegistry.getCurrentTick());
+    }
+
+    /**
+     * Finds the next step towards the player for a monster chasing them,
+     * using the level's {@link ChaseStrategy}.
+     * @param from The packed position of the monster.
+     * @return The packed position to step into, the monster's own position to wait,
+     * or {@link PathFinder#NO_PATH} if the player can't be reached.
+     * @throws IllegalStateException if level not yet loaded
+     */
+    static int findStepTowardsPlayer(int from) {
+        GameSession session = GameSession.current();
+        if (session.playerDistance == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        return switch (session.levelChaseStrategy) {
+            case A_STAR -> findPathTowardsPlayer(
+                    AStarPathFinder.forLevel(session.levelWidth, session.levelHeight, session.landmarkTable), from);
+            case JUMP_POINT -> findPathTowardsPlayer(
+                    JumpPointPathFinder.forLevel(session.levelWidth, session.levelHeight), from);
+            case HIERARCHICAL -> findPathTowardsPlayer(HierarchicalPathFinder.forGraph(session.clusterGraph), from);
+            default -> session.cooperativePlanner.findStep(from);
+        };
+    }
+
+    /**
+     * Searches for the player from a monster's position.
+     * @param pathFinder The path finder to search with.
+     * @param from The packed position of the monster.
+     * @return The packed position to step into, or {@link PathFinder#NO_PATH} if the player can't be reached.
+     */
+    private static int findPathTowardsPlayer(PathFinder pathFinder, int from) {
+        GameSession session = GameSession.current();
+        Point2D player = session.actorLayer.findFirstPositionOf(TileType.PLAYER);
+        if (player == null) {
+            return PathFinder.NO_PATH;
+        }
+        session.walkableGrid.refresh();
+        return pathFinder.findFirstStep(from, Coordinate.of(player), session.walkableGrid);
+    }
+
+    /**
+     * Sets how monsters chase the player, on this level and the levels after it.
+     * @param strategy The strategy to use, {@link ChaseStrategy#AUTOMATIC} to choose one for each level.
+     */
+    public static void setChaseStrategy(ChaseStrategy strategy) {
+        GameSession session = GameSession.current();
+        session.chaseStrategy = strategy;
+        if (session.playerDistance != null) {
+            applyChaseStrategy();
+        }
+    }
+
+    /**
+     * Gets how monsters chase the player on the current level.
+     * @return The strategy in use, never {@link ChaseStrategy#AUTOMATIC}.
+     * @throws IllegalStateException if level not yet loaded
+     */
+    public static ChaseStrategy getChaseStrategy() {
+        GameSession session = GameSession.current();
+        if (session.levelChaseStrategy == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        return session.levelChaseStrategy;
+    }
+
+    /**
+     * Sets up the walkable grid, distance field and chase strategy for a newly loaded level.
+     */
+    private static void setUpChasing() {
+        GameSession session = GameSession.current();
+        session.walkableGrid = new WalkableGrid(session.levelWidth, session.levelHeight, Frog::canPathThrough);
+        session.playerDistance = new PlayerDistanceField(session.walkableGrid);
+        session.clusterGraph = null;
+        session.landmarkTable = null;
+        session.cooperativePlanner = null;
+        applyChaseStrategy();
+    }
+
+    /**
+     * Chooses the chase strategy for the current level, building the cluster graph, landmark
+     * table or cooperative planner if it's needed.
+     */
+    private static void applyChaseStrategy() {
+        GameSession session = GameSession.current();
+        session.levelChaseStrategy = chooseChaseStrategy();
+        if (session.levelChaseStrategy != ChaseStrategy.SHARED_FIELD) {
+            session.cooperativePlanner = null;
+        } else if (session.cooperativePlanner == null) {
+            session.cooperativePlanner = new CooperativePlanner(session.walkableGrid, session.playerDistance);
+        }
+        if (session.levelChaseStrategy != ChaseStrategy.HIERARCHICAL) {
+            session.clusterGraph = null;
+        } else if (session.clusterGraph == null) {
+            session.clusterGraph = new ClusterGraph(session.walkableGrid);
+        }
+        if (session.levelChaseStrategy != ChaseStrategy.A_STAR) {
+            session.landmarkTable = null;
+        } else if (session.landmarkTable == null) {
+            session.landmarkTable = new LandmarkTable(session.walkableGrid);
+        }
+        if (session.clusterGraph == null && session.landmarkTable == null) {
+            session.walkableGrid.setChangeListener(null);
+        }
+    }
+
+    /**
+     * Chooses how monsters chase the player on the current level. Unless a strategy has been set,
+     * a few monsters on an open level search with jump point search, or hierarchically if the level
+     * is very large, a few monsters on a level with many walls search with A* and landmarks,
+     * and many monsters share a distance field.
+     * @return The strategy to use.
+     */
+    private static ChaseStrategy chooseChaseStrategy() {
+        GameSession session = GameSession.current();
+        if (session.chaseStrategy != ChaseStrategy.AUTOMATIC) {
+            return session.chaseStrategy;
+        }
+
+        int chasers = 0;
+        for (Actor actor : session.actorLayer.getAllElements()) {
+            if (actor instanceof Frog) {
+                chasers++;
+            }
         }
-        return playerPositions.getFirst();
+        if (chasers == 0 || chasers > MAX_JUMP_POINT_CHASERS) {
+            return ChaseStrategy.SHARED_FIELD;
+        }
+
+        int cells = session.levelWidth * session.levelHeight;
+        if ((double) session.walkableGrid.getOpenCount() / cells < MIN_JUMP_POINT_OPEN_RATIO) {
+            return ChaseStrategy.A_STAR;
+        }
+        return cells >= MIN_HIERARCHICAL_CELLS ? ChaseStrategy.HIERARCHICAL : ChaseStrategy.JUMP_POINT;
     }
 
     /**
@@ -512,17 +935,97 @@ public class GameManager {
      * @throws IllegalStateException if level not initiated.
      * */
     public static void startGame(GameViewController viewController) throws IllegalStateException {
-        if (tileLayer == null) {
+        GameSession session = GameSession.current();
+        if (session.tileLayer == null) {
+            throw new IllegalStateException("Level not loaded!");
+        }
+
+        session.gameViewController = viewController;
+        session.headless = false;
+        session.lastDeathState = null;
+        session.levelWon = false;
+        session.gameTimer = new GameTimer();
+        session.gameTimer.setGameViewController(viewController);
+
+        session.gameTimer.start();
+        session.gameTimer.startLevel();
+        session.gameViewController.resetInventoryDisplay();
+    }
+
+    /**
+     * Starts the game headless, with no view and no timer thread.
+     * The game only advances when stepped with {@link #stepGame(int)}, and
+     * winning or losing doesn't touch save files, profiles or high scores.
+     *
+     * @throws IllegalStateException if level not initiated.
+     * */
+    public static void startHeadlessGame() throws IllegalStateException {
+        GameSession session = GameSession.current();
+        if (session.tileLayer == null) {
             throw new IllegalStateException("Level not loaded!");
         }
 
-        gameViewController = viewController;
-        gameTimer = new GameTimer();
-        gameTimer.setGameViewController(viewController);
+        session.gameViewController = null;
+        session.headless = true;
+        session.lastDeathState = null;
+        session.levelWon = false;
+        session.gameTimer = new GameTimer();
+
+        session.gameTimer.startHeadless();
+        session.gameTimer.startLevel();
+    }
 
-        gameTimer.start();
-        gameTimer.startLevel();
-        gameViewController.resetInventoryDisplay();
+    /**
+     * Runs ticks of a headless game back to back, stopping early if the game ends.
+     *
+     * @param ticks The maximum number of ticks to run.
+     * @return The number of ticks run per second.
+     * @throws IllegalStateException if the game was not started headless.
+     * */
+    public static double stepGame(int ticks) throws IllegalStateException {
+        GameSession session = GameSession.current();
+        if (session.gameTimer == null || !session.headless) {
+            throw new IllegalStateException("Game has not been started headless!");
+        }
+        return session.gameTimer.step(ticks);
+    }
+
+    /**
+     * Gets the number of ticks the game timer has run.
+     *
+     * @return The current tick of the game timer, 0 if no game has started.
+     * */
+    public static int getGameTick() {
+        GameSession session = GameSession.current();
+        return session.gameTimer == null ? 0 : session.gameTimer.getCurrentTick();
+    }
+
+    /**
+     * Gets how well the game timer has kept to its schedule.
+     *
+     * @return The tick metrics, null if no game is running on a timer thread.
+     * */
+    public static TickMetrics getTickMetrics() {
+        GameSession session = GameSession.current();
+        return session.gameTimer == null ? null : session.gameTimer.getMetrics();
+    }
+
+    /**
+     * Gets how the player died in the last game.
+     *
+     * @return The death state, null if the player hasn't died.
+     * */
+    public static DeathState getLastDeathState() {
+        return GameSession.current().lastDeathState;
+    }
+
+    /**
+     * Checks if the last game was won.
+     *
+     * @return Whether the level was won.
+     * */
+    public static boolean isLevelWon() {
+        return GameSession.current().levelWon;
     }
 
     /**
@@ -532,9 +1035,13 @@ public class GameManager {
      * @throws IllegalStateException if level not initiated.
      */
     public static void endGame(DeathState deathState) throws IllegalStateException {
-        if (tileLayer == null) {
+        GameSession session = GameSession.current();
+        if (session.tileLayer == null) {
             throw new IllegalStateException("Level not loaded!");
         }
+        if (session.currentEffects().endGame(deathState)) {
+            return;
+        }
 
         if (deathState != DeathState.EXTRA) {
             if (Player.getExtraLives() > 0) {
@@ -547,12 +1054,18 @@ public class GameManager {
             }
         }
 
-        if (levelNumber != null) {
-            PlayerViewController.tryDeleteAutoSave(levelNumber);
+        session.lastDeathState = deathState;
+        if (session.headless) {
+            stopTimer();
+            return;
+        }
+
+        if (session.levelNumber != null) {
+            PlayerViewController.tryDeleteAutoSave(session.levelNumber);
         }
         stopTimer();
-        gameViewController.gameLose(deathState);
-        gameViewController.resetInventoryDisplay();
+        session.gameViewController.gameLose(deathState);
+        session.gameViewController.resetInventoryDisplay();
     }
 
     /**
@@ -561,19 +1074,29 @@ public class GameManager {
      * @throws IllegalStateException if level not loaded
      * */
     public static void winLevel() throws IllegalStateException {
-        if (tileLayer == null) {
+        GameSession session = GameSession.current();
+        if (session.tileLayer == null) {
             throw new IllegalStateException("Level not loaded!");
         }
-        if (levelNumber != null) {
-            PlayerViewController.tryDeleteAutoSave(levelNumber);
+        if (session.currentEffects().winLevel()) {
+            return;
+        }
+        session.levelWon = true;
+        if (session.headless) {
+            stopTimer();
+            return;
+        }
+
+        if (session.levelNumber != null) {
+            PlayerViewController.tryDeleteAutoSave(session.levelNumber);
         }
         stopTimer();
         // change max completed level
-        if (levelNumber != null && playerProfile.getMaxUnlockedLevel() == levelNumber) {
-            playerProfile.setMaxUnlockedLevel(levelNumber + 1);
+        if (session.levelNumber != null && playerProfile.getMaxUnlockedLevel() == session.levelNumber) {
+            playerProfile.setMaxUnlockedLevel(session.levelNumber + 1);
             try {
                 int numLevels = LevelDetails.readLevelIndex().size();
-                if (levelNumber >= numLevels) {
+                if (session.levelNumber >= numLevels) {
                     playerProfile.setMaxUnlockedLevel(numLevels);
                 }
             } catch (IOException e) {
@@ -586,9 +1109,9 @@ public class GameManager {
             }
 
         }
-        gameViewController.gameWin();
+        session.gameViewController.gameWin();
 
-        if (levelNumber != null) {
+        if (session.levelNumber != null) {
             // Get the player's score and level number
             int playerScore = Clock.getRemainingTime(); // Example: Using remaining time as score
 
@@ -597,11 +1120,11 @@ public class GameManager {
 
             try {
                 // Add the player's score to high scores for the level
-                HighScoreTable.addScore(levelNumber - 1, playerScoreData);
+                HighScoreTable.addScore(session.levelNumber - 1, playerScoreData);
 
                 // Save the updated high scores for this level
-                List<PlayerData> updatedScores = HighScoreTable.displayHighScores(levelNumber - 1);
-                HighScoreTable.saveHighScores(levelNumber - 1, updatedScores);
+                List<PlayerData> updatedScores = HighScoreTable.displayHighScores(session.levelNumber - 1);
+                HighScoreTable.saveHighScores(session.levelNumber - 1, updatedScores);
             } catch (IOException e) {
                 // Handle the IOException accordingly
                 e.printStackTrace(); // Example: Printing stack trace for simplicity
@@ -613,9 +1136,10 @@ public class GameManager {
      * @return String of actors and their directions.
      * */
     private static String getActorDirections() {
+        GameSession session = GameSession.current();
         StringBuilder outStr = new StringBuilder();
 
-        for (Actor a : actorLayer.getAllElements()) {
+        for (Actor a : session.actorLayer.getAllElements()) {
             Point2D pos = a.getPosition();
             char d = Actor.directionToChar(a.getFacingDir());
             outStr.append(String.format("(%d,%d) @ %s\n", (int) pos.getX(), (int) pos.getY(), d));
@@ -628,10 +1152,11 @@ public class GameManager {
      * @return list of chip readers and counts
      * */
     private static String getChipCounts() {
+        GameSession session = GameSession.current();
         StringBuilder outStr = new StringBuilder();
-        ArrayList<Point2D> chipSockets = tileLayer.findPositionsOf(TileType.CHIP_SOCKET);
+        ArrayList<Point2D> chipSockets = session.tileLayer.findPositionsOf(TileType.CHIP_SOCKET);
         for (Point2D p : chipSockets) {
-            if (tileLayer.getAtPosition(p) instanceof ChipSocket chipSocket) {
+            if (session.tileLayer.getAtPosition(p) instanceof ChipSocket chipSocket) {
                 outStr.append(String.format("(%d,%d) # %d\n",
                         (int) p.getX(), (int) p.getY(), chipSocket.getRequiredChips()));
             }
@@ -660,10 +1185,11 @@ public class GameManager {
      * @return A list of buttons and the traps they are linked to
      * */
     private static String getButtonAssocs() {
+        GameSession session = GameSession.current();
         StringBuilder outStr = new StringBuilder();
-        ArrayList<Point2D> buttons = tileLayer.findPositionsOf(TileType.BUTTON);
+        ArrayList<Point2D> buttons = session.tileLayer.findPositionsOf(TileType.BUTTON);
         for (Point2D p : buttons) {
-            Button b = (Button) tileLayer.getAtPosition(p);
+            Button b = (Button) session.tileLayer.getAtPosition(p);
             ArrayList<Trap> linkedTraps = b.getLinkedTraps();
             for (Trap t : linkedTraps) {
                 Point2D pos = t.getPosition();
@@ -679,10 +1205,11 @@ public class GameManager {
      * @return A string containing the boat path meta data
      */
     private static String getBoatMetaData() {
+        GameSession session = GameSession.current();
         String outStr = "";
 
-        for (Point2D pos : tileLayer.findPositionsOf(TileType.BOAT_PATH)) {
-            BoatPath boatPath = (BoatPath) tileLayer.getAtPosition(pos);
+        for (Point2D pos : session.tileLayer.findPositionsOf(TileType.BOAT_PATH)) {
+            BoatPath boatPath = (BoatPath) session.tileLayer.getAtPosition(pos);
             if (boatPath.getBoatPresence()) {
                 String reverseString = "";
                 if (boatPath.getReversing()) {
@@ -701,23 +1228,24 @@ public class GameManager {
      * On an abrupt exit, the level progress is to be saved.
      * */
     public static void saveLevelProgress() {
-        String tileLayerStr = tileLayer.toString();
-        String actorLayerStr = actorLayer.toString();
-        String itemLayerStr = itemLayer.toString();
-        String levelDims = String.format("%d,%d", levelWidth, levelHeight);
+        GameSession session = GameSession.current();
+        String tileLayerStr = session.tileLayer.toString();
+        String actorLayerStr = session.actorLayer.toString();
+        String itemLayerStr = session.itemLayer.toString();
+        String levelDims = String.format("%d,%d", session.levelWidth, session.levelHeight);
         String timeRemaining = Integer.toString(Clock.getRemainingTime());
         String chipCounts = getChipCounts();
         String buttonAssocs = getButtonAssocs();
         String actorDirecitons = getActorDirections();
         String inventory = getInventory();
         String boatMetaData = getBoatMetaData();
-        String levelFlags = String.format("%d,%d", levelNumber, isLastLevel ? 1 : 0);
+        String levelFlags = String.format("%d,%d", session.levelNumber, session.isLastLevel ? 1 : 0);
 
         String saveFile = String.format("%s\n%s\n\n%s\n%s\n%s\n%s%s%s\n%s\n%s", levelDims, timeRemaining,
                 tileLayerStr, actorLayerStr, itemLayerStr,
                 buttonAssocs, chipCounts, actorDirecitons,
                 inventory, boatMetaData, levelFlags);
-        String fileName = String.format("%s-%s.sav", playerProfile.getPlayerName(), levelName);
+        String fileName = String.format("%s-%s.sav", playerProfile.getPlayerName(), session.levelName);
         String workingDir = PlayerProfileManager.getAppDataDirectory();
 
         try {
@@ -734,7 +1262,8 @@ public class GameManager {
      * @return true if level is being timed.
      * */
     public static boolean isLevelRunning() {
-        return gameTimer != null && gameTimer.isRunning() && gameTimer.isTimingLevel();
+        GameSession session = GameSession.current();
+        return session.gameTimer != null && session.gameTimer.isRunning() && session.gameTimer.isTimingLevel();
     }
 
     /**
@@ -742,16 +1271,11 @@ public class GameManager {
      * @return the player instance
      * */
     public static Player getPlayerInstance() {
-        return (Player) checkActor(getPlayerPosition());
-    }
-
-    /**
-     * Returns a list of point2d of tiles of the type of the parameter.
-     * @param tileType the type of tile to return.
-     * @return an arraylist list of point2d, referring to the position of the tiles.
-     * */
-    public static ArrayList<Point2D> getBlockedTile(TileType tileType) {
-        return tileLayer.findPositionsOf(tileType);
+        GameSession session = GameSession.current();
+        if (session.actorLayer == null) {
+            throw new IllegalStateException("Level has not yet been loaded!");
+        }
+        return (Player) session.actorLayer.findFirstOf(TileType.PLAYER);
     }
 
 }
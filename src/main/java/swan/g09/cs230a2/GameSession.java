@@ -0,0 +1,303 @@
+package swan.g09.cs230a2;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+
+import javafx.scene.input.KeyCode;
+
+/**
+ * All the state of one game: the level and its layers, the tick registry and
+ * timer, the clock, the player's inventory and lives, and the keyboard input.
+ * The static methods of GameManager, Clock, Player, InputManager and GameTimer
+ * act on the current session, which is the session bound to the calling thread
+ * by {@link #run(Runnable)} or {@link #call(Callable)}, or the default session if
+ * none is bound. The desktop game only ever uses the default session, while a
+ * server can run many independent sessions at once, one thread per session at a time.
+ *
+ * @version 0.1
+ */
+public final class GameSession {
+
+    /**
+     * The number of slots in the player's inventory.
+     */
+    private static final int INVENTORY_SIZE = Player.InventorySlot.values().length;
+
+    /**
+     * The session used by threads which haven't bound one.
+     */
+    private static final GameSession DEFAULT_SESSION = new GameSession();
+
+    /**
+     * The session bound to each thread, if any.
+     */
+    private static final ThreadLocal<GameSession> BOUND_SESSION = new ThreadLocal<>();
+
+    /**
+     * The width of the loaded level.
+     */
+    int levelWidth;
+
+    /**
+     * The height of the loaded level.
+     */
+    int levelHeight;
+
+    /**
+     * The fov of the loaded level.
+     */
+    double levelFov;
+
+    /**
+     * The Layer class containing all Tiles.
+     */
+    Layer<Tile> tileLayer;
+
+    /**
+     * The Layer class containing all Items.
+     */
+    Layer<Item> itemLayer;
+
+    /**
+     * The Layer class containing all Actors.
+     */
+    Layer<Actor> actorLayer;
+
+    /**
+     * The actors and action tiles which need ticking.
+     */
+    TickRegistry tickRegistry;
+
+    /**
+     * The changes made to the level by entities during the current tick.
+     */
+    final TickEffects tickEffects = new TickEffects();
+
+    /**
+     * Ticks entities in parallel on large levels, null to always tick them sequentially.
+     */
+    ParallelTicker parallelTicker;
+
+    /**
+     * The cells which block lines of sight across the level.
+     */
+    OccluderIndex occluders;
+
+    /**
+     * Answers what can be seen from where on the level.
+     */
+    VisibilityService visibility;
+
+    /**
+     * The cells of the level the game canvas needs to draw again.
+     */
+    DirtyCells dirtyCells;
+
+    /**
+     * The cells the monsters chasing the player can walk through.
+     */
+    WalkableGrid walkableGrid;
+
+    /**
+     * The distance to the player from every cell, shared by the monsters chasing the player.
+     */
+    PlayerDistanceField playerDistance;
+
+    /**
+     * The abstract graph of the level's clusters, null unless monsters chase the player hierarchically.
+     */
+    ClusterGraph clusterGraph;
+
+    /**
+     * The distances from the level's landmarks, null unless monsters chase the player with A*.
+     */
+    LandmarkTable landmarkTable;
+
+    /**
+     * Plans the moves of the monsters sharing the distance field together, null unless they share it.
+     */
+    CooperativePlanner cooperativePlanner;
+
+    /**
+     * How monsters should chase the player, {@link ChaseStrategy#AUTOMATIC} to choose for each level.
+     */
+    ChaseStrategy chaseStrategy = ChaseStrategy.AUTOMATIC;
+
+    /**
+     * How monsters chase the player on the current level.
+     */
+    ChaseStrategy levelChaseStrategy;
+
+    /**
+     * The timer managing the game.
+     */
+    GameTimer gameTimer;
+
+    /**
+     * The file name of the level, minus file type.
+     */
+    String levelName;
+
+    /**
+     * The view controller for the game view, null when headless.
+     */
+    GameViewController gameViewController;
+
+    /**
+     * Whether the game is being simulated headless, without a view or saving anything.
+     */
+    boolean headless;
+
+    /**
+     * How the player died in the last game, null if they haven't died.
+     */
+    GameManager.DeathState lastDeathState;
+
+    /**
+     * Whether the last game was won.
+     */
+    boolean levelWon;
+
+    /**
+     * The currently loaded level.
+     */
+    Level level;
+
+    /**
+     * Is this the last level.
+     */
+    Boolean isLastLevel;
+
+    /**
+     * The number of the level in the load order.
+     */
+    Integer levelNumber;
+
+    /**
+     * The total time for the level, in seconds.
+     */
+    int clockTotalTime;
+
+    /**
+     * The time remaining on the level, in seconds.
+     */
+    int clockRemainingTime;
+
+    /**
+     * The player moves every x ticks.
+     */
+    int playerMoveInterval;
+
+    /**
+     * The number of extra lives the player has.
+     */
+    int extraLives;
+
+    /**
+     * The player's inventory. This stores the amount of each item in the
+     * order [Chips, Key_R, Key_G, Key_Y, Key_B, EXTRA_LIFE].
+     */
+    final int[] inventory = new int[INVENTORY_SIZE];
+
+    /**
+     * Maps key codes to the handlers to run when the key is pressed.
+     */
+    final HashMap<KeyCode, ArrayList<Runnable>> keydownHandlers = new HashMap<>();
+
+    /**
+     * Maps key codes to the handlers to run when the key is released.
+     */
+    final HashMap<KeyCode, ArrayList<Runnable>> keyupHandlers = new HashMap<>();
+
+    /**
+     * Maps key codes to the handlers to run every tick the key is pressed down.
+     */
+    final HashMap<KeyCode, ArrayList<Runnable>> tickHandlers = new HashMap<>();
+
+    /**
+     * The currently pressed keys.
+     */
+    final HashSet<KeyCode> pressedKeys = new HashSet<>();
+
+    /**
+     * Creates a session with no level loaded.
+     */
+    public GameSession() {
+    }
+
+    /**
+     * Gets the session the calling thread is acting on.
+     * @return The session bound to this thread, or the default session.
+     */
+    public static GameSession current() {
+        GameSession session = BOUND_SESSION.get();
+        return session != null ? session : DEFAULT_SESSION;
+    }
+
+    /**
+     * Gets the session used by threads which haven't bound one, such as the JavaFX thread.
+     * @return The default session.
+     */
+    public static GameSession getDefault() {
+        return DEFAULT_SESSION;
+    }
+
+    /**
+     * Gets the buffer for changes made to the level by the entity being ticked on the calling thread.
+     * @return The buffer of the region being woken while ticking in parallel, otherwise the session's.
+     */
+    TickEffects currentEffects() {
+        if (parallelTicker != null) {
+            TickEffects region = ParallelTicker.boundEffects();
+            if (region != null) {
+                return region;
+            }
+        }
+        return tickEffects;
+    }
+
+    /**
+     * Runs a task with this session bound to the calling thread.
+     * The previously bound session is restored afterwards, so calls can be nested.
+     * @param task The task to run.
+     */
+    public void run(Runnable task) {
+        GameSession previous = BOUND_SESSION.get();
+        BOUND_SESSION.set(this);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Runs a task with this session bound to the calling thread, returning its result.
+     * The previously bound session is restored afterwards, so calls can be nested.
+     * @param task The task to run.
+     * @param <T> The type of result.
+     * @return The result of the task.
+     * @throws Exception if the task throws
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        GameSession previous = BOUND_SESSION.get();
+        BOUND_SESSION.set(this);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Rebinds the session that was bound before this one. The thread's entry is set to null
+     * rather than removed when there wasn't one, so binding a session again next tick doesn't
+     * allocate a new entry.
+     * @param previous The previously bound session, null if there wasn't one.
+     */
+    private static void restore(GameSession previous) {
+        BOUND_SESSION.set(previous);
+    }
+}
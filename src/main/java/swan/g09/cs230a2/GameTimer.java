@@ -1,16 +1,18 @@
 package swan.g09.cs230a2;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
-import javafx.geometry.Point2D;
+import java.util.concurrent.TimeUnit;
 
 /**
- * A Timer that ticks every entity in the level on a variable interval.
+ * A Timer that ticks every entity in the level at a fixed rate, using a {@link TickScheduler}
+ * so slow ticks and pauses don't drift the game clock.
+ * A timer can also be started headless, in which case it is never scheduled
+ * and only ticks when stepped, as fast as the CPU allows.
+ * Each timer belongs to the {@link GameSession} it was created in, and ticks that session
+ * whichever thread runs it.
  * @author Samuel Lomas
  * @version 0.1
  * */
-public class GameTimer extends TimerTask {
+public class GameTimer implements Runnable {
 
     /**
      * The interval between ticks, in milliseconds.
@@ -23,9 +25,14 @@ public class GameTimer extends TimerTask {
     private static final double MILLIS_IN_SECOND = 1000.0;
 
     /**
-     * The internal timer used for scheduling the tick loop.
+     * The number of nanoseconds in a second.
+     */
+    private static final double NANOS_IN_SECOND = 1_000_000_000.0;
+
+    /**
+     * The scheduler running the tick loop, only created when started with a thread.
      */
-    private final Timer timer;
+    private TickScheduler scheduler;
 
     /**
      * The current tick that the timer is on.
@@ -35,12 +42,12 @@ public class GameTimer extends TimerTask {
     /**
      * The tick for the start of a level.
      * */
-    private static int levelStartTick;
+    private int levelStartTick;
 
     /**
      * The tick for the end of a level.
      * */
-    private static int levelEndTick;
+    private int levelEndTick;
 
     /**
      * Boolean used to control the state of the timer.
@@ -50,27 +57,42 @@ public class GameTimer extends TimerTask {
     /**
      * A boolean used for detecting whether a level is being timed.
      * */
-    private static boolean timingLevel;
+    private boolean timingLevel;
 
     /**
      * A boolean used to pause and unpause the timer.
      */
     private boolean paused;
 
+    /**
+     * Whether the timer was started headless, so it only ticks when stepped.
+     */
+    private boolean headless;
+
     /**
      * The view controller for rendering the game.
      * */
     private GameViewController gameViewController;
 
     /**
-     * Constructor for class Timer.
+     * The session this timer ticks.
+     */
+    private final GameSession session;
+
+    /**
+     * Runs a single tick, kept so binding the session each tick doesn't allocate.
+     */
+    private final Runnable tickTask = this::tick;
+
+    /**
+     * Constructor for class Timer, ticking the current session.
      * */
     public GameTimer() {
+        session = GameSession.current();
         timerRunning = false;
         timingLevel = false;
         currentTick = 0;
         paused = false;
-        timer = new Timer();
     }
 
     /**
@@ -79,36 +101,53 @@ public class GameTimer extends TimerTask {
     @Override
     public void run() {
         if (timerRunning && !paused) {
-            currentTick++; //Increment Tick
-            InputManager.tick(); //Tick over the input manager
+            session.run(tickTask);
+        }
+    }
 
-            if (timingLevel) {
-                Clock.tick(currentTick - levelStartTick); // Tick over the clock
-            }
+    /**
+     * Runs a single tick of the game.
+     */
+    private void tick() {
+        currentTick++; //Increment Tick
+        GameManager.advanceTick(); // Start the tick for the level's entities
+        InputManager.tick(); //Tick over the input manager
 
-            // Tick all actors and action tiles
-            for (int x = 0; x < GameManager.getLevelWidth(); x++) {
-                for (int y = 0; y < GameManager.getLevelHeight(); y++) {
-                    Point2D coordinate = new Point2D(x, y);
-
-                    Tile t = GameManager.checkTile(coordinate);
-                    if (t instanceof ActionTile actionTile) {
-                        actionTile.tick();
-                    }
-
-                    Actor a = GameManager.checkActor(coordinate);
-                    if (a != null) {
-                        a.tick();
-                    }
-                }
-            }
+        if (timingLevel) {
+            Clock.tick(currentTick - levelStartTick); // Tick over the clock
+        }
 
-            if (gameViewController != null) {
-                gameViewController.tick();
-            }
+        // Tick the actors and action tiles due this tick
+        GameManager.tickEntities();
+
+        if (gameViewController != null) {
+            gameViewController.tick();
         }
     }
 
+    /**
+     * Runs ticks back to back on the calling thread, without waiting between them.
+     * Stops early if the timer is stopped or paused, such as when the level is won or lost.
+     * @param ticks The maximum number of ticks to run.
+     * @return The number of ticks run per second.
+     * @throws IllegalStateException if the timer has not been started headless
+     * */
+    public double step(int ticks) throws IllegalStateException {
+        if (!timerRunning || !headless) {
+            throw new IllegalStateException("Timer has not been started headless!");
+        }
+
+        int startTick = currentTick;
+        long startTime = System.nanoTime();
+        session.run(() -> {
+            for (int i = 0; i < ticks && timerRunning && !paused; i++) {
+                tick();
+            }
+        });
+        long elapsed = Math.max(1, System.nanoTime() - startTime);
+        return (currentTick - startTick) * NANOS_IN_SECOND / elapsed;
+    }
+
 
     /**
      * Set the view controller that draws the game.
@@ -147,14 +186,15 @@ public class GameTimer extends TimerTask {
     }
 
     /**
-     * Adds time to the level timer.
+     * Adds time to the level timer of the current session.
      * @param seconds The number of seconds to add to the timer.
      * @return the number of ticks now remaining
      * */
     public static int addTime(int seconds) {
-        if (timingLevel) {
-            levelStartTick += (seconds * (int) (MILLIS_IN_SECOND / TICK_RATE));
-            return levelStartTick;
+        GameTimer gameTimer = GameSession.current().gameTimer;
+        if (gameTimer != null && gameTimer.timingLevel) {
+            gameTimer.levelStartTick += (seconds * (int) (MILLIS_IN_SECOND / TICK_RATE));
+            return gameTimer.levelStartTick;
         }
         throw new IllegalStateException("Attempted to add time to level while it isn't being timed");
     }
@@ -185,7 +225,21 @@ public class GameTimer extends TimerTask {
             throw new IllegalStateException("Timer is already Running!");
         }
         timerRunning = true;
-        timer.schedule(this, TICK_RATE, TICK_RATE);
+        scheduler = new TickScheduler(this, TimeUnit.MILLISECONDS.toNanos(TICK_RATE), "game-timer");
+        scheduler.start();
+    }
+
+    /**
+     * Starts the timer without scheduling it or creating a thread, so it only ticks
+     * when stepped or run by something else, such as a {@link GameHost}.
+     * @throws IllegalStateException if timer is already running
+     * */
+    public void startHeadless() {
+        if (timerRunning) {
+            throw new IllegalStateException("Timer is already Running!");
+        }
+        timerRunning = true;
+        headless = true;
     }
 
     /**
@@ -197,7 +251,9 @@ public class GameTimer extends TimerTask {
             throw new IllegalStateException("Timer is not Running!");
         }
         timerRunning = false;
-        timer.cancel();
+        if (scheduler != null) {
+            scheduler.stop();
+        }
     }
 
     /**
@@ -208,6 +264,22 @@ public class GameTimer extends TimerTask {
         return TICK_RATE;
     }
 
+    /**
+     * Gets the number of ticks the timer has run.
+     * @return The current tick.
+     */
+    public int getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Gets how well the tick loop has kept to its schedule.
+     * @return The tick metrics, null if the timer was started headless or hasn't started.
+     */
+    public TickMetrics getMetrics() {
+        return scheduler == null ? null : scheduler.getMetrics();
+    }
+
     /**
      * Check if the timer is running.
      * @return Whether the timer is running.
@@ -0,0 +1,206 @@
+package swan.g09.cs230a2;
+
+/**
+ * A hierarchical {@link PathFinder} (HPA*) for very large levels, searching the abstract
+ * {@link ClusterGraph} of the level rather than its cells. The start and goal are joined
+ * to the nodes of their clusters by searching inside those clusters only, then A* finds
+ * the cheapest way between them through the nodes, and only the first part of the path,
+ * inside the start's cluster, is turned back into cells. A search touches two clusters
+ * and a few nodes for each cluster between the start and the goal, however big the level is.
+ *
+ * <p>A start and goal in the same cluster which can reach each other inside it take the
+ * path inside the cluster. Paths are nearly, but not always, as short as the shortest
+ * path, since they must pass through the nodes.</p>
+ *
+ * @version 0.1
+ */
+final class HierarchicalPathFinder extends AStarPathFinder {
+
+    /**
+     * The path finder of each thread.
+     */
+    private static final ThreadLocal<HierarchicalPathFinder> FINDERS =
+            ThreadLocal.withInitial(HierarchicalPathFinder::new);
+
+    /**
+     * The number of cells in a cluster.
+     */
+    private static final int CLUSTER_CELLS = ClusterGraph.CLUSTER_SIZE * ClusterGraph.CLUSTER_SIZE;
+
+    /**
+     * The distance of each cell of the start's cluster from the start.
+     */
+    private final int[] startDistance = new int[CLUSTER_CELLS];
+
+    /**
+     * The distance of each cell of the goal's cluster from the goal.
+     */
+    private final int[] goalDistance = new int[CLUSTER_CELLS];
+
+    /**
+     * The rows of bits of a search of a cluster.
+     */
+    private final int[] rows = new int[ClusterGraph.SEARCH_ROWS];
+
+    /**
+     * The graph being searched.
+     */
+    private ClusterGraph graph;
+
+    /**
+     * The index of the start of the current search.
+     */
+    private int startCell;
+
+    /**
+     * The cluster of the start of the current search.
+     */
+    private int startCluster;
+
+    /**
+     * The index of the goal of the current search.
+     */
+    private int goalCell;
+
+    /**
+     * The cluster of the goal of the current search.
+     */
+    private int goalCluster;
+
+    /**
+     * Gets the calling thread's path finder, set to search a graph.
+     * @param graph The graph of the level to search.
+     * @return The path finder.
+     */
+    static HierarchicalPathFinder forGraph(ClusterGraph graph) {
+        HierarchicalPathFinder finder = FINDERS.get();
+        finder.resize(graph.getWidth(), graph.getHeight());
+        finder.graph = graph;
+        return finder;
+    }
+
+    /**
+     * Finds the first step of a nearly shortest path between two cells.
+     * @param start The packed cell to start from, which doesn't need to be walkable.
+     * @param goal The packed cell to reach.
+     * @param grid The cells which can be walked through, including the goal, refreshed on this tick.
+     * @return The packed cell to step into next, or {@link #NO_PATH} if the goal can't be reached.
+     */
+    @Override
+    public int findFirstStep(int start, int goal, WalkableGrid grid) {
+        int startX = Coordinate.getX(start);
+        int startY = Coordinate.getY(start);
+        int goalX = Coordinate.getX(goal);
+        int goalY = Coordinate.getY(goal);
+        if (start == goal || !grid.isOpen(goalX, goalY)
+                || startX < 0 || startY < 0 || startX >= getWidth() || startY >= getHeight()) {
+            return NO_PATH;
+        }
+        graph.refresh();
+
+        startCell = startY * getWidth() + startX;
+        startCluster = graph.getClusterOf(startX, startY);
+        goalCell = goalY * getWidth() + goalX;
+        goalCluster = graph.getClusterOf(goalX, goalY);
+        graph.searchCluster(startCluster, startCell, startDistance, rows);
+        if (startCluster == goalCluster
+                && startDistance[graph.toLocal(startCluster, goalCell)] != ClusterGraph.UNREACHABLE) {
+            return stepTowards(goalCell);
+        }
+        graph.searchCluster(goalCluster, goalCell, goalDistance, rows);
+        return super.findFirstStep(start, goal, grid);
+    }
+
+    /**
+     * Reaches the nodes a cell leads to: the nodes of the start's cluster from the start,
+     * and from a node, the other nodes of its cluster, the cells across its borders, and
+     * the goal if the node is in the goal's cluster.
+     * @param cell The index of the cell being expanded.
+     * @param goalX The x coordinate of the goal.
+     * @param goalY The y coordinate of the goal.
+     * @param grid The cells which can be walked through.
+     */
+    @Override
+    void expand(int cell, int goalX, int goalY, WalkableGrid grid) {
+        int cost = getCost(cell);
+        if (cell == startCell) {
+            for (int node : graph.getNodes(startCluster)) {
+                int distance = startDistance[graph.toLocal(startCluster, node)];
+                if (node != cell && distance != ClusterGraph.UNREACHABLE) {
+                    reach(node, cell, cost + distance, goalX, goalY);
+                }
+            }
+        }
+
+        int cluster = graph.getClusterOf(cell % getWidth(), cell / getWidth());
+        int index = graph.indexOfNode(cluster, cell);
+        if (index != -1) {
+            int[] nodes = graph.getNodes(cluster);
+            int[] distances = graph.getDistances(cluster);
+            for (int i = 0; i < nodes.length; i++) {
+                int distance = distances[index * nodes.length + i];
+                if (i != index && distance != ClusterGraph.UNREACHABLE) {
+                    reach(nodes[i], cell, cost + distance, goalX, goalY);
+                }
+            }
+            int[] partners = graph.getPartners(cluster);
+            for (int i = 2 * index; i < 2 * index + 2; i++) {
+                if (partners[i] != -1) {
+                    reach(partners[i], cell, cost + 1, goalX, goalY);
+                }
+            }
+        }
+        if (cluster == goalCluster) {
+            int distance = goalDistance[graph.toLocal(goalCluster, cell)];
+            if (distance != ClusterGraph.UNREACHABLE) {
+                reach(goalCell, cell, cost + distance, goalX, goalY);
+            }
+        }
+    }
+
+    /**
+     * Turns the part of the path inside the start's cluster back into cells, to find the first step.
+     * @param source The index of the start.
+     * @param target The index of the goal.
+     * @return The packed cell of the first step.
+     */
+    @Override
+    int firstStep(int source, int target) {
+        int cell = target;
+        while (getParent(cell) != source) {
+            cell = getParent(cell);
+        }
+        int width = getWidth();
+        if (graph.getClusterOf(cell % width, cell / width) == startCluster) {
+            return stepTowards(cell);
+        }
+        // Only a node's partner across the border is reached from outside the start's cluster
+        return Coordinate.pack(cell % width, cell / width);
+    }
+
+    /**
+     * Walks back along the path inside the start's cluster from a cell to the start, to find the first step.
+     * @param cell The index of a cell of the start's cluster reached by the search from the start.
+     * @return The packed cell of the first step.
+     */
+    private int stepTowards(int cell) {
+        int size = ClusterGraph.CLUSTER_SIZE;
+        int local = graph.toLocal(startCluster, cell);
+        int x = local % size;
+        int y = local / size;
+        while (startDistance[y * size + x] > 1) {
+            int closer = startDistance[y * size + x] - 1;
+            for (int i = 0; i < STEP_X.length; i++) {
+                int nextX = x + STEP_X[i];
+                int nextY = y + STEP_Y[i];
+                if (nextX >= 0 && nextY >= 0 && nextX < size && nextY < size
+                        && startDistance[nextY * size + nextX] == closer) {
+                    x = nextX;
+                    y = nextY;
+                    break;
+                }
+            }
+        }
+        return Coordinate.pack(graph.getClusterX(startCluster) + x, graph.getClusterY(startCluster) + y);
+    }
+}
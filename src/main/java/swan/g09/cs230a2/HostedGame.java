@@ -0,0 +1,239 @@
+package swan.g09.cs230a2;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javafx.scene.input.KeyCode;
+
+/**
+ * A headless game run by a {@link GameHost}, ticked on the host's scheduler threads.
+ * Records {@link TickMetrics} for its ticks, and catches up on missed ticks with the same
+ * bounded policy as {@link TickScheduler}, skipping any more than
+ * {@link TickScheduler#MAX_CATCH_UP_TICKS} behind.
+ * Other threads control the game by posting actions, which run on the game's
+ * tick thread, with its session bound, before the next tick.
+ *
+ * @version 0.1
+ */
+public class HostedGame implements Runnable {
+
+    /**
+     * The time between ticks, in nanoseconds.
+     */
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(GameTimer.getTickRate());
+
+    /**
+     * The host running this game.
+     */
+    private final GameHost host;
+
+    /**
+     * The session holding the game's state.
+     */
+    private final GameSession session;
+
+    /**
+     * Actions posted by other threads, waiting for the next tick.
+     */
+    private final ConcurrentLinkedQueue<Runnable> actions = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Runs a single tick, kept so binding the session each tick doesn't allocate.
+     */
+    private final Runnable tickTask = this::tick;
+
+    /**
+     * The scheduled ticks of this game, cancelled when it finishes.
+     */
+    private volatile Future<?> scheduledTicks;
+
+    /**
+     * The time the next tick should start, from {@link System#nanoTime()}.
+     */
+    private long nextDeadline;
+
+    /**
+     * The metrics recorded for the ticks run.
+     */
+    private final TickMetrics metrics = new TickMetrics(TICK_NANOS);
+
+    /**
+     * The exception which stopped the game, if it crashed.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * Whether the game has finished.
+     */
+    private volatile boolean finished;
+
+    /**
+     * Loads a level into a new session and starts it headless.
+     * @param host The host running the game.
+     * @param levelPath The path of the level file.
+     * @throws IOException if the level can't be read
+     * @throws IllegalStateException if the level couldn't be loaded
+     */
+    HostedGame(GameHost host, String levelPath) throws IOException, IllegalStateException {
+        this.host = host;
+        session = new GameSession();
+        try {
+            session.call(() -> {
+                GameManager.loadLevel(levelPath, null, false);
+                GameManager.startHeadlessGame();
+                return null;
+            });
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not start level: " + e);
+        }
+        nextDeadline = System.nanoTime() + TICK_NANOS;
+    }
+
+    /**
+     * Sets the scheduled ticks of the game, so they can be cancelled when it finishes.
+     * @param ticksFuture The scheduled ticks.
+     */
+    void schedule(Future<?> ticksFuture) {
+        scheduledTicks = ticksFuture;
+        if (finished) {
+            ticksFuture.cancel(false);
+        }
+    }
+
+    /**
+     * Runs one tick of the game, with its session bound. Called by the host's scheduler.
+     */
+    @Override
+    public void run() {
+        if (!finished) {
+            session.run(tickTask);
+        }
+    }
+
+    /**
+     * Runs posted actions and a tick, and records how late and how long the tick was.
+     * The scheduler runs missed ticks back to back, so runs for ticks which were
+     * skipped arrive early and are ignored.
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        if (start < nextDeadline - TICK_NANOS / 2) {
+            return;
+        }
+        long behind = (start - nextDeadline) / TICK_NANOS;
+        if (behind > TickScheduler.MAX_CATCH_UP_TICKS) {
+            long skipped = behind - TickScheduler.MAX_CATCH_UP_TICKS;
+            metrics.recordSkipped(skipped);
+            nextDeadline += skipped * TICK_NANOS;
+        }
+        long late = start - nextDeadline;
+        nextDeadline += TICK_NANOS;
+
+        try {
+            Runnable action = actions.poll();
+            while (action != null) {
+                action.run();
+                action = actions.poll();
+            }
+            session.gameTimer.run();
+        } catch (RuntimeException e) {
+            failure = e;
+            stop();
+            return;
+        }
+
+        metrics.recordTick(late, System.nanoTime() - start);
+
+        if (!session.gameTimer.isRunning()) {
+            stop();
+        }
+    }
+
+    /**
+     * Queues an action to run with the game's session bound, before its next tick.
+     * @param action The action to run.
+     */
+    public void post(Runnable action) {
+        actions.add(action);
+    }
+
+    /**
+     * Presses a key before the next tick.
+     * @param keyCode The key code to press.
+     */
+    public void pressKey(KeyCode keyCode) {
+        post(() -> InputManager.pressKey(keyCode));
+    }
+
+    /**
+     * Releases a key before the next tick.
+     * @param keyCode The key code to release.
+     */
+    public void releaseKey(KeyCode keyCode) {
+        post(() -> InputManager.releaseKey(keyCode));
+    }
+
+    /**
+     * Stops ticking the game and frees its slot in the host.
+     */
+    public void stop() {
+        finished = true;
+        Future<?> future = scheduledTicks;
+        if (future != null) {
+            future.cancel(false);
+        }
+        host.release(this);
+    }
+
+    /**
+     * Gets the session holding the game's state.
+     * @return The game's session.
+     */
+    public GameSession getSession() {
+        return session;
+    }
+
+    /**
+     * Checks if the game has finished, because it was won, lost, stopped or crashed.
+     * @return true if the game is no longer being ticked.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Checks if the game was won.
+     * @return true if the level was won.
+     */
+    public boolean isLevelWon() {
+        return session.levelWon;
+    }
+
+    /**
+     * Gets how the player died.
+     * @return The death state, null if the player hasn't died.
+     */
+    public GameManager.DeathState getDeathState() {
+        return session.lastDeathState;
+    }
+
+    /**
+     * Gets the exception which crashed the game.
+     * @return The exception, null if the game hasn't crashed.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Gets how well the game's ticks have kept to their schedule.
+     * @return The game's tick metrics.
+     */
+    public TickMetrics getMetrics() {
+        return metrics;
+    }
+}
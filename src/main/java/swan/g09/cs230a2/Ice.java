@@ -25,14 +25,9 @@ public class Ice extends ActionTile {
     private Actor actorOnTop;
 
     /**
-     * The number of times the ice has been ticked.
+     * Pushes the actor on top, kept so buffering a push doesn't allocate.
      */
-    private int currentTick = 0;
-
-    /**
-     * The tick the actor walked onto this tile.
-     */
-    private int actorWalkedOnTick = 0;
+    private final Runnable pushTask = this::pushActor;
 
     /**
      * Default constructor for class Ice.
@@ -95,27 +90,27 @@ public class Ice extends ActionTile {
     }
 
     /**
-     * Moves the actor at each tick.
+     * Moves the actor on top, once it has been on the ice for the move interval.
      * Changes the direction of the actors movements if a corner is encountered.
      */
     @Override
     public void tick() {
-        currentTick++;
+        // The player picks up items and opens doors as it checks its move, which isn't
+        // buffered, so the player is pushed along with the other changes made this tick
+        if (actorOnTop instanceof Player) {
+            GameManager.applyChange(pushTask);
+        } else {
+            pushActor();
+        }
+    }
 
+    /**
+     * Pushes the actor on top of the ice, bouncing it if it can't carry on.
+     */
+    private void pushActor() {
         // If there is an actor on top of the ice, move it
         if (actorOnTop != null) {
-            int adjustedMoveInterval = MOVE_INTERVAL;
-
-            // If the actor moved east or right from another tile, wait another tick to account for update order.
             Direction actorDir = actorOnTop.getFacingDir();
-            if (actorDir == Direction.EAST || actorDir == Direction.SOUTH) {
-                adjustedMoveInterval++;
-            }
-
-            // Don't move the actor if it hasn't been long enough yet
-            if (currentTick - actorWalkedOnTick < adjustedMoveInterval) {
-                return;
-            }
 
             // Determine direction based on the ice type and actor direction
             Direction newDirection = determineNextDirection(actorDir);
@@ -133,10 +128,23 @@ public class Ice extends ActionTile {
             if (actorOnTop.checkMove(bounceDirection)) {
                 actorOnTop.setFacingDir(bounceDirection);
                 actorOnTop.move(bounceDirection);
+                return;
             }
+
+            // Stuck, so try again next tick
+            GameManager.scheduleWake(this, 1);
         }
     }
 
+    /**
+     * Ice moves the actor on top of it when ticked.
+     * @return true
+     */
+    @Override
+    public boolean isTickable() {
+        return true;
+    }
+
     /**
      * Allow the actors to be turned when moving on an ice corner tile.
      * @param dir The original direction.
@@ -183,7 +191,7 @@ public class Ice extends ActionTile {
         if (a.getType() == TileType.PLAYER || a.getType() == TileType.BLOCK) {
             a.setTrapped(true);
             actorOnTop = a;
-            actorWalkedOnTick = currentTick;
+            GameManager.scheduleWake(this, MOVE_INTERVAL);
         }
 
     }
@@ -6,44 +6,30 @@ import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 
 /**
  * The InputManager class allows other classes to create handlers for input events
  * it provides static helper functions for other parts of the program.
  * Automatically triggers event handlers when provided with a JavaFX scene.
+ * Handlers and pressed keys belong to the current {@link GameSession}; key events
+ * from the scene go to the default session.
  *
  * @author Barnaby Morley-Smith
  * @version 0.1
  */
 public class InputManager {
-    /**
-     * Stores a mapping from key codes to a list of handlers to run when a key is pressed.
-     */
-    private static final HashMap<KeyCode, ArrayList<Runnable>> KEYDOWN_HANDLERS = new HashMap<>();
-    /**
-     * Stores a mapping from key codes to a list of handlers to run when a key is released.
-     */
-    private static final HashMap<KeyCode, ArrayList<Runnable>> KEYUP_HANDLERS = new HashMap<>();
-    /**
-     * Stores a mapping from key codes to a list of handlers to run every tick a key is pressed down.
-     */
-    private static final HashMap<KeyCode, ArrayList<Runnable>> TICK_HANDLERS = new HashMap<>();
-    /**
-     * Stores the currently pressed keys.
-     */
-    private static final HashSet<KeyCode> PRESSED_KEYS = new HashSet<>();
 
     /**
      * EventHandler for handling general key events from the scene.
      * Runs the relevant handlers for specific events.
      */
     private static final EventHandler<? super KeyEvent> KEY_EVENT_HANDLER = (KeyEvent keyEvent) -> {
+        GameSession session = GameSession.current();
+
         // Key-down handlers
         if (keyEvent.getEventType() == KeyEvent.KEY_PRESSED) {
             // Get list of handlers for the event key code
-            ArrayList<Runnable> handlers = KEYDOWN_HANDLERS.get(keyEvent.getCode());
+            ArrayList<Runnable> handlers = session.keydownHandlers.get(keyEvent.getCode());
             if (handlers != null) {
                 // Run each handler individually
                 for (Runnable handler : handlers) {
@@ -52,13 +38,13 @@ public class InputManager {
             }
 
             // Add key to list of pressed keys
-            PRESSED_KEYS.add(keyEvent.getCode());
+            session.pressedKeys.add(keyEvent.getCode());
         }
 
         // Key-up handlers
         if (keyEvent.getEventType() == KeyEvent.KEY_RELEASED) {
             // Get list of handlers for the event key code
-            ArrayList<Runnable> handlers = KEYDOWN_HANDLERS.get(keyEvent.getCode());
+            ArrayList<Runnable> handlers = session.keydownHandlers.get(keyEvent.getCode());
             if (handlers != null) {
                 // Run each handler individually
                 for (Runnable handler : handlers) {
@@ -67,7 +53,7 @@ public class InputManager {
             }
 
             // Remove key from list of pressed keys
-            PRESSED_KEYS.remove(keyEvent.getCode());
+            session.pressedKeys.remove(keyEvent.getCode());
         }
     };
 
@@ -83,15 +69,49 @@ public class InputManager {
      * @param newScene The scene to listen to.
      */
     public static void setScene(Scene newScene) {
+        GameSession session = GameSession.current();
         if (scene != null) {
             scene.removeEventFilter(KeyEvent.ANY, KEY_EVENT_HANDLER);
         }
 
-        PRESSED_KEYS.clear();
+        session.pressedKeys.clear();
         scene = newScene;
         scene.addEventFilter(KeyEvent.ANY, KEY_EVENT_HANDLER);
     }
 
+    /**
+     * Presses a key without needing a scene, such as for a bot driving a headless game.
+     * The key stays pressed, running its tick handlers every tick, until released.
+     *
+     * @param keyCode The key code to press.
+     */
+    public static void pressKey(KeyCode keyCode) {
+        GameSession session = GameSession.current();
+        ArrayList<Runnable> handlers = session.keydownHandlers.get(keyCode);
+        if (handlers != null) {
+            for (Runnable handler : handlers) {
+                handler.run();
+            }
+        }
+        session.pressedKeys.add(keyCode);
+    }
+
+    /**
+     * Releases a key pressed with {@link #pressKey(KeyCode)}.
+     *
+     * @param keyCode The key code to release.
+     */
+    public static void releaseKey(KeyCode keyCode) {
+        GameSession session = GameSession.current();
+        ArrayList<Runnable> handlers = session.keyupHandlers.get(keyCode);
+        if (handlers != null) {
+            for (Runnable handler : handlers) {
+                handler.run();
+            }
+        }
+        session.pressedKeys.remove(keyCode);
+    }
+
     /**
      * De-registers all currently registered event handlers.
      */
@@ -105,21 +125,21 @@ public class InputManager {
      * De-registers event handlers for key-down events.
      */
     public static void clearKeydownHandlers() {
-        KEYDOWN_HANDLERS.clear();
+        GameSession.current().keydownHandlers.clear();
     }
 
     /**
      * De-registers event handlers for key-up events.
      */
     public static void clearKeyupHandlers() {
-        KEYUP_HANDLERS.clear();
+        GameSession.current().keyupHandlers.clear();
     }
 
     /**
      * De-registers event handlers for tick-based events.
      */
     public static void clearTickHandlers() {
-        TICK_HANDLERS.clear();
+        GameSession.current().tickHandlers.clear();
     }
 
     /**
@@ -129,13 +149,14 @@ public class InputManager {
      * @param handler The handler to be run when events are received.
      */
     public static void addKeydownHandler(KeyCode keyCode, Runnable handler) {
+        GameSession session = GameSession.current();
         // Ensure a list of handlers exists in the map for the specified key code
-        if (!KEYDOWN_HANDLERS.containsKey(keyCode)) {
-            KEYDOWN_HANDLERS.put(keyCode, new ArrayList<>());
+        if (!session.keydownHandlers.containsKey(keyCode)) {
+            session.keydownHandlers.put(keyCode, new ArrayList<>());
         }
 
         // Add the handler to the list
-        ArrayList<Runnable> list = KEYDOWN_HANDLERS.get(keyCode);
+        ArrayList<Runnable> list = session.keydownHandlers.get(keyCode);
         list.add(handler);
     }
 
@@ -146,13 +167,14 @@ public class InputManager {
      * @param handler The handler to be run when events are received.
      */
     public static void addKeyupHandler(KeyCode keyCode, Runnable handler) {
+        GameSession session = GameSession.current();
         // Ensure a list of handlers exists in the map for the specified key code
-        if (!KEYUP_HANDLERS.containsKey(keyCode)) {
-            KEYUP_HANDLERS.put(keyCode, new ArrayList<>());
+        if (!session.keyupHandlers.containsKey(keyCode)) {
+            session.keyupHandlers.put(keyCode, new ArrayList<>());
         }
 
         // Add the handler to the list
-        ArrayList<Runnable> list = KEYUP_HANDLERS.get(keyCode);
+        ArrayList<Runnable> list = session.keyupHandlers.get(keyCode);
         list.add(handler);
     }
 
@@ -163,13 +185,14 @@ public class InputManager {
      * @param handler The handler to be run when events are received.
      */
     public static void addTickHandler(KeyCode keyCode, Runnable handler) {
+        GameSession session = GameSession.current();
         // Ensure a list of handlers exists in the map for the specified key code
-        if (!TICK_HANDLERS.containsKey(keyCode)) {
-            TICK_HANDLERS.put(keyCode, new ArrayList<>());
+        if (!session.tickHandlers.containsKey(keyCode)) {
+            session.tickHandlers.put(keyCode, new ArrayList<>());
         }
 
         // Add the handler to the list
-        ArrayList<Runnable> list = TICK_HANDLERS.get(keyCode);
+        ArrayList<Runnable> list = session.tickHandlers.get(keyCode);
         list.add(handler);
     }
 
@@ -178,10 +201,15 @@ public class InputManager {
      * Method run by Timer to trigger tick-based event handlers.
      */
     public static void tick() {
+        GameSession session = GameSession.current();
+        // Don't make an iterator on the many ticks with no keys down
+        if (session.pressedKeys.isEmpty()) {
+            return;
+        }
         // Iterate over currently pressed down keys
-        for (KeyCode keyCode : PRESSED_KEYS) {
+        for (KeyCode keyCode : session.pressedKeys) {
             // Get list of handlers for key code
-            ArrayList<Runnable> handlers = TICK_HANDLERS.get(keyCode);
+            ArrayList<Runnable> handlers = session.tickHandlers.get(keyCode);
             if (handlers != null) {
                 // Run each handler individually
                 for (Runnable handler : handlers) {
@@ -0,0 +1,209 @@
+package swan.g09.cs230a2;
+
+/**
+ * A jump point search {@link PathFinder} for levels with large open areas, where A*
+ * expands many cells along paths which are all equally short. Rather than opening every
+ * neighbour, a search keeps going in a straight line and only opens the cell where the line
+ * reaches the goal, passes an obstacle which makes a turn worth taking, or, for lines
+ * going north or south, where a line going east or west from it would do either. This gives
+ * paths of the same length as A* while expanding far fewer cells.
+ *
+ * <p>Lines are scanned a word of the {@link WalkableGrid} at a time, finding the first
+ * cell which is blocked or worth opening with bit operations rather than testing each cell.</p>
+ *
+ * @version 0.1
+ */
+final class JumpPointPathFinder extends AStarPathFinder {
+
+    /**
+     * The path finder of each thread.
+     */
+    private static final ThreadLocal<JumpPointPathFinder> FINDERS =
+            ThreadLocal.withInitial(JumpPointPathFinder::new);
+
+    /**
+     * Returned from a jump or scan which didn't find a cell to open.
+     */
+    private static final int NO_JUMP = -1;
+
+    /**
+     * The cells which can be walked through, during a search.
+     */
+    private WalkableGrid walkable;
+
+    /**
+     * Gets the calling thread's path finder, sized for a level.
+     * @param levelWidth The width of the level.
+     * @param levelHeight The height of the level.
+     * @return The path finder.
+     */
+    static JumpPointPathFinder forLevel(int levelWidth, int levelHeight) {
+        JumpPointPathFinder finder = FINDERS.get();
+        finder.resize(levelWidth, levelHeight);
+        return finder;
+    }
+
+    /**
+     * Finds the first step of a shortest path between two cells.
+     * @param start The packed cell to start from, which doesn't need to be walkable.
+     * @param goal The packed cell to reach.
+     * @param grid The cells which can be walked through, including the goal, refreshed on this tick.
+     * @return The packed cell to step into next, or {@link #NO_PATH} if the goal can't be reached.
+     */
+    @Override
+    public int findFirstStep(int start, int goal, WalkableGrid grid) {
+        walkable = grid;
+        try {
+            return super.findFirstStep(start, goal, grid);
+        } finally {
+            walkable = null;
+        }
+    }
+
+    /**
+     * Reaches the next cell worth opening in each direction, apart from back the way the search came.
+     * @param cell The index of the cell being expanded.
+     * @param goalX The x coordinate of the goal.
+     * @param goalY The y coordinate of the goal.
+     * @param grid The cells which can be walked through.
+     */
+    @Override
+    void expand(int cell, int goalX, int goalY, WalkableGrid grid) {
+        int width = getWidth();
+        int x = cell % width;
+        int y = cell / width;
+        int from = getParent(cell);
+        int backX = 0;
+        int backY = 0;
+        if (from != -1) {
+            backX = Integer.signum(from % width - x);
+            backY = Integer.signum(from / width - y);
+        }
+
+        for (int i = 0; i < STEP_X.length; i++) {
+            int stepX = STEP_X[i];
+            int stepY = STEP_Y[i];
+            if (from != -1 && stepX == backX && stepY == backY) {
+                continue;
+            }
+            int point;
+            if (stepX != 0) {
+                point = jumpAcross(x + stepX, y, stepX, goalX, goalY);
+            } else {
+                point = jumpDown(x, y + stepY, stepY, goalX, goalY);
+            }
+            if (point != NO_JUMP) {
+                int length = Math.abs(point % width - x) + Math.abs(point / width - y);
+                reach(point, cell, getCost(cell) + length, goalX, goalY);
+            }
+        }
+    }
+
+    /**
+     * Goes east or west in a straight line until reaching the goal or a cell with a turn worth taking.
+     * @param startX The x coordinate of the first cell of the line.
+     * @param y The y coordinate of the line.
+     * @param stepX The change in x of each step.
+     * @param goalX The x coordinate of the goal.
+     * @param goalY The y coordinate of the goal.
+     * @return The index of the cell to open, or {@link #NO_JUMP} if the line reaches an obstacle first.
+     */
+    private int jumpAcross(int startX, int y, int stepX, int goalX, int goalY) {
+        if (startX < 0 || startX >= getWidth()) {
+            return NO_JUMP;
+        }
+        int x = scan(false, y, startX, stepX, goalY == y ? goalX : NO_JUMP);
+        return x != NO_JUMP && walkable.isOpen(x, y) ? y * getWidth() + x : NO_JUMP;
+    }
+
+    /**
+     * Goes north or south in a straight line until reaching the goal, a cell with a turn
+     * worth taking, or a cell from which going east or west would reach either.
+     * @param x The x coordinate of the line.
+     * @param startY The y coordinate of the first cell of the line.
+     * @param stepY The change in y of each step.
+     * @param goalX The x coordinate of the goal.
+     * @param goalY The y coordinate of the goal.
+     * @return The index of the cell to open, or {@link #NO_JUMP} if the line reaches an obstacle first.
+     */
+    private int jumpDown(int x, int startY, int stepY, int goalX, int goalY) {
+        if (startY < 0 || startY >= getHeight()) {
+            return NO_JUMP;
+        }
+        int end = scan(true, x, startY, stepY, goalX == x ? goalY : NO_JUMP);
+        int last = end;
+        if (end == NO_JUMP) {
+            last = stepY > 0 ? getHeight() : -1;
+        }
+        for (int y = startY; y != last; y += stepY) {
+            if (jumpAcross(x + 1, y, 1, goalX, goalY) != NO_JUMP || jumpAcross(x - 1, y, -1, goalX, goalY) != NO_JUMP) {
+                return y * getWidth() + x;
+            }
+        }
+        return end != NO_JUMP && walkable.isOpen(x, end) ? end * getWidth() + x : NO_JUMP;
+    }
+
+    /**
+     * Finds the first cell along a line which is blocked, is the goal, or has a neighbour to
+     * the side which can be walked through while the cell to that side one step back can't.
+     * @param vertical true to scan a column, false to scan a row.
+     * @param line The x coordinate of the column, or the y coordinate of the row.
+     * @param start The position along the line to start from.
+     * @param step 1 to scan forwards along the line, -1 to scan backwards.
+     * @param goal The position of the goal along the line, {@link #NO_JUMP} if it isn't on the line.
+     * @return The position of the cell, or {@link #NO_JUMP} if the line ends first.
+     */
+    private int scan(boolean vertical, int line, int start, int step, int goal) {
+        int words = walkable.getWordCount(vertical);
+        int word = start >>> WalkableGrid.WORD_SHIFT;
+        int bit = start & WalkableGrid.BIT_MASK;
+        int goalWord = goal == NO_JUMP ? NO_JUMP : goal >>> WalkableGrid.WORD_SHIFT;
+        int last = Long.SIZE - 1;
+
+        if (step > 0) {
+            // Carry in the last bit of the word before, the cells one step back from the first of this word
+            long backBefore = word > 0 ? walkable.getWord(vertical, line - 1, word - 1) >>> last : 0;
+            long backAfter = word > 0 ? walkable.getWord(vertical, line + 1, word - 1) >>> last : 0;
+            long mask = -1L << bit;
+            for (; word < words; word++) {
+                long open = walkable.getWord(vertical, line, word);
+                long before = walkable.getWord(vertical, line - 1, word);
+                long after = walkable.getWord(vertical, line + 1, word);
+                long stops = ~open | before & ~(before << 1 | backBefore) | after & ~(after << 1 | backAfter);
+                if (word == goalWord) {
+                    stops |= 1L << (goal & WalkableGrid.BIT_MASK);
+                }
+                stops &= mask;
+                if (stops != 0) {
+                    return word << WalkableGrid.WORD_SHIFT | Long.numberOfTrailingZeros(stops);
+                }
+                backBefore = before >>> last;
+                backAfter = after >>> last;
+                mask = -1L;
+            }
+            return NO_JUMP;
+        }
+
+        // Carry in the first bit of the word after, the cells one step back from the last of this word
+        long backBefore = word + 1 < words ? walkable.getWord(vertical, line - 1, word + 1) << last : 0;
+        long backAfter = word + 1 < words ? walkable.getWord(vertical, line + 1, word + 1) << last : 0;
+        long mask = -1L >>> (last - bit);
+        for (; word >= 0; word--) {
+            long open = walkable.getWord(vertical, line, word);
+            long before = walkable.getWord(vertical, line - 1, word);
+            long after = walkable.getWord(vertical, line + 1, word);
+            long stops = ~open | before & ~(before >>> 1 | backBefore) | after & ~(after >>> 1 | backAfter);
+            if (word == goalWord) {
+                stops |= 1L << (goal & WalkableGrid.BIT_MASK);
+            }
+            stops &= mask;
+            if (stops != 0) {
+                return word << WalkableGrid.WORD_SHIFT | last - Long.numberOfLeadingZeros(stops);
+            }
+            backBefore = before << last;
+            backAfter = after << last;
+            mask = -1L;
+        }
+        return NO_JUMP;
+    }
+}
@@ -0,0 +1,363 @@
+package swan.g09.cs230a2;
+
+import java.util.Arrays;
+
+/**
+ * The distance from a few landmark cells to every cell of the level, giving A* a much better
+ * estimate than the Manhattan distance on levels with many walls (the ALT heuristic).
+ * By the triangle inequality, the distance between two cells is at least the difference
+ * between their distances from any landmark, so the estimate is the largest such difference,
+ * and never less than the Manhattan distance.
+ *
+ * <p>Landmarks are chosen when the table is built, each as far as possible from the ones
+ * before it, so they lie around the edges of the level where they help the most. The
+ * distances are stored landmark by landmark for each cell, so an estimate reads one short
+ * run of the table.</p>
+ *
+ * <p>Closing a cell only makes paths longer, so the table keeps counting the cell as walkable
+ * and its estimates stay below the true distances. When a cell opens, paths through it may
+ * get shorter, so the next time the table is refreshed, the table counts it as walkable and
+ * spreads the shorter distances out from it, visiting only the cells which got closer to a
+ * landmark. If many cells have opened, the table is built again instead.</p>
+ *
+ * @version 0.1
+ */
+final class LandmarkTable {
+
+    /**
+     * The distance of a cell which can't be reached from a landmark.
+     */
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The most landmarks a table has.
+     */
+    private static final int MAX_LANDMARKS = 8;
+
+    /**
+     * The most cells which can open between refreshes before the table is built again, rather than updated.
+     */
+    private static final int REBUILD_LIMIT = 64;
+
+    /**
+     * The change in x of each step, north, east, south and west.
+     */
+    private static final int[] STEP_X = {0, 1, 0, -1};
+
+    /**
+     * The change in y of each step, north, east, south and west.
+     */
+    private static final int[] STEP_Y = {-1, 0, 1, 0};
+
+    /**
+     * The cells which can be walked through.
+     */
+    private final WalkableGrid grid;
+
+    /**
+     * The width of the level.
+     */
+    private final int width;
+
+    /**
+     * The height of the level.
+     */
+    private final int height;
+
+    /**
+     * The number of landmarks.
+     */
+    private final int landmarkCount;
+
+    /**
+     * The distance from each landmark to each cell, the landmarks of a cell next to each other.
+     */
+    private final int[] distances;
+
+    /**
+     * Whether the table counts each cell as walkable: those walkable when it was built, and any opened since.
+     */
+    private final boolean[] counted;
+
+    /**
+     * The distance from the nearest landmark chosen so far to each cell, while choosing landmarks.
+     */
+    private final int[] nearest;
+
+    /**
+     * The distance of each cell from the landmark being searched from.
+     */
+    private final int[] reached;
+
+    /**
+     * The cells waiting to be searched from, as a queue.
+     */
+    private final int[] queue;
+
+    /**
+     * The index of each cell which has opened since the table was last refreshed.
+     */
+    private final int[] opened = new int[REBUILD_LIMIT];
+
+    /**
+     * The number of cells which have opened since the table was last refreshed, which may be more than are kept.
+     */
+    private int openedCount;
+
+    /**
+     * Whether a cell has opened since the table was last refreshed.
+     */
+    private volatile boolean stale;
+
+    /**
+     * The time the table was last built in, in nanoseconds.
+     */
+    private long buildNanos;
+
+    /**
+     * Creates a table for a level and builds it.
+     * @param grid The cells which can be walked through.
+     */
+    LandmarkTable(WalkableGrid grid) {
+        this.grid = grid;
+        width = grid.getWidth();
+        height = grid.getHeight();
+        int cells = width * height;
+        landmarkCount = Math.min(MAX_LANDMARKS, grid.getOpenCount());
+        distances = new int[cells * landmarkCount];
+        counted = new boolean[cells];
+        nearest = new int[cells];
+        reached = new int[cells];
+        queue = new int[cells];
+        build();
+        grid.setChangeListener(this::cellChanged);
+    }
+
+    /**
+     * Gets the number of landmarks.
+     * @return The number of landmarks, 0 if no cell can be walked through.
+     */
+    int getLandmarkCount() {
+        return landmarkCount;
+    }
+
+    /**
+     * Gets the number of bytes the distances take up.
+     * @return The size of the table in bytes.
+     */
+    long getTableBytes() {
+        return (long) distances.length * Integer.BYTES;
+    }
+
+    /**
+     * Gets how long the table took to build the last time it was built.
+     * @return The time in nanoseconds.
+     */
+    long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Copies the distances from each landmark to a cell.
+     * @param cell The index of the cell.
+     * @param into The array to copy into, at least as long as the number of landmarks.
+     */
+    void copyDistances(int cell, int[] into) {
+        System.arraycopy(distances, cell * landmarkCount, into, 0, landmarkCount);
+    }
+
+    /**
+     * Estimates the distance between a cell and a goal, never more than the true distance.
+     * @param cell The index of the cell.
+     * @param goal The distances from each landmark to the goal, see {@link #copyDistances(int, int[])}.
+     * @param manhattan The Manhattan distance between the cell and the goal.
+     * @return The estimate.
+     */
+    int estimate(int cell, int[] goal, int manhattan) {
+        int best = manhattan;
+        int base = cell * landmarkCount;
+        for (int i = 0; i < landmarkCount; i++) {
+            int from = distances[base + i];
+            int to = goal[i];
+            if (from != UNREACHABLE && to != UNREACHABLE) {
+                best = Math.max(best, Math.abs(to - from));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Brings the table up to date if cells have opened since it was last refreshed.
+     * The grid should have been refreshed on this tick.
+     */
+    void refresh() {
+        if (!stale) {
+            return;
+        }
+        synchronized (this) {
+            if (!stale) {
+                return;
+            }
+            if (openedCount > REBUILD_LIMIT) {
+                build();
+            } else {
+                for (int i = 0; i < openedCount; i++) {
+                    for (int landmark = 0; landmark < landmarkCount; landmark++) {
+                        spread(opened[i], landmark);
+                    }
+                }
+            }
+            openedCount = 0;
+            stale = false;
+        }
+    }
+
+    /**
+     * Records that a cell has changed whether it can be walked through.
+     * @param position The packed cell which changed.
+     */
+    private synchronized void cellChanged(int position) {
+        if (!grid.test(position)) {
+            return;
+        }
+        if (openedCount < REBUILD_LIMIT) {
+            opened[openedCount] = Coordinate.getY(position) * width + Coordinate.getX(position);
+        }
+        openedCount++;
+        stale = true;
+    }
+
+    /**
+     * Spreads shorter distances from a landmark out from a cell which has opened,
+     * breadth first, to the cells which are now closer to the landmark through it.
+     * @param root The index of the cell which opened.
+     * @param landmark The number of the landmark.
+     */
+    private void spread(int root, int landmark) {
+        counted[root] = true;
+        int rootX = root % width;
+        int rootY = root / width;
+        int best = UNREACHABLE;
+        for (int i = 0; i < STEP_X.length; i++) {
+            int nextX = rootX + STEP_X[i];
+            int nextY = rootY + STEP_Y[i];
+            if (isCounted(nextX, nextY)) {
+                int distance = distances[(nextY * width + nextX) * landmarkCount + landmark];
+                if (distance != UNREACHABLE) {
+                    best = Math.min(best, distance + 1);
+                }
+            }
+        }
+        if (best >= distances[root * landmarkCount + landmark]) {
+            return;
+        }
+
+        // Every cell is lowered at most once, since distances only grow outwards from the root
+        distances[root * landmarkCount + landmark] = best;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        while (head < tail) {
+            int cell = queue[head++];
+            int distance = distances[cell * landmarkCount + landmark] + 1;
+            int x = cell % width;
+            int y = cell / width;
+            for (int i = 0; i < STEP_X.length; i++) {
+                int nextX = x + STEP_X[i];
+                int nextY = y + STEP_Y[i];
+                int next = nextY * width + nextX;
+                if (isCounted(nextX, nextY) && distance < distances[next * landmarkCount + landmark]) {
+                    distances[next * landmarkCount + landmark] = distance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the table counts a cell as walkable.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @return true if the cell is in the level and counted as walkable.
+     */
+    private boolean isCounted(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height && counted[y * width + x];
+    }
+
+    /**
+     * Chooses the landmarks and finds the distance from each of them to every cell.
+     * The first landmark is the cell furthest from the first walkable cell, and each
+     * one after is the cell furthest from its nearest landmark so far.
+     */
+    private void build() {
+        long start = System.nanoTime();
+        for (int cell = 0; cell < counted.length; cell++) {
+            counted[cell] = grid.isOpen(cell % width, cell / width);
+        }
+        int first = findFirstOpen();
+        if (first != -1 && landmarkCount > 0) {
+            // Search from the first walkable cell only to find the first landmark
+            Arrays.fill(nearest, UNREACHABLE);
+            int landmark = search(first, 0);
+            Arrays.fill(nearest, UNREACHABLE);
+            for (int i = 0; i < landmarkCount; i++) {
+                landmark = search(landmark, i);
+            }
+        }
+        buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Finds the first cell in grid order which can be walked through.
+     * @return The index of the cell, -1 if there is none.
+     */
+    private int findFirstOpen() {
+        for (int cell = 0; cell < reached.length; cell++) {
+            if (counted[cell]) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the distance from a landmark to every cell, breadth first.
+     * @param root The index of the landmark's cell.
+     * @param landmark The number of the landmark.
+     * @return The index of the reachable cell furthest from its nearest landmark.
+     */
+    private int search(int root, int landmark) {
+        Arrays.fill(reached, UNREACHABLE);
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        reached[root] = 0;
+        int furthest = root;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int distance = reached[cell];
+            if (distance < nearest[cell]) {
+                nearest[cell] = distance;
+            }
+            if (nearest[cell] > nearest[furthest]) {
+                furthest = cell;
+            }
+            int x = cell % width;
+            int y = cell / width;
+            for (int i = 0; i < STEP_X.length; i++) {
+                int nextX = x + STEP_X[i];
+                int nextY = y + STEP_Y[i];
+                int next = nextY * width + nextX;
+                if (isCounted(nextX, nextY) && reached[next] == UNREACHABLE) {
+                    reached[next] = distance + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        for (int cell = 0; cell < reached.length; cell++) {
+            distances[cell * landmarkCount + landmark] = reached[cell];
+        }
+        return furthest;
+    }
+}
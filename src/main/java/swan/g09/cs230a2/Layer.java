@@ -3,28 +3,66 @@ package swan.g09.cs230a2;
 import javafx.geometry.Point2D;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.EnumMap;
 
 /**
  * The Layer class handles an individual layer of Tile subclasses.
+ * Elements are stored in a flat array indexed by {@code y * width + x}, sized
+ * from the dimensions of the level, so lookups never need to hash a position.
+ * The cells holding each TileType are also indexed, so searching by type only
+ * costs as much as the number of matches.
  *
  * @param <T> The type of Tile to fill the class
  * @author Nation Gurung, Samuel Lomas
- * @version 0.2
+ * @version 0.3
  */
 public class Layer<T> {
 
     /**
-     * Hashmap used to store tiles.
+     * The initial capacity of the list of cells for a tile type.
      */
-    private final Map<Point2D, T> grid;
+    private static final int INITIAL_TYPE_CAPACITY = 8;
 
     /**
-     * The level handling this layer.
+     * Flat array used to store tiles, indexed by {@code y * width + x}.
      */
-    private final Level level;
+    private final Object[] grid;
 
+    /**
+     * The number of columns in the layer.
+     */
+    private final int width;
+
+    /**
+     * The number of rows in the layer.
+     */
+    private final int height;
+
+    /**
+     * The cells holding each type of tile.
+     */
+    private final EnumMap<TileType, CellList> typeIndex = new EnumMap<>(TileType.class);
+
+    /**
+     * For each cell, where it is stored in the CellList for the type of its element.
+     */
+    private final int[] typeSlots;
+
+    /**
+     * An unordered list of cell indices, which can add and remove cells without allocating.
+     */
+    private static final class CellList {
+        /**
+         * The cell indices in the list.
+         */
+        private int[] cells = new int[INITIAL_TYPE_CAPACITY];
+
+        /**
+         * The number of cells in the list.
+         */
+        private int size;
+    }
 
     /**
      * Default constructor for Layer.
@@ -32,8 +70,22 @@ public class Layer<T> {
      * @param l the level handling the layer
      */
     public Layer(Level l) {
-        grid = new HashMap<Point2D, T>();
-        level = l;
+        width = l.getWidth();
+        height = l.getHeight();
+        grid = new Object[width * height];
+        typeSlots = new int[width * height];
+        Coordinate.reserve(width, height);
+    }
+
+    /**
+     * Checks whether a coordinate lies within the bounds of the layer.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return true if the coordinate is inside the layer
+     */
+    public boolean isInBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
     }
 
     /**
@@ -43,7 +95,42 @@ public class Layer<T> {
      * @param element the Tile to insert
      */
     public void setAtPosition(Point2D p, T element) {
-        grid.put(p, element);
+        setAtPosition((int) p.getX(), (int) p.getY(), element);
+    }
+
+    /**
+     * Set a packed position to a tile.
+     *
+     * @param key     the packed position (see {@link Coordinate})
+     * @param element the Tile to insert
+     */
+    public void setAtPosition(int key, T element) {
+        setAtPosition(Coordinate.getX(key), Coordinate.getY(key), element);
+    }
+
+    /**
+     * Set a position (x, y) to a tile.
+     *
+     * @param x       the x coordinate
+     * @param y       the y coordinate
+     * @param element the Tile to insert
+     * @throws IllegalArgumentException if the position is outside the layer
+     */
+    public void setAtPosition(int x, int y, T element) {
+        if (!isInBounds(x, y)) {
+            throw new IllegalArgumentException("Position (" + x + ", " + y + ") is outside the layer!");
+        }
+        int index = y * width + x;
+        unindex(index);
+        grid[index] = element;
+        if (element instanceof Tile tile) {
+            CellList list = typeIndex.computeIfAbsent(tile.getType(), k -> new CellList());
+            if (list.size == list.cells.length) {
+                list.cells = Arrays.copyOf(list.cells, list.size * 2);
+            }
+            typeSlots[index] = list.size;
+            list.cells[list.size++] = index;
+        }
     }
 
     /**
@@ -53,7 +140,37 @@ public class Layer<T> {
      * @return A tile if exists.
      */
     public T getAtPosition(Point2D p) {
-        return grid.get(p);
+        if (p == null) {
+            return null;
+        }
+        return getAtPosition((int) p.getX(), (int) p.getY());
+    }
+
+    /**
+     * Gets the tile at a packed position, null if none or if the position is
+     * outside the layer.
+     *
+     * @param key the packed position to search at (see {@link Coordinate})
+     * @return A tile if exists.
+     */
+    public T getAtPosition(int key) {
+        return getAtPosition(Coordinate.getX(key), Coordinate.getY(key));
+    }
+
+    /**
+     * Gets the tile at a given position, null if none or if the position is
+     * outside the layer.
+     *
+     * @param x the x coordinate to search at
+     * @param y the y coordinate to search at
+     * @return A tile if exists.
+     */
+    @SuppressWarnings("unchecked")
+    public T getAtPosition(int x, int y) {
+        if (!isInBounds(x, y)) {
+            return null;
+        }
+        return (T) grid[y * width + x];
     }
 
     /**
@@ -62,32 +179,130 @@ public class Layer<T> {
      * @param p the position to remove the tile from
      */
     public void removeFromPosition(Point2D p) {
-        grid.remove(p);
+        if (p != null) {
+            removeFromPosition((int) p.getX(), (int) p.getY());
+        }
+    }
+
+    /**
+     * Removes a tile from a packed position, does nothing if outside the layer.
+     *
+     * @param key the packed position to remove the tile from (see {@link Coordinate})
+     */
+    public void removeFromPosition(int key) {
+        removeFromPosition(Coordinate.getX(key), Coordinate.getY(key));
     }
 
     /**
-     * Get a list of all the coordinates that a specific tile type is found at.
+     * Removes a tile from position (x, y), does nothing if outside the layer.
+     *
+     * @param x the x coordinate to remove the tile from
+     * @param y the y coordinate to remove the tile from
+     */
+    public void removeFromPosition(int x, int y) {
+        if (isInBounds(x, y)) {
+            int index = y * width + x;
+            unindex(index);
+            grid[index] = null;
+        }
+    }
+
+    /**
+     * Removes the element currently stored at a cell from the type index.
+     * The last cell of the same type takes its place in the list.
+     *
+     * @param index the index of the cell in the grid
+     */
+    private void unindex(int index) {
+        if (grid[index] instanceof Tile tile) {
+            CellList list = typeIndex.get(tile.getType());
+            int slot = typeSlots[index];
+            int last = list.cells[--list.size];
+            list.cells[slot] = last;
+            typeSlots[last] = slot;
+        }
+    }
+
+    /**
+     * Get a list of all the coordinates that a specific tile type is found at, in row-major order.
      *
      * @param type The type to search for.
      * @return The list of coordinates where matching elements were found.
      */
     public ArrayList<Point2D> findPositionsOf(TileType type) {
         ArrayList<Point2D> list = new ArrayList<>();
-        for (Point2D coordinate : grid.keySet()) {
-            Tile elem = (Tile) grid.get(coordinate);
-            if (elem.getType() == type) {
-                list.add(coordinate);
+        CellList cells = typeIndex.get(type);
+        if (cells != null) {
+            int[] sorted = Arrays.copyOf(cells.cells, cells.size);
+            Arrays.sort(sorted);
+            for (int index : sorted) {
+                list.add(Coordinate.toPoint(index % width, index / width));
             }
         }
         return list;
     }
 
     /**
-     * Gets all elements as an ArrayList.
+     * Get a coordinate that a specific tile type is found at.
+     * Intended for types with a single instance, such as the player.
+     *
+     * @param type The type to search for.
+     * @return The coordinate of a match, null if there are none.
+     */
+    public Point2D findFirstPositionOf(TileType type) {
+        CellList cells = typeIndex.get(type);
+        if (cells == null || cells.size == 0) {
+            return null;
+        }
+        int index = cells.cells[0];
+        return Coordinate.toPoint(index % width, index / width);
+    }
+
+    /**
+     * Get an element of a specific tile type.
+     * Intended for types with a single instance, such as the player.
+     *
+     * @param type The type to search for.
+     * @return A matching element, null if there are none.
+     */
+    @SuppressWarnings("unchecked")
+    public T findFirstOf(TileType type) {
+        CellList cells = typeIndex.get(type);
+        if (cells == null || cells.size == 0) {
+            return null;
+        }
+        return (T) grid[cells.cells[0]];
+    }
+
+    /**
+     * Gets all elements as an ArrayList, in row-major order.
      * @return An ArrayList of all the elements.
      */
+    @SuppressWarnings("unchecked")
     public ArrayList<T> getAllElements() {
-        return new ArrayList<T>(grid.values());
+        ArrayList<T> list = new ArrayList<>();
+        for (Object elem : grid) {
+            if (elem != null) {
+                list.add((T) elem);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Gets the width of the layer.
+     * @return The number of columns in the layer.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the layer.
+     * @return The number of rows in the layer.
+     */
+    public int getHeight() {
+        return height;
     }
 
     /**
@@ -154,16 +369,15 @@ public class Layer<T> {
      * @return the layer as a string
      */
     public String toString() {
-        String outstr = "";
+        StringBuilder outstr = new StringBuilder();
 
-        for (int y = 0; y < level.getHeight(); y++) {
+        for (int y = 0; y < height; y++) {
 
-            for (int x = 0; x < level.getWidth(); x++) {
-                Point2D pos = new Point2D(x, y);
-                outstr += tileToChar(grid.get(pos));
+            for (int x = 0; x < width; x++) {
+                outstr.append(tileToChar(getAtPosition(x, y)));
             }
-            outstr += "\n";
+            outstr.append("\n");
         }
-        return outstr;
+        return outstr.toString();
     }
 }
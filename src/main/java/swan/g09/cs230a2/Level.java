@@ -159,12 +159,7 @@ public class Level {
     /**
      * Stores the instances of the barnacles.
      */
-    private static ArrayList<Barnacle> barnacles = new ArrayList<>();
-
-    /**
-     *  Stores block instances.
-     */
-    private static ArrayList<Block> blocksList = new ArrayList<>();
+    private final ArrayList<Barnacle> barnacles = new ArrayList<>();
 
     /**
      * The fov of the level, specified in the parsed file.
@@ -554,10 +549,6 @@ public class Level {
                         barnacles.add(barnacle);
                     }
 
-                    if (actor instanceof Block block) {
-                        blocksList.add(block);
-                    }
-
                     layer.setAtPosition(coordinate, actor);
                 }
             }
@@ -656,16 +647,8 @@ public class Level {
      * Returns all barnacles within the level.
      * @return an arraylist of barnacles.
      */
-    public static ArrayList<Barnacle> getBarnacles() {
+    public ArrayList<Barnacle> getBarnacles() {
         return barnacles;
     }
 
-    /**
-     * Returns all barnacles within the level.
-     * @return an arraylist of barnacles.
-     */
-    public static ArrayList<Block> getBlocksList() {
-        return blocksList;
-    }
-
 }
@@ -0,0 +1,168 @@
+package swan.g09.cs230a2;
+
+/**
+ * Which cells of the level block a line of sight, walls and blocks, kept as bits for each
+ * row and each column so checking whether a straight line is clear looks at a word of 64
+ * cells at a time, rather than at each cell of the level.
+ *
+ * <p>Every cell is tested when the index is created, and after that only the cells whose
+ * tile is replaced or whose actor moves or is removed, see {@link #cellChanged(int)}.</p>
+ *
+ * @version 0.1
+ */
+final class OccluderIndex {
+
+    /**
+     * The width of the level.
+     */
+    private final int width;
+
+    /**
+     * The height of the level.
+     */
+    private final int height;
+
+    /**
+     * The number of words in each row.
+     */
+    private final int rowWords;
+
+    /**
+     * The number of words in each column.
+     */
+    private final int columnWords;
+
+    /**
+     * The bits of each row, one after another, bit x of a row set if cell x blocks sight.
+     */
+    private final long[] rows;
+
+    /**
+     * The bits of each column, one after another, bit y of a column set if cell y blocks sight.
+     */
+    private final long[] columns;
+
+    /**
+     * The number of times a cell has started or stopped blocking sight.
+     */
+    private volatile int changeCount;
+
+    /**
+     * Creates an index for the loaded level, testing every cell.
+     * @param levelWidth The width of the level.
+     * @param levelHeight The height of the level.
+     */
+    OccluderIndex(int levelWidth, int levelHeight) {
+        width = levelWidth;
+        height = levelHeight;
+        rowWords = (levelWidth + WalkableGrid.BIT_MASK) >>> WalkableGrid.WORD_SHIFT;
+        columnWords = (levelHeight + WalkableGrid.BIT_MASK) >>> WalkableGrid.WORD_SHIFT;
+        rows = new long[rowWords * levelHeight];
+        columns = new long[columnWords * levelWidth];
+        for (int y = 0; y < levelHeight; y++) {
+            for (int x = 0; x < levelWidth; x++) {
+                retest(x, y);
+            }
+        }
+    }
+
+    /**
+     * Tests a cell again after its tile has been replaced, or an actor has moved into or out of it.
+     * @param position The packed cell which changed.
+     */
+    void cellChanged(int position) {
+        int x = Coordinate.getX(position);
+        int y = Coordinate.getY(position);
+        if (contains(x, y)) {
+            retest(x, y);
+        }
+    }
+
+    /**
+     * Gets the number of times a cell has started or stopped blocking sight, so
+     * anything worked out from the index can tell whether it is out of date.
+     * @return The number of changes.
+     */
+    int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Checks whether a cell is in the level.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @return true if the cell is in the level.
+     */
+    boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Checks whether a cell blocks sight. Cells outside the level block sight.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @return true if the cell blocks sight.
+     */
+    boolean blocksSight(int x, int y) {
+        if (!contains(x, y)) {
+            return true;
+        }
+        return (rows[y * rowWords + (x >>> WalkableGrid.WORD_SHIFT)] & 1L << (x & WalkableGrid.BIT_MASK)) != 0;
+    }
+
+    /**
+     * Checks whether every cell strictly between two cells of a row or column lets sight through.
+     * @param vertical true for a column, false for a row.
+     * @param line The x coordinate of the column, or the y coordinate of the row.
+     * @param from The position along the line of one end, which isn't checked.
+     * @param to The position along the line of the other end, which isn't checked.
+     * @return true if no cell between the ends blocks sight.
+     */
+    boolean isClear(boolean vertical, int line, int from, int to) {
+        int first = Math.min(from, to) + 1;
+        int last = Math.max(from, to) - 1;
+        if (first > last) {
+            return true;
+        }
+        long[] bits = vertical ? columns : rows;
+        int base = line * (vertical ? columnWords : rowWords);
+        int firstWord = first >>> WalkableGrid.WORD_SHIFT;
+        int lastWord = last >>> WalkableGrid.WORD_SHIFT;
+        for (int word = firstWord; word <= lastWord; word++) {
+            long mask = -1L;
+            if (word == firstWord) {
+                mask &= -1L << (first & WalkableGrid.BIT_MASK);
+            }
+            if (word == lastWord) {
+                mask &= -1L >>> (WalkableGrid.BIT_MASK - (last & WalkableGrid.BIT_MASK));
+            }
+            if ((bits[base + word] & mask) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tests whether a cell blocks sight and stores the result. Walls and blocks block sight,
+     * whether the block is a tile or an actor.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     */
+    private void retest(int x, int y) {
+        Tile tile = GameManager.checkTile(x, y);
+        Actor actor = GameManager.checkActor(x, y);
+        boolean blocks = tile != null && (tile.getType() == TileType.WALL || tile.getType() == TileType.BLOCK)
+                || actor != null && actor.getType() == TileType.BLOCK;
+        if (blocks == blocksSight(x, y)) {
+            return;
+        }
+        long rowBit = 1L << (x & WalkableGrid.BIT_MASK);
+        long columnBit = 1L << (y & WalkableGrid.BIT_MASK);
+        int row = y * rowWords + (x >>> WalkableGrid.WORD_SHIFT);
+        int column = x * columnWords + (y >>> WalkableGrid.WORD_SHIFT);
+        rows[row] ^= rowBit;
+        columns[column] ^= columnBit;
+        changeCount++;
+    }
+}
@@ -0,0 +1,188 @@
+package swan.g09.cs230a2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Ticks the entities due on a tick in parallel on a {@link ForkJoinPool}, for levels
+ * with thousands of monsters. The due entities are split into regions of whole columns
+ * of the level, so a tile and the actor on it are always in the same region, and each
+ * region is woken as its own task with a {@link TickEffects} buffer of its own.
+ * Entities only read the level while they are ticked, so regions don't need locking.
+ * Once every region has finished, their buffers are merged in grid order and applied
+ * by the ticking thread, which gives exactly the same result as ticking sequentially.
+ * Ticks with too few due entities to be worth splitting are ticked sequentially.
+ *
+ * @version 0.1
+ */
+class ParallelTicker {
+
+    /**
+     * The fewest due entities in a region. Smaller regions cost more to schedule than they save.
+     */
+    static final int MIN_REGION_ENTITIES = 256;
+
+    /**
+     * The number of regions to aim for per thread, so threads finishing early can take another.
+     */
+    private static final int REGIONS_PER_THREAD = 4;
+
+    /**
+     * The initial capacity of the region array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The buffer of the region being woken on each thread, if any.
+     */
+    private static final ThreadLocal<TickEffects> BOUND_EFFECTS = new ThreadLocal<>();
+
+    /**
+     * The session whose entities are ticked, bound on each thread waking a region.
+     */
+    private final GameSession session;
+
+    /**
+     * The pool running the regions.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The buffer of each region, reused from tick to tick.
+     */
+    private final ArrayList<TickEffects> regionEffects = new ArrayList<>();
+
+    /**
+     * The index in the due entities of the first entity of each region, followed by the due count.
+     */
+    private int[] regionStarts = new int[INITIAL_CAPACITY];
+
+    /**
+     * Creates a ticker for a session.
+     * @param session The session whose entities are ticked.
+     * @param pool The pool to run the regions on.
+     */
+    ParallelTicker(GameSession session, ForkJoinPool pool) {
+        this.session = session;
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the buffer of the region being woken on the calling thread.
+     * @return The region's buffer, null if the thread isn't waking a region.
+     */
+    static TickEffects boundEffects() {
+        return BOUND_EFFECTS.get();
+    }
+
+    /**
+     * Wakes every entity due on the current tick, and merges the changes they make
+     * into a buffer in grid order.
+     * @param registry The registry of the entities to wake.
+     * @param effects The buffer collecting the changes for the whole tick.
+     */
+    void wakeDue(TickRegistry registry, TickEffects effects) {
+        int regions = splitRegions(registry);
+        if (regions < 2) {
+            registry.wakeDue(effects);
+            return;
+        }
+
+        for (int i = 0; i < regions; i++) {
+            if (i == regionEffects.size()) {
+                regionEffects.add(new TickEffects());
+            }
+            regionEffects.get(i).begin();
+        }
+        pool.invoke(new RegionTask(registry, 0, regions));
+        registry.clearDue();
+        for (int i = 0; i < regions; i++) {
+            effects.merge(regionEffects.get(i));
+        }
+    }
+
+    /**
+     * Splits the due entities into regions of whole columns.
+     * @param registry The registry of the entities to wake.
+     * @return The number of regions.
+     */
+    private int splitRegions(TickRegistry registry) {
+        int count = registry.getDueCount();
+        int target = Math.max(MIN_REGION_ENTITIES, count / (pool.getParallelism() * REGIONS_PER_THREAD));
+        int regions = 0;
+        int start = 0;
+        while (start < count) {
+            if (regions + 1 >= regionStarts.length) {
+                regionStarts = Arrays.copyOf(regionStarts, regionStarts.length * 2);
+            }
+            regionStarts[regions++] = start;
+
+            // Finish the region at the end of a column
+            int end = Math.min(count, start + target);
+            while (end < count && registry.getDueColumn(end) == registry.getDueColumn(end - 1)) {
+                end++;
+            }
+            start = end;
+        }
+        regionStarts[regions] = count;
+        return regions;
+    }
+
+    /**
+     * Wakes a range of regions, splitting it in half until each task has one region.
+     * Tasks only live for one tick and are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private final class RegionTask extends RecursiveAction {
+
+        /**
+         * The registry of the entities to wake.
+         */
+        private final TickRegistry registry;
+
+        /**
+         * The first region to wake.
+         */
+        private final int first;
+
+        /**
+         * The region after the last to wake.
+         */
+        private final int last;
+
+        /**
+         * Creates a task waking a range of regions.
+         * @param registry The registry of the entities to wake.
+         * @param first The first region to wake.
+         * @param last The region after the last to wake.
+         */
+        RegionTask(TickRegistry registry, int first, int last) {
+            this.registry = registry;
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * Wakes the region, or splits the range and wakes both halves.
+         */
+        @Override
+        protected void compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new RegionTask(registry, first, middle), new RegionTask(registry, middle, last));
+                return;
+            }
+
+            TickEffects effects = regionEffects.get(first);
+            TickEffects previous = BOUND_EFFECTS.get();
+            BOUND_EFFECTS.set(effects);
+            try {
+                session.run(() -> registry.wake(regionStarts[first], regionStarts[first + 1], effects));
+            } finally {
+                BOUND_EFFECTS.set(previous);
+            }
+        }
+    }
+}
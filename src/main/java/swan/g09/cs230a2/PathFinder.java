@@ -0,0 +1,32 @@
+package swan.g09.cs230a2;
+
+/**
+ * Finds paths for monsters between cells of the level, moving one cell north, east,
+ * south or west at a time. Cells are packed coordinates, see {@link Coordinate}.
+ * Which cells can be walked through is decided by the caller's {@link WalkableGrid},
+ * so each kind of monster can path by its own rules.
+ *
+ * @version 0.1
+ */
+interface PathFinder {
+
+    /**
+     * Returned when there is no path to the goal.
+     */
+    int NO_PATH = -1;
+
+    /**
+     * Finds the first step of a shortest path between two cells.
+     * @param start The packed cell to start from, which doesn't need to be walkable.
+     * @param goal The packed cell to reach.
+     * @param grid The cells which can be walked through, including the goal, refreshed on this tick.
+     * @return The packed cell to step into next, or {@link #NO_PATH} if the goal can't be reached.
+     */
+    int findFirstStep(int start, int goal, WalkableGrid grid);
+
+    /**
+     * Gets the number of cells expanded by the last search, to compare the work done by path finders.
+     * @return The number of cells expanded.
+     */
+    int getExpandedCount();
+}
@@ -29,11 +29,6 @@ public class PinkBall extends Actor {
     private static final ArrayList<TileType> WALKABLE =
             new ArrayList<>(List.of(TileType.PATH, TileType.BUTTON, TileType.TRAP));
 
-    /**
-     * Stores how many times the bug has been ticked.
-     */
-    private int currentTick = 0;
-
     /**
      * Constructor for the PinkBall class.
      * Initializes the PinkBall with specified parameters.
@@ -53,11 +48,7 @@ public class PinkBall extends Actor {
      */
     @Override
     protected void tick() {
-        currentTick++;
-
-        if (currentTick % MOVE_INTERVAL != 0) {
-            return;
-        }
+        GameManager.scheduleWake(this, MOVE_INTERVAL);
 
         boolean isMoveValid = checkMove(getFacingDir());
         if (!isMoveValid) {
@@ -77,6 +68,15 @@ public class PinkBall extends Actor {
         }
     }
 
+    /**
+     * The first move happens one move interval after the level starts.
+     * @return The move interval.
+     */
+    @Override
+    protected int getInitialWakeDelay() {
+        return MOVE_INTERVAL;
+    }
+
     /**
      * Checks if moving in a specific direction is valid for the PinkBall.
      * Subclasses extending PinkBall may override this method to customize
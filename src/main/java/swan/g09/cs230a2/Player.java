@@ -21,20 +21,14 @@ public class Player extends Actor {
     private static final int ORIGINAL_MOVE_INTERVAL = 4;
 
     /**
-     * The player moves every x ticks.
-     *
-     */
-    private static int moveInterval = ORIGINAL_MOVE_INTERVAL;
-
-    /**
-     * The duration of the Invincible powerup remaining.
+     * The tick the Invincible powerup runs out on.
      */
-    private int invincibleDurationRemaining = 0;
+    private long invincibleEndTick = 0;
 
     /**
-     * The duration of the speed powerup remaining.
+     * The tick the speed powerup runs out on.
      */
-    private int speedPowerupDurationRemaining = 0;
+    private long speedPowerupEndTick = 0;
 
     /**
      * The duration that timed powerups last.
@@ -46,12 +40,6 @@ public class Player extends Actor {
      */
     private static final int EXTRA_TIME = 30;
 
-    /**
-     * The number of extra lives the player has.
-     *
-     */
-    private static int extraLives = 0;
-
     /**
      * The slots that different items take up in the inventory.
      */
@@ -134,23 +122,10 @@ public class Player extends Actor {
             ));
 
     /**
-     * The current tick.
-     *
-     */
-    private int currentTick = 0;
-
-    /**
-     * The previous tick.
-     *
-     */
-    private int lastMoveTick;
-
-    /**
-     * Stores the player's inventory. This stores the amount of each item in the
-     * order [Chips, Key_R, Key_G, Key_Y, Key_B, EXTRA_LIFE].
+     * The tick the player last moved on.
      *
      */
-    private static final int[] INVENTORY = new int[]{0, 0, 0, 0, 0, 0};
+    private long lastMoveTick;
 
     /**
      * Default Constructor for Player.
@@ -161,7 +136,7 @@ public class Player extends Actor {
     public Player(Point2D position) {
         super(TileType.PLAYER, "sprites/Player.png", WALKABLE_TILES, position);
 
-        moveInterval = ORIGINAL_MOVE_INTERVAL;
+        GameSession.current().playerMoveInterval = ORIGINAL_MOVE_INTERVAL;
         // Add tick handlers for arrow keys
         InputManager.addTickHandler(KeyCode.LEFT, () -> handleMovement(Direction.WEST));
         InputManager.addTickHandler(KeyCode.RIGHT, () -> handleMovement(Direction.EAST));
@@ -190,7 +165,7 @@ public class Player extends Actor {
     }
 
     private void resetMovementInterval() {
-        moveInterval = ORIGINAL_MOVE_INTERVAL;
+        GameSession.current().playerMoveInterval = ORIGINAL_MOVE_INTERVAL;
     }
 
     /**
@@ -200,7 +175,11 @@ public class Player extends Actor {
      *
      */
     private void handleMovement(Direction dir) {
-        if (GameManager.isLevelRunning() && currentTick - moveInterval >= lastMoveTick && !isTrapped()) {
+        if (!GameManager.isLevelRunning()) {
+            return;
+        }
+        long currentTick = GameManager.getCurrentTick();
+        if (currentTick - GameSession.current().playerMoveInterval >= lastMoveTick && !isTrapped()) {
             // Use the modified checkMove method for speed power-up
             if (checkMove(dir)) {
                 lastMoveTick = currentTick;
@@ -212,20 +191,12 @@ public class Player extends Actor {
 
     /**
      * Allows the timer to tick the player class.
+     * The player is only woken when the speed powerup runs out.
      */
     @Override
     protected void tick() {
-        currentTick++;
-
-        if (speedPowerupDurationRemaining > 0) {
-            speedPowerupDurationRemaining--;
-            if (speedPowerupDurationRemaining <= 0) {
-                resetMovementInterval();
-            }
-        }
-
-        if (isInvincible()) {
-            invincibleDurationRemaining--;
+        if (getSpeedBoostRemaining() == 0) {
+            resetMovementInterval();
         }
     }
 
@@ -262,19 +233,20 @@ public class Player extends Actor {
     }
 
     private boolean checkSpecialTiles(Tile nextTile, Direction moveDirection) {
+        GameSession session = GameSession.current();
         switch (nextTile.getType()) {
             case LOCKED_DOOR -> {
                 LockedDoor door = (LockedDoor) nextTile;
-                if (!door.testLock(INVENTORY)) {
+                if (!door.testLock(session.inventory)) {
                     return false;
                 }
             }
             case CHIP_SOCKET -> {
                 ChipSocket socket = (ChipSocket) nextTile;
-                int oldChips = INVENTORY[InventorySlot.CHIP.ordinal()];
-                INVENTORY[InventorySlot.CHIP.ordinal()] = oldChips - socket.getRequiredChips();
-                if (INVENTORY[InventorySlot.CHIP.ordinal()] < 1) {
-                    INVENTORY[InventorySlot.CHIP.ordinal()] = 0;
+                int oldChips = session.inventory[InventorySlot.CHIP.ordinal()];
+                session.inventory[InventorySlot.CHIP.ordinal()] = oldChips - socket.getRequiredChips();
+                if (session.inventory[InventorySlot.CHIP.ordinal()] < 1) {
+                    session.inventory[InventorySlot.CHIP.ordinal()] = 0;
                 }
                 if (!socket.deductChips(oldChips)) {
                     return false;
@@ -351,43 +323,45 @@ public class Player extends Actor {
      * @param tilePosition the position of the tile to pick up items from
      */
     private void collectItems(Point2D tilePosition) {
+        GameSession session = GameSession.current();
         Item nextItem = GameManager.checkItem(tilePosition);
         if (nextItem != null) {
             switch (nextItem.getType()) {
                 case CHIP -> {
-                    INVENTORY[0]++;
+                    session.inventory[0]++;
                 }
                 case KEY -> {
                     Key key = (Key) nextItem;
                     switch (key.getColour()) {
                         case 'R' ->
-                            INVENTORY[InventorySlot.RED_KEY.ordinal()]++;
+                            session.inventory[InventorySlot.RED_KEY.ordinal()]++;
                         case 'G' ->
-                            INVENTORY[InventorySlot.GREEN_KEY.ordinal()]++;
+                            session.inventory[InventorySlot.GREEN_KEY.ordinal()]++;
                         case 'Y' ->
-                            INVENTORY[InventorySlot.YELLOW_KEY.ordinal()]++;
+                            session.inventory[InventorySlot.YELLOW_KEY.ordinal()]++;
                         case 'B' ->
-                            INVENTORY[InventorySlot.BLUE_KEY.ordinal()]++;
+                            session.inventory[InventorySlot.BLUE_KEY.ordinal()]++;
                         default -> {
                             throw new UnsupportedOperationException("unknown key colour picked up by player");
                         }
                     }
                 }
                 case SPEED -> {
-                    if (speedPowerupDurationRemaining == 0) {
-                        speedPowerupDurationRemaining = POWERUP_DURATION;
-                        moveInterval = 2;
+                    if (getSpeedBoostRemaining() == 0) {
+                        speedPowerupEndTick = GameManager.getCurrentTick() + POWERUP_DURATION;
+                        GameManager.scheduleWake(this, POWERUP_DURATION);
+                        session.playerMoveInterval = 2;
                     }
                 }
                 case INVINC -> {
-                    invincibleDurationRemaining = POWERUP_DURATION;
+                    invincibleEndTick = GameManager.getCurrentTick() + POWERUP_DURATION;
                 }
                 case EXTRA -> {
-                    if (extraLives < 1) {
+                    if (session.extraLives < 1) {
                         // Increment extra lives
-                        extraLives++;
+                        session.extraLives++;
                     } else {
-                        INVENTORY[InventorySlot.EXTRA_LIFE.ordinal()]++;
+                        session.inventory[InventorySlot.EXTRA_LIFE.ordinal()]++;
                     }
                 }
                 case INCREASETIME -> {
@@ -407,7 +381,7 @@ public class Player extends Actor {
      * @return The player's inventory.
      */
     public static int[] getInventory() {
-        return INVENTORY;
+        return GameSession.current().inventory;
     }
 
     /**
@@ -416,11 +390,12 @@ public class Player extends Actor {
      * @param inv The player's inventory.
      */
     public void setInventory(int[] inv) {
-        if (inv.length != INVENTORY.length) {
+        GameSession session = GameSession.current();
+        if (inv.length != session.inventory.length) {
             throw new RuntimeException("Inventory length didn't match expected: "
-                    + inv.length + " != " + INVENTORY.length);
+                    + inv.length + " != " + session.inventory.length);
         }
-        System.arraycopy(inv, 0, INVENTORY, 0, INVENTORY.length);
+        System.arraycopy(inv, 0, session.inventory, 0, session.inventory.length);
     }
 
     /**
@@ -429,7 +404,7 @@ public class Player extends Actor {
      * @return true if the player is invincible
      */
     public boolean isInvincible() {
-        return invincibleDurationRemaining > 0;
+        return getInvincibleRemaining() > 0;
     }
 
     /**
@@ -438,7 +413,7 @@ public class Player extends Actor {
      * @return the duration of invincibility remaining (0 means none remaining)
      */
     public int getInvincibleRemaining() {
-        return invincibleDurationRemaining;
+        return ticksUntil(invincibleEndTick);
     }
 
     /**
@@ -447,7 +422,7 @@ public class Player extends Actor {
      * @return the number of extra lives the player has
      */
     public static int getExtraLives() {
-        return extraLives;
+        return GameSession.current().extraLives;
     }
 
     /**
@@ -459,7 +434,7 @@ public class Player extends Actor {
         if (numLives < 0) {
             throw new IllegalArgumentException("Extra lives cannot be negative");
         }
-        extraLives = numLives;
+        GameSession.current().extraLives = numLives;
     }
 
     /**
@@ -468,6 +443,16 @@ public class Player extends Actor {
      * @return the time remaining (0 if there is no speed boost applied)
      */
     public int getSpeedBoostRemaining() {
-        return this.speedPowerupDurationRemaining;
+        return ticksUntil(speedPowerupEndTick);
+    }
+
+    /**
+     * Gets how many ticks are left until a tick of the current level.
+     *
+     * @param tick the tick to count down to
+     * @return the number of ticks remaining (0 if the tick has passed)
+     */
+    private static int ticksUntil(long tick) {
+        return (int) Math.max(0, tick - GameManager.getCurrentTick());
     }
 }
@@ -0,0 +1,471 @@
+package swan.g09.cs230a2;
+
+import java.util.Arrays;
+
+import javafx.geometry.Point2D;
+
+/**
+ * The distance from every cell of the level to the player, shared by every monster
+ * chasing the player. Rather than each monster searching for its own path, the field is
+ * filled by a breadth-first search out from the player, and a monster steps to whichever
+ * neighbouring cell is closest to the player. The field is brought up to date at most
+ * once a tick, so the cost of chasing no longer grows with the number of monsters.
+ *
+ * <p>When the player moves, nearly every distance changes, so the field is searched again.
+ * When tiles are replaced with the player still, the field is repaired instead, in the
+ * manner of LPA*: the cells whose shortest path ran through a newly blocked cell are
+ * invalidated, and distances are then propagated outwards from the cells next to the
+ * change, so only the part of the level whose distance changed is visited.</p>
+ *
+ * <p>Cells are stamped with the search they were tested in, so nothing is cleared between
+ * searches. Monsters ticked in parallel can read the field at once; the first to find it out
+ * of date refreshes it while the others wait.</p>
+ *
+ * @version 0.1
+ */
+class PlayerDistanceField {
+
+    /**
+     * The change in x of each step, north, east, south and west.
+     */
+    private static final int[] STEP_X = {0, 1, 0, -1};
+
+    /**
+     * The change in y of each step, north, east, south and west.
+     */
+    private static final int[] STEP_Y = {-1, 0, 1, 0};
+
+    /**
+     * The distance of a walkable cell which can't reach the player.
+     */
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The most tiles which can change in a tick before the field is searched again rather than repaired.
+     */
+    private static final int REPAIR_LIMIT = 64;
+
+    /**
+     * The number of bits the distance of a seed is shifted by, above its cell.
+     */
+    private static final int SEED_SHIFT = 32;
+
+    /**
+     * The width of the level.
+     */
+    private final int width;
+
+    /**
+     * The height of the level.
+     */
+    private final int height;
+
+    /**
+     * The cells which can be walked through, including the player's cell.
+     */
+    private final WalkableGrid walkable;
+
+    /**
+     * The distance of each cell from the player, valid if stamped with the current search.
+     */
+    private final int[] distance;
+
+    /**
+     * The search each cell was last tested in. A cell's distance is only valid if it was
+     * tested in the current search and wasn't blocked.
+     */
+    private final int[] stamp;
+
+    /**
+     * The search each cell was last found to be blocked in, so blocked cells are only tested once a search.
+     */
+    private final int[] blocked;
+
+    /**
+     * The cells waiting to be expanded by the search.
+     */
+    private final int[] queue;
+
+    /**
+     * The pass each cell was last queued in while invalidating, so it is only queued once a pass.
+     */
+    private final int[] queued;
+
+    /**
+     * The cells left without a distance by a repair, opened or invalidated.
+     */
+    private final int[] stranded;
+
+    /**
+     * The cells a repair propagates from, as their distance shifted above their cell.
+     */
+    private final long[] seeds;
+
+    /**
+     * The cells whose tile has been replaced since the field was last brought up to date.
+     */
+    private final int[] changed = new int[REPAIR_LIMIT];
+
+    /**
+     * The number of tiles replaced since the field was last brought up to date.
+     */
+    private int changedCount;
+
+    /**
+     * The number of the current search.
+     */
+    private int search;
+
+    /**
+     * The number of the current invalidation pass.
+     */
+    private int pass;
+
+    /**
+     * The packed cell of the player in the current search, {@link PathFinder#NO_PATH} if there is no player.
+     */
+    private int playerKey = PathFinder.NO_PATH;
+
+    /**
+     * Whether the player's cell could be walked into in the current search.
+     */
+    private boolean playerReachable;
+
+    /**
+     * The tick the field was last checked to be up to date on.
+     */
+    private volatile long checkedTick = -1;
+
+    /**
+     * Creates an empty field for a level.
+     * @param walkable The cells of the level which can be walked through, including the player's cell.
+     */
+    PlayerDistanceField(WalkableGrid walkable) {
+        width = walkable.getWidth();
+        height = walkable.getHeight();
+        this.walkable = walkable;
+        int cells = width * height;
+        distance = new int[cells];
+        stamp = new int[cells];
+        blocked = new int[cells];
+        queue = new int[cells];
+        queued = new int[cells];
+        stranded = new int[cells];
+        seeds = new long[cells];
+    }
+
+    /**
+     * Finds the next step towards the player from a cell.
+     * @param from The packed cell to step from.
+     * @return The packed neighbouring cell closest to the player, or {@link PathFinder#NO_PATH}
+     * if the player can't be reached.
+     */
+    int findNextStep(int from) {
+        refresh();
+        int x = Coordinate.getX(from);
+        int y = Coordinate.getY(from);
+        int best = PathFinder.NO_PATH;
+        int bestDistance = UNREACHABLE;
+        for (int i = 0; i < STEP_X.length; i++) {
+            int nextX = x + STEP_X[i];
+            int nextY = y + STEP_Y[i];
+            if (nextX < 0 || nextY < 0 || nextX >= width || nextY >= height) {
+                continue;
+            }
+            int next = nextY * width + nextX;
+            if (isOpen(next) && distance[next] < bestDistance) {
+                best = Coordinate.pack(nextX, nextY);
+                bestDistance = distance[next];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the distance from a cell to the player.
+     * @param position The packed cell.
+     * @return The number of steps to the player, {@link #UNREACHABLE} if the cell can't reach the player.
+     */
+    int getDistance(int position) {
+        refresh();
+        int x = Coordinate.getX(position);
+        int y = Coordinate.getY(position);
+        if (x < 0 || y < 0 || x >= width || y >= height || !isOpen(y * width + x)) {
+            return UNREACHABLE;
+        }
+        return distance[y * width + x];
+    }
+
+    /**
+     * Records that the tile of a cell has been replaced, so the field is repaired around it.
+     * @param position The packed cell whose tile was replaced.
+     */
+    synchronized void tileChanged(int position) {
+        if (changedCount < REPAIR_LIMIT) {
+            changed[changedCount] = Coordinate.getY(position) * width + Coordinate.getX(position);
+        }
+        changedCount++;
+    }
+
+    /**
+     * Searches out from the player again if the player has moved, or repairs the field if
+     * tiles have been replaced. Checks at most once a tick.
+     */
+    private void refresh() {
+        GameSession session = GameSession.current();
+        long tick = session.tickRegistry.getCurrentTick();
+        if (checkedTick == tick) {
+            return;
+        }
+        synchronized (this) {
+            if (checkedTick == tick) {
+                return;
+            }
+            walkable.refresh();
+            Point2D player = session.actorLayer.findFirstPositionOf(TileType.PLAYER);
+            int key = player == null ? PathFinder.NO_PATH : Coordinate.of(player);
+            boolean reachable = player != null && walkable.test(key);
+            if (key != playerKey || reachable != playerReachable || changedCount > REPAIR_LIMIT) {
+                playerKey = key;
+                playerReachable = reachable;
+                search(reachable ? key : PathFinder.NO_PATH);
+            } else if (changedCount > 0 && reachable) {
+                repair(Coordinate.getY(key) * width + Coordinate.getX(key));
+            }
+            changedCount = 0;
+            checkedTick = tick;
+        }
+    }
+
+    /**
+     * Finds the distance of every cell which can reach the player.
+     * @param root The packed cell of the player, {@link PathFinder#NO_PATH} to leave the field empty.
+     */
+    private void search(int root) {
+        search++;
+        if (search == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(blocked, 0);
+            search = 1;
+        }
+        if (root == PathFinder.NO_PATH) {
+            return;
+        }
+
+        int rootIndex = Coordinate.getY(root) * width + Coordinate.getX(root);
+        stamp[rootIndex] = search;
+        distance[rootIndex] = 0;
+        queue[0] = rootIndex;
+        propagate(1, 0);
+    }
+
+    /**
+     * Brings the field up to date with the tiles replaced since the last search or repair.
+     * @param root The index of the player's cell, which hasn't moved.
+     */
+    private void repair(int root) {
+        int strandedCount = 0;
+        for (int i = 0; i < changedCount; i++) {
+            int cell = changed[i];
+            if (cell == root) {
+                continue;
+            }
+            boolean wasTested = stamp[cell] == search;
+            boolean wasOpen = isOpen(cell);
+            boolean open = walkable.isOpen(cell % width, cell / width);
+            if (wasTested && open == wasOpen) {
+                continue;
+            }
+
+            stamp[cell] = search;
+            if (open) {
+                blocked[cell] = 0;
+                distance[cell] = UNREACHABLE;
+                stranded[strandedCount++] = cell;
+            } else {
+                blocked[cell] = search;
+                if (wasOpen && distance[cell] != UNREACHABLE) {
+                    strandedCount = invalidate(cell, strandedCount);
+                }
+            }
+        }
+
+        // Re-enter the changed area from the cells around it whose distance still holds
+        int seedCount = 0;
+        for (int i = 0; i < strandedCount; i++) {
+            seedCount = addSeed(stranded[i], seedCount);
+        }
+        TickRegistry.sort(seeds, seedCount);
+        propagate(0, seedCount);
+    }
+
+    /**
+     * Marks every cell whose shortest path ran through a newly blocked cell as unreachable.
+     * Cells are visited in order of distance, so a cell is only invalidated once every cell
+     * which could still lead it to the player has been checked.
+     * @param cell The index of the newly blocked cell.
+     * @param count The number of stranded cells so far.
+     * @return The number of stranded cells, including those invalidated by this cell.
+     */
+    private int invalidate(int cell, int count) {
+        pass++;
+        if (pass == Integer.MAX_VALUE) {
+            Arrays.fill(queued, 0);
+            pass = 1;
+        }
+        int strandedCount = count;
+        int head = 0;
+        int tail = queueDependants(cell, distance[cell], 0);
+        while (head < tail) {
+            int next = queue[head++];
+            int nextDistance = distance[next];
+            if (nextDistance == UNREACHABLE || hasNeighbourAt(next, nextDistance - 1)) {
+                continue;
+            }
+            distance[next] = UNREACHABLE;
+            stranded[strandedCount++] = next;
+            tail = queueDependants(next, nextDistance, tail);
+        }
+        return strandedCount;
+    }
+
+    /**
+     * Queues the neighbours of a cell whose distance is one more than the cell's.
+     * @param cell The index of the cell.
+     * @param cellDistance The distance the cell had.
+     * @param tail The end of the queue.
+     * @return The new end of the queue.
+     */
+    private int queueDependants(int cell, int cellDistance, int tail) {
+        int end = tail;
+        int x = cell % width;
+        int y = cell / width;
+        for (int i = 0; i < STEP_X.length; i++) {
+            int nextX = x + STEP_X[i];
+            int nextY = y + STEP_Y[i];
+            if (nextX < 0 || nextY < 0 || nextX >= width || nextY >= height) {
+                continue;
+            }
+            int next = nextY * width + nextX;
+            if (queued[next] != pass && isOpen(next) && distance[next] == cellDistance + 1) {
+                queued[next] = pass;
+                queue[end++] = next;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Checks whether a cell has an open neighbour at a distance.
+     * @param cell The index of the cell.
+     * @param neighbourDistance The distance to look for.
+     * @return true if a neighbour is at that distance.
+     */
+    private boolean hasNeighbourAt(int cell, int neighbourDistance) {
+        int x = cell % width;
+        int y = cell / width;
+        for (int i = 0; i < STEP_X.length; i++) {
+            int nextX = x + STEP_X[i];
+            int nextY = y + STEP_Y[i];
+            if (nextX < 0 || nextY < 0 || nextX >= width || nextY >= height) {
+                continue;
+            }
+            int next = nextY * width + nextX;
+            if (isOpen(next) && distance[next] == neighbourDistance) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a seed for a stranded cell, at one more than its closest open neighbour.
+     * @param cell The index of the cell.
+     * @param count The number of seeds so far.
+     * @return The new number of seeds.
+     */
+    private int addSeed(int cell, int count) {
+        if (!isOpen(cell)) {
+            return count;
+        }
+        int best = UNREACHABLE;
+        int x = cell % width;
+        int y = cell / width;
+        for (int i = 0; i < STEP_X.length; i++) {
+            int nextX = x + STEP_X[i];
+            int nextY = y + STEP_Y[i];
+            if (nextX < 0 || nextY < 0 || nextX >= width || nextY >= height) {
+                continue;
+            }
+            int next = nextY * width + nextX;
+            if (isOpen(next)) {
+                best = Math.min(best, distance[next]);
+            }
+        }
+        if (best == UNREACHABLE) {
+            return count;
+        }
+        seeds[count] = (long) (best + 1) << SEED_SHIFT | cell;
+        return count + 1;
+    }
+
+    /**
+     * Spreads distances outwards in order, lowering any cell a shorter path is found to.
+     * Cells already in the queue are expanded alongside the seeds, whichever is closer first.
+     * Since distances are handed out in order, no cell is lowered twice.
+     * @param queuedCount The number of cells already in the queue, with their distance set.
+     * @param seedCount The number of seeds, sorted by distance.
+     */
+    private void propagate(int queuedCount, int seedCount) {
+        int head = 0;
+        int tail = queuedCount;
+        int seed = 0;
+        while (head < tail || seed < seedCount) {
+            int cell;
+            int seedDistance = seed < seedCount ? (int) (seeds[seed] >>> SEED_SHIFT) : UNREACHABLE;
+            if (seed < seedCount && (head == tail || seedDistance <= distance[queue[head]])) {
+                cell = (int) seeds[seed++];
+                if (seedDistance >= distance[cell]) {
+                    continue;
+                }
+                distance[cell] = seedDistance;
+            } else {
+                cell = queue[head++];
+            }
+
+            int x = cell % width;
+            int y = cell / width;
+            int nextDistance = distance[cell] + 1;
+            for (int i = 0; i < STEP_X.length; i++) {
+                int nextX = x + STEP_X[i];
+                int nextY = y + STEP_Y[i];
+                if (nextX < 0 || nextY < 0 || nextX >= width || nextY >= height) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (stamp[next] == search) {
+                    if (blocked[next] == search || distance[next] <= nextDistance) {
+                        continue;
+                    }
+                } else {
+                    stamp[next] = search;
+                    if (!walkable.isOpen(nextX, nextY)) {
+                        blocked[next] = search;
+                        continue;
+                    }
+                }
+                distance[next] = nextDistance;
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    /**
+     * Checks whether a cell was found walkable in the current search.
+     * @param cell The index of the cell.
+     * @return true if the cell has a distance, which may be {@link #UNREACHABLE}.
+     */
+    private boolean isOpen(int cell) {
+        return stamp[cell] == search && blocked[cell] != search;
+    }
+}
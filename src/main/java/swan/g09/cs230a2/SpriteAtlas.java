@@ -0,0 +1,290 @@
+package swan.g09.cs230a2;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+
+/**
+ * Every sprite drawn on the game canvas, packed into one image along with the sprite turned
+ * to face each {@link Direction}, so drawing an actor facing any way is a single copy of part
+ * of the atlas, rather than turning the sprite and taking a snapshot of it every frame.
+ *
+ * <p>The sprites in the atlas are already scaled to the size tiles are drawn, by repeating
+ * pixels the way the canvas scales with image smoothing off, so drawing one copies its pixels
+ * as they are rather than resampling its file each time. When tiles are drawn another size,
+ * such as when the window is resized, the atlas is emptied and each sprite scaled again from
+ * its file, which is only loaded once, the next time it is drawn.</p>
+ *
+ * <p>Each sprite's four turns are put next to each other in the next free space along a shelf
+ * of the atlas, starting a new shelf below when the shelf is full. When the atlas runs out of
+ * shelves it is made twice as tall. A sprite which can't be loaded is remembered too, so its
+ * file is only looked for once.</p>
+ *
+ * @version 0.1
+ */
+final class SpriteAtlas {
+
+    /**
+     * The width of the atlas in pixels, room for the turns of a few sprites on a shelf at the largest tile size.
+     */
+    private static final int ATLAS_WIDTH = 2048;
+
+    /**
+     * The height of the atlas in pixels when it is first made.
+     */
+    private static final int INITIAL_HEIGHT = 128;
+
+    /**
+     * The transparent pixels left around each turn of a sprite, so drawing one never picks up its neighbours.
+     */
+    private static final int GUTTER = 1;
+
+    /**
+     * The packed image, null until the first sprite is added at the current size.
+     */
+    private WritableImage atlas;
+
+    /**
+     * The width and height of each turn of a sprite in the atlas, 0 before anything is drawn.
+     */
+    private int spriteSize;
+
+    /**
+     * Each sprite as it is in its file, by image path, null for a sprite which couldn't be loaded.
+     */
+    private final HashMap<String, Image> sources = new HashMap<>();
+
+    /**
+     * Where each sprite is in the atlas at the current size, by image path, null for a sprite which couldn't be loaded.
+     */
+    private final HashMap<String, Sprite> sprites = new HashMap<>();
+
+    /**
+     * The pixels of sprites facing east at the current size, by image path, null for a sprite which couldn't be loaded.
+     */
+    private final HashMap<String, int[]> pixels = new HashMap<>();
+
+    /**
+     * The x coordinate of the free space on the current shelf.
+     */
+    private int shelfX = GUTTER;
+
+    /**
+     * The y coordinate of the top of the current shelf.
+     */
+    private int shelfY = GUTTER;
+
+    /**
+     * Where a sprite's turns are in the atlas.
+     */
+    private static final class Sprite {
+        /**
+         * The x coordinate of each turn, in the order of {@link Direction}.
+         */
+        private final int[] x = new int[Direction.values().length];
+
+        /**
+         * The y coordinate of every turn.
+         */
+        private int y;
+    }
+
+    /**
+     * Draws a sprite as it is in its file, loading it into the atlas if it isn't in it yet.
+     * @param gc The graphics context to draw with.
+     * @param path The image path of the sprite.
+     * @param x The x coordinate to draw the sprite at.
+     * @param y The y coordinate to draw the sprite at.
+     * @param size The width and height to draw the sprite, which it is scaled to in the atlas.
+     * @return true if the sprite was drawn, false if it couldn't be loaded.
+     */
+    boolean draw(GraphicsContext gc, String path, double x, double y, int size) {
+        return draw(gc, path, Direction.EAST, x, y, size);
+    }
+
+    /**
+     * Draws a sprite turned to face a direction, loading it into the atlas if it isn't in it yet.
+     * Sprites are drawn as they are in their file when facing east.
+     * @param gc The graphics context to draw with.
+     * @param path The image path of the sprite.
+     * @param facing The direction the sprite should face.
+     * @param x The x coordinate to draw the sprite at.
+     * @param y The y coordinate to draw the sprite at.
+     * @param size The width and height to draw the sprite, which it is scaled to in the atlas.
+     * @return true if the sprite was drawn, false if it couldn't be loaded.
+     */
+    boolean draw(GraphicsContext gc, String path, Direction facing, double x, double y, int size) {
+        Sprite sprite = find(path, size);
+        if (sprite == null) {
+            return false;
+        }
+        gc.drawImage(atlas, sprite.x[facing.ordinal()], sprite.y, size, size, x, y, size, size);
+        return true;
+    }
+
+    /**
+     * Gets the pixels of a sprite as it is in its file, scaled to a size.
+     * @param path The image path of the sprite.
+     * @param size The width and height to scale the sprite to.
+     * @return The ARGB pixels of the sprite, row by row, null if it couldn't be loaded.
+     */
+    int[] getPixels(String path, int size) {
+        Sprite sprite = find(path, size);
+        if (pixels.containsKey(path)) {
+            return pixels.get(path);
+        }
+        int[] scaled = null;
+        if (sprite != null) {
+            scaled = new int[size * size];
+            atlas.getPixelReader().getPixels(sprite.x[Direction.EAST.ordinal()], sprite.y, size, size,
+                    PixelFormat.getIntArgbInstance(), scaled, 0, size);
+        }
+        pixels.put(path, scaled);
+        return scaled;
+    }
+
+    /**
+     * Finds where a sprite is in the atlas at a size, emptying the atlas first if its sprites are
+     * another size, and adding the sprite the first time it is asked for at this size.
+     * @param path The image path of the sprite.
+     * @param size The width and height of the sprite in the atlas.
+     * @return Where the sprite is, null if it couldn't be loaded.
+     */
+    private Sprite find(String path, int size) {
+        if (size != spriteSize) {
+            spriteSize = size;
+            sprites.clear();
+            pixels.clear();
+            atlas = null;
+            shelfX = GUTTER;
+            shelfY = GUTTER;
+        }
+        if (sprites.containsKey(path)) {
+            return sprites.get(path);
+        }
+        Image source = load(path);
+        Sprite sprite = source == null ? null : add(source);
+        sprites.put(path, sprite);
+        return sprite;
+    }
+
+    /**
+     * Loads a sprite's file the first time it is asked for.
+     * @param path The image path of the sprite.
+     * @return The sprite as it is in its file, null if it couldn't be loaded.
+     */
+    private Image load(String path) {
+        if (sources.containsKey(path)) {
+            return sources.get(path);
+        }
+        Image source = null;
+        try (InputStream stream = SpriteAtlas.class.getResourceAsStream(path)) {
+            if (stream != null) {
+                Image image = new Image(stream);
+                if (!image.isError()) {
+                    source = image;
+                }
+            }
+        } catch (IOException e) {
+            source = null;
+        }
+        if (source == null) {
+            System.out.println("Failed loading image: " + path);
+        }
+        sources.put(path, source);
+        return source;
+    }
+
+    /**
+     * Adds the four turns of a sprite, scaled to the current size, to the next free space on a
+     * shelf of the atlas, turned a quarter clockwise to face south, half way to face west and
+     * a quarter anticlockwise to face north.
+     * @param image The sprite as it is in its file, facing east.
+     * @return Where the sprite has been put.
+     */
+    private Sprite add(Image image) {
+        int size = spriteSize;
+        int needed = (size + GUTTER) * Direction.values().length;
+        if (shelfX + needed > ATLAS_WIDTH) {
+            shelfY += size + GUTTER;
+            shelfX = GUTTER;
+        }
+        ensureHeight(shelfY + size + GUTTER);
+
+        // Scale the sprite once, sampling the middle of each pixel, then turn the scaled pixels
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        PixelReader reader = image.getPixelReader();
+        int[] scaled = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                scaled[y * size + x] = reader.getArgb((2 * x + 1) * width / (2 * size),
+                        (2 * y + 1) * height / (2 * size));
+            }
+        }
+
+        Sprite sprite = new Sprite();
+        sprite.y = shelfY;
+        PixelWriter writer = atlas.getPixelWriter();
+        int[] turned = new int[size * size];
+        int last = size - 1;
+        for (Direction facing : Direction.values()) {
+            sprite.x[facing.ordinal()] = shelfX;
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    int turnedX;
+                    int turnedY;
+                    switch (facing) {
+                        case SOUTH -> {
+                            turnedX = last - y;
+                            turnedY = x;
+                        }
+                        case WEST -> {
+                            turnedX = last - x;
+                            turnedY = last - y;
+                        }
+                        case NORTH -> {
+                            turnedX = y;
+                            turnedY = last - x;
+                        }
+                        default -> {
+                            turnedX = x;
+                            turnedY = y;
+                        }
+                    }
+                    turned[turnedY * size + turnedX] = scaled[y * size + x];
+                }
+            }
+            writer.setPixels(shelfX, shelfY, size, size, PixelFormat.getIntArgbInstance(), turned, 0, size);
+            shelfX += size + GUTTER;
+        }
+        return sprite;
+    }
+
+    /**
+     * Makes the atlas, or makes it taller keeping the sprites already in it, so it is at least a height.
+     * @param needed The height the atlas needs to be, in pixels.
+     */
+    private void ensureHeight(int needed) {
+        if (atlas != null && atlas.getHeight() >= needed) {
+            return;
+        }
+        int height = atlas == null ? INITIAL_HEIGHT : (int) atlas.getHeight();
+        while (height < needed) {
+            height *= 2;
+        }
+        WritableImage taller = new WritableImage(ATLAS_WIDTH, height);
+        if (atlas != null) {
+            taller.getPixelWriter().setPixels(0, 0, ATLAS_WIDTH, (int) atlas.getHeight(),
+                    atlas.getPixelReader(), 0, 0);
+        }
+        atlas = taller;
+    }
+}
@@ -0,0 +1,385 @@
+package swan.g09.cs230a2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Buffers the changes entities make to the level while they are ticked, so every
+ * entity due on a tick decides what to do from the same state of the level, and
+ * then applies the changes together. This makes the result of a tick independent
+ * of the order entities are woken in.
+ *
+ * <p>Changes are applied entity by entity in grid order, whatever order the entities
+ * were woken in, and each entity's changes in the order it made them, with these rules:</p>
+ * <ul>
+ *     <li>A move is dropped if the actor has already left its cell, or if another actor
+ *     has taken the cell it is moving into this tick. If an action tile was pushing the
+ *     actor, such as ice, the tile is woken again next tick to retry.</li>
+ *     <li>An actor is only removed if it is still in the cell it was removed from.</li>
+ *     <li>Tiles are replaced and items removed unconditionally, so the last change wins.</li>
+ *     <li>Wakes are scheduled unless the entity has left the level, replacing any scheduled earlier.</li>
+ *     <li>Winning or losing is applied after every other change, and only the first
+ *     of them made during the tick counts, including any made while applying changes.</li>
+ * </ul>
+ *
+ * <p>When entities are ticked in parallel, each region of the level collects its changes
+ * in a buffer of its own, which are merged in grid order before being applied, so the
+ * result is the same as ticking the entities one at a time.</p>
+ *
+ * @version 0.1
+ */
+class TickEffects {
+
+    /**
+     * The kinds of change which can be buffered.
+     */
+    private enum Kind {
+        /** An actor moving between cells. */
+        MOVE_ACTOR,
+        /** An actor being removed from the level. */
+        REMOVE_ACTOR,
+        /** A tile being replaced. */
+        REPLACE_TILE,
+        /** An item being removed from the level. */
+        REMOVE_ITEM,
+        /** An entity being scheduled to wake. */
+        WAKE,
+        /** Any other change, run as is. */
+        RUN
+    }
+
+    /**
+     * What the buffer is doing with changes made to the level.
+     */
+    private enum Phase {
+        /** Changes are applied straight away. */
+        IDLE,
+        /** Entities are deciding what to do, so changes are buffered. */
+        COLLECTING,
+        /** Buffered changes are being applied; only winning or losing is still buffered. */
+        COMMITTING
+    }
+
+    /**
+     * A buffered change. Effects are reused from tick to tick.
+     */
+    private static final class Effect {
+        /**
+         * The kind of change.
+         */
+        private Kind kind;
+
+        /**
+         * The entity being ticked when the change was made.
+         */
+        private Tile issuer;
+
+        /**
+         * The actor moving or being removed.
+         */
+        private Actor actor;
+
+        /**
+         * The packed cell changed, or the cell an actor is moving from.
+         */
+        private int from;
+
+        /**
+         * The packed cell an actor is moving to.
+         */
+        private int to;
+
+        /**
+         * The replacement tile, or the entity to wake.
+         */
+        private Tile tile;
+
+        /**
+         * How many ticks from now to wake the entity.
+         */
+        private int delay;
+
+        /**
+         * The change to run, for changes without their own kind.
+         */
+        private Runnable action;
+    }
+
+    /**
+     * The number of low bits of a sort key used to store the index of the effect.
+     */
+    private static final int INDEX_BITS = 24;
+
+    /**
+     * Mask for the index stored in a sort key.
+     */
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    /**
+     * The initial capacity of the sort key array.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Every effect created, the first {@link #count} of which are buffered.
+     */
+    private final ArrayList<Effect> effects = new ArrayList<>();
+
+    /**
+     * The sort key of each buffered effect, its issuer's grid order with its index in the low bits.
+     */
+    private long[] sortKeys = new long[INITIAL_CAPACITY];
+
+    /**
+     * The number of buffered effects.
+     */
+    private int count;
+
+    /**
+     * What is being done with changes.
+     */
+    private Phase phase = Phase.IDLE;
+
+    /**
+     * The entity being ticked.
+     */
+    private Tile issuer;
+
+    /**
+     * Where the entity being ticked comes in grid order.
+     */
+    private long issuerOrder;
+
+    /**
+     * How the player died this tick, null if they haven't.
+     */
+    private GameManager.DeathState death;
+
+    /**
+     * Whether the level was won this tick.
+     */
+    private boolean won;
+
+    /**
+     * Starts buffering changes.
+     */
+    void begin() {
+        phase = Phase.COLLECTING;
+        death = null;
+        won = false;
+    }
+
+    /**
+     * Sets the entity whose changes are being buffered.
+     * @param entity The entity being ticked.
+     * @param order Where the entity comes in grid order.
+     */
+    void setIssuer(Tile entity, long order) {
+        issuer = entity;
+        issuerOrder = order;
+    }
+
+    /**
+     * Checks if level changes should be buffered rather than applied.
+     * @return true while entities are deciding what to do.
+     */
+    boolean isCollecting() {
+        return phase == Phase.COLLECTING;
+    }
+
+    /**
+     * Buffers an actor moving.
+     * @param actor The actor moving.
+     * @param from The packed cell the actor is moving from.
+     * @param to The packed cell the actor is moving to.
+     */
+    void moveActor(Actor actor, int from, int to) {
+        Effect effect = add(Kind.MOVE_ACTOR);
+        effect.actor = actor;
+        effect.from = from;
+        effect.to = to;
+    }
+
+    /**
+     * Buffers an actor being removed.
+     * @param actor The actor being removed.
+     * @param position The packed cell the actor is in.
+     */
+    void removeActor(Actor actor, int position) {
+        Effect effect = add(Kind.REMOVE_ACTOR);
+        effect.actor = actor;
+        effect.from = position;
+    }
+
+    /**
+     * Buffers a tile being replaced.
+     * @param position The packed cell of the tile.
+     * @param tile The replacement tile.
+     */
+    void replaceTile(int position, Tile tile) {
+        Effect effect = add(Kind.REPLACE_TILE);
+        effect.from = position;
+        effect.tile = tile;
+    }
+
+    /**
+     * Buffers an item being removed.
+     * @param position The packed cell of the item.
+     */
+    void removeItem(int position) {
+        add(Kind.REMOVE_ITEM).from = position;
+    }
+
+    /**
+     * Buffers an entity being scheduled to wake.
+     * @param entity The entity to wake.
+     * @param delay How many ticks from now to wake it.
+     */
+    void scheduleWake(Tile entity, int delay) {
+        Effect effect = add(Kind.WAKE);
+        effect.tile = entity;
+        effect.delay = delay;
+    }
+
+    /**
+     * Buffers any other change to the level.
+     * @param action The change to make.
+     */
+    void run(Runnable action) {
+        add(Kind.RUN).action = action;
+    }
+
+    /**
+     * Buffers the player losing, if nothing has ended the game this tick.
+     * @param deathState How the player died.
+     * @return true if the loss was buffered, false if it should be applied now.
+     */
+    boolean endGame(GameManager.DeathState deathState) {
+        if (phase == Phase.IDLE) {
+            return false;
+        }
+        if (death == null && !won) {
+            death = deathState;
+        }
+        return true;
+    }
+
+    /**
+     * Buffers the level being won, if nothing has ended the game this tick.
+     * @return true if the win was buffered, false if it should be applied now.
+     */
+    boolean winLevel() {
+        if (phase == Phase.IDLE) {
+            return false;
+        }
+        if (death == null) {
+            won = true;
+        }
+        return true;
+    }
+
+    /**
+     * Moves the changes buffered by a region into this buffer, after the changes already in it.
+     * Regions must be merged in grid order. Effects are swapped between the buffers rather
+     * than copied, so neither buffer allocates once both have grown.
+     * @param region The region's buffer, which stops buffering.
+     */
+    void merge(TickEffects region) {
+        if (death == null && !won) {
+            death = region.death;
+            won = region.won;
+        }
+        for (int i = 0; i < region.count; i++) {
+            if (count == effects.size()) {
+                effects.add(new Effect());
+            }
+            if (count == sortKeys.length) {
+                sortKeys = Arrays.copyOf(sortKeys, count * 2);
+            }
+            Effect effect = region.effects.get(i);
+            region.effects.set(i, effects.get(count));
+            effects.set(count, effect);
+            sortKeys[count] = (region.sortKeys[i] & ~INDEX_MASK) | count;
+            count++;
+        }
+        region.count = 0;
+        region.issuer = null;
+        region.phase = Phase.IDLE;
+    }
+
+    /**
+     * Applies every buffered change, then any win or loss, and stops buffering.
+     */
+    void commit() {
+        phase = Phase.COMMITTING;
+        issuer = null;
+        TickRegistry.sort(sortKeys, count);
+        for (int i = 0; i < count; i++) {
+            Effect effect = effects.get((int) (sortKeys[i] & INDEX_MASK));
+            apply(effect);
+            effect.issuer = null;
+            effect.actor = null;
+            effect.tile = null;
+            effect.action = null;
+        }
+        count = 0;
+        phase = Phase.IDLE;
+
+        if (death != null) {
+            GameManager.endGame(death);
+        } else if (won) {
+            GameManager.winLevel();
+        }
+    }
+
+    /**
+     * Applies a buffered change, following the conflict rules.
+     * @param effect The change to apply.
+     */
+    private void apply(Effect effect) {
+        switch (effect.kind) {
+            case MOVE_ACTOR -> {
+                if (GameManager.checkActor(effect.from) != effect.actor) {
+                    return;
+                }
+                if (GameManager.checkActor(effect.to) != null) {
+                    if (effect.issuer instanceof ActionTile) {
+                        GameManager.scheduleWake(effect.issuer, 1);
+                    }
+                    return;
+                }
+                GameManager.moveActor(effect.from, effect.to);
+            }
+            case REMOVE_ACTOR -> {
+                if (GameManager.checkActor(effect.from) == effect.actor) {
+                    GameManager.removeActor(Coordinate.toPoint(effect.from));
+                }
+            }
+            case REPLACE_TILE -> GameManager.replaceTile(Coordinate.toPoint(effect.from), effect.tile);
+            case REMOVE_ITEM -> GameManager.removeItem(Coordinate.toPoint(effect.from));
+            case WAKE -> GameManager.scheduleWake(effect.tile, effect.delay);
+            case RUN -> effect.action.run();
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Takes the next free effect, creating one if needed.
+     * @param kind The kind of change.
+     * @return The effect to fill in.
+     */
+    private Effect add(Kind kind) {
+        if (count == effects.size()) {
+            effects.add(new Effect());
+        }
+        if (count == sortKeys.length) {
+            sortKeys = Arrays.copyOf(sortKeys, count * 2);
+        }
+        sortKeys[count] = (issuerOrder << INDEX_BITS) | count;
+        Effect effect = effects.get(count++);
+        effect.kind = kind;
+        effect.issuer = issuer;
+        return effect;
+    }
+}
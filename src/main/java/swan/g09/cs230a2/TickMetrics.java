@@ -0,0 +1,180 @@
+package swan.g09.cs230a2;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Statistics about how well a tick loop is keeping to its schedule: how many ticks
+ * started late, how many were skipped to catch up, how many overran their period,
+ * and a histogram of how long ticks took to run. Written by the thread running the
+ * ticks and safe to read from any other thread.
+ *
+ * @version 0.1
+ */
+public class TickMetrics {
+
+    /**
+     * The number of histogram buckets. Bucket i counts ticks taking less than 2^i microseconds,
+     * and at least half that, with the last bucket counting everything longer.
+     */
+    public static final int BUCKETS = 24;
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final long NANOS_IN_MICRO = 1000;
+
+    /**
+     * The time between ticks, in nanoseconds.
+     */
+    private final long periodNanos;
+
+    /**
+     * The number of ticks run.
+     */
+    private final AtomicLong ticks = new AtomicLong();
+
+    /**
+     * The number of ticks which started more than half a period after their deadline.
+     */
+    private final AtomicLong lateTicks = new AtomicLong();
+
+    /**
+     * The number of ticks skipped because the loop fell too far behind.
+     */
+    private final AtomicLong skippedTicks = new AtomicLong();
+
+    /**
+     * The number of ticks which took longer than a period to run.
+     */
+    private final AtomicLong overrunTicks = new AtomicLong();
+
+    /**
+     * The longest a tick has taken, in nanoseconds.
+     */
+    private final AtomicLong maxTickNanos = new AtomicLong();
+
+    /**
+     * The number of ticks in each bucket of the duration histogram.
+     */
+    private final AtomicLongArray durations = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Creates empty metrics for a tick loop.
+     * @param periodNanos The time between ticks, in nanoseconds.
+     */
+    public TickMetrics(long periodNanos) {
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Records a tick which has been run.
+     * @param lateNanos How long after its deadline the tick started, in nanoseconds.
+     * @param durationNanos How long the tick took to run, in nanoseconds.
+     */
+    public void recordTick(long lateNanos, long durationNanos) {
+        ticks.incrementAndGet();
+        if (lateNanos > periodNanos / 2) {
+            lateTicks.incrementAndGet();
+        }
+        if (durationNanos > periodNanos) {
+            overrunTicks.incrementAndGet();
+        }
+        if (durationNanos > maxTickNanos.get()) {
+            maxTickNanos.set(durationNanos);
+        }
+        durations.incrementAndGet(bucketOf(durationNanos));
+    }
+
+    /**
+     * Records ticks which were skipped rather than run.
+     * @param count The number of ticks skipped.
+     */
+    public void recordSkipped(long count) {
+        skippedTicks.addAndGet(count);
+    }
+
+    /**
+     * Finds the histogram bucket for a tick duration.
+     * @param durationNanos The duration of the tick, in nanoseconds.
+     * @return The index of the bucket.
+     */
+    private static int bucketOf(long durationNanos) {
+        long micros = Math.max(0, durationNanos / NANOS_IN_MICRO);
+        return Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * Gets the number of ticks run.
+     * @return The number of ticks.
+     */
+    public long getTicks() {
+        return ticks.get();
+    }
+
+    /**
+     * Gets the number of ticks which started more than half a period after their deadline.
+     * @return The number of late ticks.
+     */
+    public long getLateTicks() {
+        return lateTicks.get();
+    }
+
+    /**
+     * Gets the number of ticks skipped because the loop fell too far behind.
+     * @return The number of skipped ticks.
+     */
+    public long getSkippedTicks() {
+        return skippedTicks.get();
+    }
+
+    /**
+     * Gets the number of ticks which took longer than a period to run.
+     * @return The number of overrunning ticks.
+     */
+    public long getOverrunTicks() {
+        return overrunTicks.get();
+    }
+
+    /**
+     * Gets the longest a tick has taken.
+     * @return The longest tick, in nanoseconds.
+     */
+    public long getMaxTickNanos() {
+        return maxTickNanos.get();
+    }
+
+    /**
+     * Gets the histogram of tick durations.
+     * @return The number of ticks in each bucket, see {@link #BUCKETS}.
+     */
+    public long[] getDurationHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = durations.get(i);
+        }
+        return counts;
+    }
+
+    /**
+     * Estimates a percentile of tick duration from the histogram.
+     * @param percentile The percentile, between 0 and 100.
+     * @return An upper bound on the duration, in microseconds, 0 if no ticks have run.
+     */
+    public long getDurationPercentile(double percentile) {
+        long[] counts = getDurationHistogram();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        long target = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= target && seen > 0) {
+                return 1L << i;
+            }
+        }
+        return 0;
+    }
+}
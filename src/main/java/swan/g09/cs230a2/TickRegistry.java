@@ -0,0 +1,341 @@
+package swan.g09.cs230a2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Keeps track of every entity in a level that does something when ticked,
+ * and wakes each one only on the ticks it asked for using a {@link TimerWheel}.
+ * An entity asks for its first wake through its initial wake delay when it is
+ * registered, and for later wakes through {@link GameManager#scheduleWake}.
+ * Entities due on the same tick are woken in the same order the grid used to be
+ * scanned in: column by column, top to bottom, with a tile before the actor on it.
+ * The tick is advanced before input is handled, so wakes scheduled by the player's
+ * input are counted from the same tick as wakes scheduled by entities.
+ * Because the changes entities make are buffered by {@link TickEffects} and applied
+ * in grid order, the order entities are woken in doesn't change the result of a tick.
+ *
+ * @version 0.2
+ */
+class TickRegistry {
+
+    /**
+     * Returned as an initial wake delay by entities that should not be woken until they schedule themselves.
+     */
+    static final int NO_WAKE = -1;
+
+    /**
+     * The initial capacity of the due entity arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The number of low bits of a sort key used to store the index of the entity.
+     */
+    private static final int INDEX_BITS = 24;
+
+    /**
+     * Mask for the index stored in a sort key.
+     */
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    /**
+     * Due lists shorter than this are insertion sorted, longer ones are heap sorted.
+     */
+    private static final int INSERTION_SORT_LIMIT = 32;
+
+    /**
+     * The height of the level, used to order entities column by column.
+     */
+    private final int levelHeight;
+
+    /**
+     * The pending wake of every registered entity.
+     */
+    private final TimerWheel<Tile> wheel = new TimerWheel<>();
+
+    /**
+     * The registered entities.
+     */
+    private final Set<Tile> members = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * The entities due on the current tick, in the order the wheel gave them.
+     */
+    private final ArrayList<Tile> due = new ArrayList<>();
+
+    /**
+     * The entities due on the current tick, sorted into grid order.
+     */
+    private Tile[] ordered = new Tile[INITIAL_CAPACITY];
+
+    /**
+     * The sort key of each due entity, its grid order with its index in the due list in the low bits.
+     */
+    private long[] sortKeys = new long[INITIAL_CAPACITY];
+
+    /**
+     * The number of entities due on the current tick.
+     */
+    private int dueCount;
+
+    /**
+     * Creates an empty registry for a level.
+     * @param height The height of the level.
+     */
+    TickRegistry(int height) {
+        levelHeight = height;
+    }
+
+    /**
+     * Checks whether a tile needs to be ticked.
+     * @param tile The tile to check.
+     * @return true if the tile is an actor or an action tile with tick behaviour.
+     */
+    static boolean isTickable(Tile tile) {
+        return tile instanceof Actor || (tile instanceof ActionTile actionTile && actionTile.isTickable());
+    }
+
+    /**
+     * Registers an entity and schedules its first wake.
+     * Entities which don't need ticking are ignored.
+     * @param tile The entity to register.
+     */
+    void register(Tile tile) {
+        if (tile != null && isTickable(tile) && members.add(tile)) {
+            int delay = tile instanceof Actor actor
+                    ? actor.getInitialWakeDelay()
+                    : ((ActionTile) tile).getInitialWakeDelay();
+            if (delay != NO_WAKE) {
+                scheduleWake(tile, delay);
+            }
+        }
+    }
+
+    /**
+     * Stops an entity being ticked, cancelling any pending wake.
+     * @param tile The entity to unregister.
+     */
+    void unregister(Tile tile) {
+        if (tile != null && members.remove(tile)) {
+            wheel.cancel(tile);
+        }
+    }
+
+    /**
+     * Schedules a registered entity to be woken after a number of ticks,
+     * replacing any wake already pending for it. Unregistered entities are ignored.
+     * @param tile The entity to wake.
+     * @param delay How many ticks from now to wake it, at least 1.
+     * @throws IllegalArgumentException if the delay is less than 1
+     */
+    void scheduleWake(Tile tile, int delay) {
+        if (delay < 1) {
+            throw new IllegalArgumentException("Wake delay must be at least 1 tick!");
+        }
+        if (members.contains(tile)) {
+            wheel.schedule(tile, wheel.getCurrentTick() + delay);
+        }
+    }
+
+    /**
+     * Gets the number of ticks this registry has run.
+     * @return The current tick.
+     */
+    long getCurrentTick() {
+        return wheel.getCurrentTick();
+    }
+
+    /**
+     * Gets the number of registered entities.
+     * @return The number of registered entities.
+     */
+    int size() {
+        return members.size();
+    }
+
+    /**
+     * Advances to the next tick and collects the entities due on it.
+     */
+    void advance() {
+        wheel.advance(due);
+        dueCount = sortByPosition();
+        due.clear();
+    }
+
+    /**
+     * Wakes every entity due on the current tick, in grid order.
+     * Entities which leave the level, or have their wake rescheduled,
+     * after the tick started are skipped.
+     * @param effects The buffer collecting the changes the entities make.
+     */
+    void wakeDue(TickEffects effects) {
+        int count = dueCount;
+        dueCount = 0;
+        wake(0, count, effects);
+    }
+
+    /**
+     * Wakes a run of the entities due on the current tick, in grid order.
+     * Runs which don't overlap can be woken on different threads at once, as long as
+     * the changes the entities make are being buffered, see {@link ParallelTicker}.
+     * @param from The index in the due entities of the first entity to wake.
+     * @param to The index after the last entity to wake.
+     * @param effects The buffer collecting the changes the entities make.
+     */
+    void wake(int from, int to, TickEffects effects) {
+        for (int i = from; i < to; i++) {
+            Tile entity = ordered[i];
+            ordered[i] = null;
+            if (!members.contains(entity) || wheel.isScheduled(entity)) {
+                continue;
+            }
+            effects.setIssuer(entity, orderKey(entity));
+            if (entity instanceof Actor actor) {
+                actor.tick();
+            } else {
+                ((ActionTile) entity).tick();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of entities due on the current tick which haven't been woken.
+     * @return The number of due entities.
+     */
+    int getDueCount() {
+        return dueCount;
+    }
+
+    /**
+     * Gets an entity due on the current tick, before the due entities are woken.
+     * @param index The index of the entity in the due entities, in grid order.
+     * @return The entity.
+     */
+    Tile getDue(int index) {
+        return ordered[index];
+    }
+
+    /**
+     * Gets the column of the level a due entity is in.
+     * @param index The index of the entity in the due entities, in grid order.
+     * @return The x coordinate of the entity.
+     */
+    int getDueColumn(int index) {
+        return Coordinate.getX(ordered[index].getPositionKey());
+    }
+
+    /**
+     * Marks every entity due on the current tick as woken, after they have been
+     * woken in runs with {@link #wake(int, int, TickEffects)}.
+     */
+    void clearDue() {
+        dueCount = 0;
+    }
+
+    /**
+     * Copies the due entities into grid order.
+     * @return The number of due entities.
+     */
+    private int sortByPosition() {
+        int count = due.size();
+        if (count > ordered.length) {
+            int capacity = Math.max(ordered.length * 2, count);
+            ordered = new Tile[capacity];
+            sortKeys = new long[capacity];
+        }
+
+        for (int i = 0; i < count; i++) {
+            sortKeys[i] = (orderKey(due.get(i)) << INDEX_BITS) | i;
+        }
+        sort(sortKeys, count);
+        for (int i = 0; i < count; i++) {
+            ordered[i] = due.get((int) (sortKeys[i] & INDEX_MASK));
+        }
+        return count;
+    }
+
+    /**
+     * Sorts the start of an array in place, without allocating.
+     * @param keys The array to sort.
+     * @param count The number of elements to sort.
+     */
+    static void sort(long[] keys, int count) {
+        if (count < INSERTION_SORT_LIMIT) {
+            insertionSort(keys, count);
+        } else {
+            heapSort(keys, count);
+        }
+    }
+
+    /**
+     * Sorts the start of an array in place.
+     * @param keys The array to sort.
+     * @param count The number of elements to sort.
+     */
+    private static void insertionSort(long[] keys, int count) {
+        for (int i = 1; i < count; i++) {
+            long key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            keys[j + 1] = key;
+        }
+    }
+
+    /**
+     * Sorts the start of an array in place, without allocating like Arrays.sort can.
+     * @param keys The array to sort.
+     * @param count The number of elements to sort.
+     */
+    private static void heapSort(long[] keys, int count) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(keys, i, count);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            long largest = keys[0];
+            keys[0] = keys[end];
+            keys[end] = largest;
+            siftDown(keys, 0, end);
+        }
+    }
+
+    /**
+     * Moves an element of a max-heap down until both its children are smaller.
+     * @param keys The heap.
+     * @param index The index of the element to move.
+     * @param count The number of elements in the heap.
+     */
+    private static void siftDown(long[] keys, int index, int count) {
+        long key = keys[index];
+        int i = index;
+        int child = 2 * i + 1;
+        while (child < count) {
+            if (child + 1 < count && keys[child + 1] > keys[child]) {
+                child++;
+            }
+            if (keys[child] <= key) {
+                break;
+            }
+            keys[i] = keys[child];
+            i = child;
+            child = 2 * i + 1;
+        }
+        keys[i] = key;
+    }
+
+    /**
+     * Calculates where an entity comes in the tick order.
+     * @param entity The entity.
+     * @return A key which sorts entities column by column, with tiles before actors.
+     */
+    long orderKey(Tile entity) {
+        int key = entity.getPositionKey();
+        long cell = (long) Coordinate.getX(key) * levelHeight + Coordinate.getY(key);
+        return cell * 2 + (entity instanceof Actor ? 1 : 0);
+    }
+}
@@ -0,0 +1,110 @@
+package swan.g09.cs230a2;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a task at a fixed rate on its own thread, timed with {@link System#nanoTime()}.
+ * Each tick has a deadline a whole number of periods after the start, so a slow tick
+ * or a GC pause doesn't push back every tick after it like fixed-delay scheduling does;
+ * the ticks which were missed are run back to back to catch up. If the loop falls more
+ * than {@link #MAX_CATCH_UP_TICKS} behind, the extra ticks are skipped instead, so a
+ * long stall doesn't turn into a burst of game time.
+ *
+ * @version 0.1
+ */
+class TickScheduler {
+
+    /**
+     * The most missed ticks which will be run back to back to catch up.
+     */
+    static final int MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * The task run every tick.
+     */
+    private final Runnable task;
+
+    /**
+     * The time between ticks, in nanoseconds.
+     */
+    private final long periodNanos;
+
+    /**
+     * The metrics recorded for the ticks run.
+     */
+    private final TickMetrics metrics;
+
+    /**
+     * The thread running the ticks.
+     */
+    private final Thread thread;
+
+    /**
+     * Whether the scheduler is running.
+     */
+    private volatile boolean running;
+
+    /**
+     * Creates a scheduler which hasn't been started.
+     * @param task The task to run every tick.
+     * @param periodNanos The time between ticks, in nanoseconds.
+     * @param name The name of the thread running the ticks.
+     */
+    TickScheduler(Runnable task, long periodNanos, String name) {
+        this.task = task;
+        this.periodNanos = periodNanos;
+        metrics = new TickMetrics(periodNanos);
+        thread = new Thread(this::loop, name);
+    }
+
+    /**
+     * Starts running ticks, the first one a period from now.
+     */
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Stops running ticks. A tick already running is allowed to finish.
+     */
+    void stop() {
+        running = false;
+        if (Thread.currentThread() != thread) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Gets the metrics recorded for the ticks run.
+     * @return The scheduler's metrics.
+     */
+    TickMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Waits for each tick's deadline and runs it, until stopped.
+     */
+    private void loop() {
+        long deadline = System.nanoTime() + periodNanos;
+        while (running) {
+            long now = System.nanoTime();
+            if (now < deadline) {
+                LockSupport.parkNanos(deadline - now);
+                continue;
+            }
+
+            long behind = (now - deadline) / periodNanos;
+            if (behind > MAX_CATCH_UP_TICKS) {
+                long skipped = behind - MAX_CATCH_UP_TICKS;
+                metrics.recordSkipped(skipped);
+                deadline += skipped * periodNanos;
+            }
+
+            task.run();
+            metrics.recordTick(now - deadline, System.nanoTime() - now);
+            deadline += periodNanos;
+        }
+    }
+}
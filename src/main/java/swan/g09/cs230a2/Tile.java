@@ -41,11 +41,14 @@ public abstract class Tile {
     }
 
     /**
-     * Change the image path being used by this Tile.
+     * Change the image path being used by this Tile, and have the game canvas draw it again.
      * @param path The new path to the image.
      */
     protected void updateImagePath(String path) {
        imagePath = path;
+       if (position != null) {
+           GameManager.markCellDirty(getPositionKey());
+       }
     }
 
     /**
@@ -66,6 +69,15 @@ public abstract class Tile {
         return position;
     }
 
+    /**
+     * Retrieves the position of the tile as a packed coordinate.
+     *
+     * @return The packed position of the tile (see {@link Coordinate}).
+     */
+    public int getPositionKey() {
+        return Coordinate.of(position);
+    }
+
     /**
      * Gets the type of the tile.
      *
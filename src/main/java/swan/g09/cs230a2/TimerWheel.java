@@ -0,0 +1,241 @@
+package swan.g09.cs230a2;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * A hierarchical timer wheel which wakes entities on the tick they asked for.
+ * The innermost wheel has a slot for each of the next 64 ticks, and each outer
+ * wheel has slots covering 64 times as many ticks as the one inside it. Timers
+ * are moved inwards as their tick gets closer, so scheduling, cancelling and
+ * advancing a tick all cost O(1) per timer, however far away the tick is.
+ * Each entity has at most one pending wake; scheduling it again replaces it.
+ *
+ * @param <E> The type of entity being woken.
+ * @version 0.1
+ */
+class TimerWheel<E> {
+
+    /**
+     * The number of bits of the tick used to index each wheel.
+     */
+    private static final int SLOT_BITS = 6;
+
+    /**
+     * The number of slots in each wheel.
+     */
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    /**
+     * Mask for finding a slot index.
+     */
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /**
+     * The number of wheels, which lets timers be scheduled up to 2^24 ticks ahead
+     * before they are parked in the outermost wheel and re-checked.
+     */
+    private static final int LEVELS = 4;
+
+    /**
+     * A pending wake-up for an entity, linked into the list for its slot.
+     *
+     * @param <E> The type of entity being woken.
+     */
+    private static final class Node<E> {
+        /**
+         * The entity to wake, null for the head of a slot.
+         */
+        private final E entity;
+
+        /**
+         * The tick the entity should be woken on.
+         */
+        private long due;
+
+        /**
+         * The previous node in the slot.
+         */
+        private Node<E> prev = this;
+
+        /**
+         * The next node in the slot.
+         */
+        private Node<E> next = this;
+
+        /**
+         * Creates an unlinked node.
+         * @param target The entity to wake.
+         */
+        Node(E target) {
+            entity = target;
+        }
+
+        /**
+         * Checks if this node is linked into a slot.
+         * @return true if the node is in a slot.
+         */
+        boolean isLinked() {
+            return next != this;
+        }
+
+        /**
+         * Removes this node from its slot.
+         */
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+
+        /**
+         * Adds a node to the end of the slot this node is the head of.
+         * @param node The node to add.
+         */
+        void append(Node<E> node) {
+            node.prev = prev;
+            node.next = this;
+            prev.next = node;
+            prev = node;
+        }
+    }
+
+    /**
+     * The head node of every slot, indexed by wheel then slot.
+     */
+    private final Node<E>[][] wheels;
+
+    /**
+     * The node for each entity, reused every time the entity is scheduled.
+     */
+    private final IdentityHashMap<E, Node<E>> nodes = new IdentityHashMap<>();
+
+    /**
+     * The tick the wheel has advanced to.
+     */
+    private long now;
+
+    /**
+     * Creates an empty timer wheel at tick 0.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel() {
+        wheels = new Node[LEVELS][SLOTS];
+        for (Node<E>[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheel[i] = new Node<>(null);
+            }
+        }
+    }
+
+    /**
+     * Gets the tick the wheel has advanced to.
+     * @return The current tick.
+     */
+    long getCurrentTick() {
+        return now;
+    }
+
+    /**
+     * Schedules an entity to be woken on a tick, replacing any wake already scheduled for it.
+     * @param entity The entity to wake.
+     * @param tick The tick to wake it on, which must be after the current tick.
+     * @throws IllegalArgumentException if the tick is not in the future
+     */
+    void schedule(E entity, long tick) {
+        if (tick <= now) {
+            throw new IllegalArgumentException("Wakes must be scheduled after the current tick!");
+        }
+        Node<E> node = nodes.computeIfAbsent(entity, Node::new);
+        if (node.isLinked()) {
+            node.unlink();
+        }
+        node.due = tick;
+        insert(node);
+    }
+
+    /**
+     * Cancels any pending wake for an entity and forgets about it.
+     * @param entity The entity to cancel.
+     */
+    void cancel(E entity) {
+        Node<E> node = nodes.remove(entity);
+        if (node != null && node.isLinked()) {
+            node.unlink();
+        }
+    }
+
+    /**
+     * Checks whether an entity has a pending wake.
+     * @param entity The entity to check.
+     * @return true if the entity is scheduled.
+     */
+    boolean isScheduled(E entity) {
+        Node<E> node = nodes.get(entity);
+        return node != null && node.isLinked();
+    }
+
+    /**
+     * Advances the wheel by one tick and collects every entity due on that tick.
+     * @param due The list to add due entities to, in no particular order.
+     * @return The tick the wheel advanced to.
+     */
+    long advance(ArrayList<E> due) {
+        now++;
+
+        // When an inner wheel wraps around, pull the next slot of the wheel outside it inwards
+        int level = 0;
+        while (level < LEVELS - 1 && ((now >> (SLOT_BITS * (level + 1))) << (SLOT_BITS * (level + 1))) == now) {
+            level++;
+        }
+        for (int l = level; l > 0; l--) {
+            cascade(wheels[l][(int) (now >> (SLOT_BITS * l)) & SLOT_MASK]);
+        }
+
+        Node<E> head = wheels[0][(int) now & SLOT_MASK];
+        while (head.next != head) {
+            Node<E> node = head.next;
+            node.unlink();
+            if (node.due == now) {
+                due.add(node.entity);
+            } else {
+                insert(node);
+            }
+        }
+        return now;
+    }
+
+    /**
+     * Re-inserts every node in a slot, moving it to an inner wheel.
+     * @param head The head of the slot.
+     */
+    private void cascade(Node<E> head) {
+        while (head.next != head) {
+            Node<E> node = head.next;
+            node.unlink();
+            insert(node);
+        }
+    }
+
+    /**
+     * Links a node into the innermost wheel whose range covers its tick.
+     * Nodes due on the current tick go into the current slot, which is
+     * expired straight after cascading.
+     * @param node The node to insert.
+     */
+    private void insert(Node<E> node) {
+        long due = Math.max(node.due, now);
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((due >> shift) - (now >> shift) < SLOTS) {
+                wheels[level][(int) (due >> shift) & SLOT_MASK].append(node);
+                return;
+            }
+        }
+
+        // Too far away for any wheel, park it in the furthest slot and re-check it when it cascades
+        int shift = SLOT_BITS * (LEVELS - 1);
+        wheels[LEVELS - 1][(int) ((now >> shift) + SLOT_MASK) & SLOT_MASK].append(node);
+    }
+}
@@ -0,0 +1,377 @@
+package swan.g09.cs230a2;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Answers what can be seen from where on the level, with walls and blocks blocking sight,
+ * see {@link OccluderIndex}. Lines of sight between two cells are checked a word at a time
+ * along rows and columns, and otherwise cell by cell along the line between them. The cells
+ * visible from a cell, all around it or in a cone facing one way, are found by recursive
+ * shadowcasting, which only visits each visible cell once.
+ *
+ * <p>The cells visible from each origin are remembered until the tick ends or a cell starts
+ * or stops blocking sight, so any number of entities asking about the same origin on a tick
+ * only cost one cast. Entities ticked in parallel can ask at once.</p>
+ *
+ * @version 0.1
+ */
+final class VisibilityService {
+
+    /**
+     * The number of octants around a cell.
+     */
+    private static final int OCTANTS = 8;
+
+    /**
+     * How a step along the row of each octant changes x.
+     */
+    private static final int[] ROW_X = {1, 0, 0, -1, -1, 0, 0, 1};
+
+    /**
+     * How a step away from the origin in each octant changes x.
+     */
+    private static final int[] DEPTH_X = {0, 1, -1, 0, 0, -1, 1, 0};
+
+    /**
+     * How a step along the row of each octant changes y.
+     */
+    private static final int[] ROW_Y = {0, 1, 1, 0, 0, -1, -1, 0};
+
+    /**
+     * How a step away from the origin in each octant changes y.
+     */
+    private static final int[] DEPTH_Y = {1, 0, 0, 1, -1, 0, 0, -1};
+
+    /**
+     * The octants of the cone facing each direction, as bits, in the order of {@link Direction}.
+     */
+    private static final int[] FACING_OCTANTS = {1 << 0 | 1 << 3, 1 << 2 | 1 << 5, 1 << 4 | 1 << 7, 1 << 1 | 1 << 6};
+
+    /**
+     * Every octant, as bits.
+     */
+    private static final int ALL_OCTANTS = (1 << OCTANTS) - 1;
+
+    /**
+     * The number of bits the origin of a remembered cast is shifted by in its key.
+     */
+    private static final int ORIGIN_SHIFT = 32;
+
+    /**
+     * The number of bits the radius of a remembered cast is shifted by in its key, above its facing.
+     */
+    private static final int RADIUS_SHIFT = 3;
+
+    /**
+     * Half a cell, the distance from the centre of a cell to its edges.
+     */
+    private static final double HALF = 0.5;
+
+    /**
+     * The cells which block sight.
+     */
+    private final OccluderIndex occluders;
+
+    /**
+     * The cells visible from each origin asked about since the casts were forgotten, by origin, radius and facing.
+     */
+    private final ConcurrentHashMap<Long, VisibleCells> casts = new ConcurrentHashMap<>();
+
+    /**
+     * The tick the remembered casts were made on.
+     */
+    private volatile long castTick = -1;
+
+    /**
+     * The number of changes to the occluders when the remembered casts were made.
+     */
+    private volatile int castChanges = -1;
+
+    /**
+     * The number of casts made, rather than remembered.
+     */
+    private final AtomicLong castCount = new AtomicLong();
+
+    /**
+     * The cells visible from an origin.
+     */
+    static final class VisibleCells {
+        /**
+         * The x coordinate of the origin.
+         */
+        private final int originX;
+
+        /**
+         * The y coordinate of the origin.
+         */
+        private final int originY;
+
+        /**
+         * The furthest distance from the origin seen.
+         */
+        private final int radius;
+
+        /**
+         * The width and height of the square around the origin the cells are in.
+         */
+        private final int size;
+
+        /**
+         * The bits of the square around the origin, row by row, set for each visible cell.
+         */
+        private final long[] bits;
+
+        /**
+         * The number of visible cells.
+         */
+        private int count;
+
+        /**
+         * Creates an empty set of cells.
+         * @param x The x coordinate of the origin.
+         * @param y The y coordinate of the origin.
+         * @param castRadius The furthest distance from the origin seen.
+         */
+        private VisibleCells(int x, int y, int castRadius) {
+            originX = x;
+            originY = y;
+            radius = castRadius;
+            size = 2 * castRadius + 1;
+            bits = new long[(int) (((long) size * size + WalkableGrid.BIT_MASK) >>> WalkableGrid.WORD_SHIFT)];
+        }
+
+        /**
+         * Checks whether a cell is visible.
+         * @param key The packed cell.
+         * @return true if the cell can be seen from the origin.
+         */
+        boolean isVisible(int key) {
+            int index = indexOf(Coordinate.getX(key), Coordinate.getY(key));
+            return index != -1 && (bits[index >>> WalkableGrid.WORD_SHIFT] & 1L << index) != 0;
+        }
+
+        /**
+         * Gets the number of visible cells.
+         * @return The number of cells, including the origin.
+         */
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * Passes each visible cell to an action, row by row.
+         * @param action Given the packed position of each visible cell.
+         */
+        void forEach(IntConsumer action) {
+            for (int word = 0; word < bits.length; word++) {
+                long remaining = bits[word];
+                while (remaining != 0) {
+                    int index = (word << WalkableGrid.WORD_SHIFT) + Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    action.accept(Coordinate.pack(originX - radius + index % size, originY - radius + index / size));
+                }
+            }
+        }
+
+        /**
+         * Marks a cell as visible.
+         * @param x The x coordinate of the cell.
+         * @param y The y coordinate of the cell.
+         */
+        private void add(int x, int y) {
+            int index = indexOf(x, y);
+            long bit = 1L << index;
+            if ((bits[index >>> WalkableGrid.WORD_SHIFT] & bit) == 0) {
+                bits[index >>> WalkableGrid.WORD_SHIFT] |= bit;
+                count++;
+            }
+        }
+
+        /**
+         * Gets the index of a cell in the square around the origin.
+         * @param x The x coordinate of the cell.
+         * @param y The y coordinate of the cell.
+         * @return The index, -1 if the cell is outside the square.
+         */
+        private int indexOf(int x, int y) {
+            int dx = x - originX + radius;
+            int dy = y - originY + radius;
+            if (dx < 0 || dy < 0 || dx >= size || dy >= size) {
+                return -1;
+            }
+            return dy * size + dx;
+        }
+    }
+
+    /**
+     * Creates a service answering what can be seen on a level.
+     * @param occluders The cells of the level which block sight.
+     */
+    VisibilityService(OccluderIndex occluders) {
+        this.occluders = occluders;
+    }
+
+    /**
+     * Checks whether there is a clear line of sight between two cells, with no cell between
+     * them blocking sight. Along a row or column the cells between are those strictly between
+     * the ends, and otherwise those on the line between their centres, walked from the end
+     * earlier in grid order so the answer is the same either way round.
+     * @param from The packed position of one end.
+     * @param to The packed position of the other end.
+     * @return true if both ends are in the level and nothing between them blocks sight.
+     */
+    boolean isLineClear(int from, int to) {
+        int fromX = Coordinate.getX(from);
+        int fromY = Coordinate.getY(from);
+        int toX = Coordinate.getX(to);
+        int toY = Coordinate.getY(to);
+        if (!occluders.contains(fromX, fromY) || !occluders.contains(toX, toY)) {
+            return false;
+        }
+        if (fromY == toY) {
+            return occluders.isClear(false, fromY, fromX, toX);
+        }
+        if (fromX == toX) {
+            return occluders.isClear(true, fromX, fromY, toY);
+        }
+        if (toY < fromY || toY == fromY && toX < fromX) {
+            return isLineClear(to, from);
+        }
+
+        // Bresenham's line, not checking either end
+        int dx = Math.abs(toX - fromX);
+        int dy = toY - fromY;
+        int stepX = toX > fromX ? 1 : -1;
+        int error = dx - dy;
+        int x = fromX;
+        int y = fromY;
+        while (true) {
+            int doubled = 2 * error;
+            if (doubled > -dy) {
+                error -= dy;
+                x += stepX;
+            }
+            if (doubled < dx) {
+                error += dx;
+                y++;
+            }
+            if (x == toX && y == toY) {
+                return true;
+            }
+            if (occluders.blocksSight(x, y)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Finds the cells visible from an origin within a radius, all around it or in a cone facing
+     * one way. Cells which block sight are visible, but hide the cells behind them.
+     * @param origin The packed position of the origin.
+     * @param radius The furthest distance from the origin to see, in cells.
+     * @param facing The direction of the quarter circle to look in, null to look all around.
+     * @param tick The current tick.
+     * @return The visible cells, shared with anything else asking the same on this tick.
+     */
+    VisibleCells findVisibleCells(int origin, int radius, Direction facing, long tick) {
+        int changes = occluders.getChangeCount();
+        if (castTick != tick || castChanges != changes) {
+            synchronized (this) {
+                if (castTick != tick || castChanges != changes) {
+                    casts.clear();
+                    castChanges = changes;
+                    castTick = tick;
+                }
+            }
+        }
+        int facingCode = facing == null ? 0 : facing.ordinal() + 1;
+        long key = (long) origin << ORIGIN_SHIFT | (long) radius << RADIUS_SHIFT | facingCode;
+        return casts.computeIfAbsent(key, k -> cast(origin, radius, facing));
+    }
+
+    /**
+     * Gets the number of casts made, not counting those remembered from earlier on a tick.
+     * @return The number of casts.
+     */
+    long getCastCount() {
+        return castCount.get();
+    }
+
+    /**
+     * Finds the cells visible from an origin by shadowcasting each octant of the cone.
+     * @param origin The packed position of the origin.
+     * @param radius The furthest distance from the origin to see, in cells.
+     * @param facing The direction of the cone, null for all around.
+     * @return The visible cells.
+     */
+    private VisibleCells cast(int origin, int radius, Direction facing) {
+        castCount.incrementAndGet();
+        int x = Coordinate.getX(origin);
+        int y = Coordinate.getY(origin);
+        VisibleCells visible = new VisibleCells(x, y, Math.max(radius, 0));
+        visible.add(x, y);
+        int octants = facing == null ? ALL_OCTANTS : FACING_OCTANTS[facing.ordinal()];
+        for (int octant = 0; octant < OCTANTS; octant++) {
+            if ((octants & 1 << octant) != 0) {
+                castOctant(visible, octant, 1, 1.0, 0.0);
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Scans the rows of an octant outwards from the origin between two slopes, marking the
+     * cells in light as visible, and scanning again beyond each cell blocking sight with the
+     * slopes narrowed around it.
+     * @param visible The cells found visible so far.
+     * @param octant The number of the octant.
+     * @param firstRow The distance from the origin of the first row to scan.
+     * @param startSlope The slope of the edge of the light furthest from the octant's axis.
+     * @param endSlope The slope of the edge of the light nearest the octant's axis.
+     */
+    private void castOctant(VisibleCells visible, int octant, int firstRow, double startSlope, double endSlope) {
+        if (startSlope < endSlope) {
+            return;
+        }
+        int radius = visible.radius;
+        long radiusSquared = (long) radius * radius;
+        double start = startSlope;
+        double nextStart = startSlope;
+        for (int row = firstRow; row <= radius; row++) {
+            boolean blocked = false;
+            for (int across = -row; across <= 0; across++) {
+                double leftSlope = (across - HALF) / (-row + HALF);
+                double rightSlope = (across + HALF) / (-row - HALF);
+                if (start < rightSlope) {
+                    continue;
+                }
+                if (endSlope > leftSlope) {
+                    break;
+                }
+                int x = visible.originX + across * ROW_X[octant] - row * DEPTH_X[octant];
+                int y = visible.originY + across * ROW_Y[octant] - row * DEPTH_Y[octant];
+                boolean opaque = occluders.blocksSight(x, y);
+                if ((long) across * across + (long) row * row <= radiusSquared && occluders.contains(x, y)) {
+                    visible.add(x, y);
+                }
+                if (blocked) {
+                    if (opaque) {
+                        nextStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = nextStart;
+                    }
+                } else if (opaque && row < radius) {
+                    blocked = true;
+                    castOctant(visible, octant, row + 1, start, leftSlope);
+                    nextStart = rightSlope;
+                }
+            }
+            if (blocked) {
+                break;
+            }
+        }
+    }
+}
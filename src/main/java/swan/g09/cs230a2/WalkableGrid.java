@@ -0,0 +1,239 @@
+package swan.g09.cs230a2;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+import javafx.geometry.Point2D;
+
+/**
+ * Which cells of the level the monsters chasing the player can walk through, kept as bits
+ * so searches don't have to look at the level for every cell they test. Each row and each
+ * column is stored as words of 64 cells, so a search can scan along a line a word at a time.
+ *
+ * <p>The rules are tested for every cell when the grid is created, and then only for cells
+ * whose tile is replaced, see {@link #tileChanged(int)}, and for the player's cell, which is
+ * tested again each tick by {@link #refresh()}. The rules must therefore only depend on a
+ * cell's tile, except at the player's cell.</p>
+ *
+ * @version 0.1
+ */
+final class WalkableGrid implements IntPredicate {
+
+    /**
+     * The number of bits to shift a cell's position along a line by to get its word.
+     */
+    static final int WORD_SHIFT = 6;
+
+    /**
+     * The mask of a cell's position along a line giving its bit in its word.
+     */
+    static final int BIT_MASK = Long.SIZE - 1;
+
+    /**
+     * The width of the level.
+     */
+    private final int width;
+
+    /**
+     * The height of the level.
+     */
+    private final int height;
+
+    /**
+     * Tests whether a packed cell can be walked through.
+     */
+    private final IntPredicate rules;
+
+    /**
+     * The number of words in each row.
+     */
+    private final int rowWords;
+
+    /**
+     * The number of words in each column.
+     */
+    private final int columnWords;
+
+    /**
+     * The bits of each row, one after another, bit x of a row set if cell x can be walked through.
+     */
+    private final long[] rows;
+
+    /**
+     * The bits of each column, one after another, bit y of a column set if cell y can be walked through.
+     */
+    private final long[] columns;
+
+    /**
+     * The number of cells which can be walked through.
+     */
+    private int openCount;
+
+    /**
+     * Told the packed cell whenever a cell changes whether it can be walked through, null if none.
+     */
+    private IntConsumer changeListener;
+
+    /**
+     * The packed cell of the player when last refreshed, {@link PathFinder#NO_PATH} if there was no player.
+     */
+    private int playerKey = PathFinder.NO_PATH;
+
+    /**
+     * The tick the grid was last refreshed on.
+     */
+    private volatile long checkedTick = -1;
+
+    /**
+     * Creates a grid for a level, testing every cell.
+     * @param levelWidth The width of the level.
+     * @param levelHeight The height of the level.
+     * @param rules Tests whether a packed cell can be walked through.
+     */
+    WalkableGrid(int levelWidth, int levelHeight, IntPredicate rules) {
+        width = levelWidth;
+        height = levelHeight;
+        this.rules = rules;
+        rowWords = (levelWidth + BIT_MASK) >>> WORD_SHIFT;
+        columnWords = (levelHeight + BIT_MASK) >>> WORD_SHIFT;
+        rows = new long[rowWords * levelHeight];
+        columns = new long[columnWords * levelWidth];
+        for (int y = 0; y < levelHeight; y++) {
+            for (int x = 0; x < levelWidth; x++) {
+                retest(x, y);
+            }
+        }
+    }
+
+    /**
+     * Gets the width of the grid.
+     * @return The width.
+     */
+    int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the grid.
+     * @return The height.
+     */
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the number of cells which can be walked through.
+     * @return The number of walkable cells.
+     */
+    int getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * Checks whether a packed cell can be walked through. The grid should have been refreshed on this tick.
+     * @param key The packed cell.
+     * @return true if the cell is in the grid and can be walked through.
+     */
+    @Override
+    public boolean test(int key) {
+        return isOpen(Coordinate.getX(key), Coordinate.getY(key));
+    }
+
+    /**
+     * Checks whether a cell can be walked through. The grid should have been refreshed on this tick.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @return true if the cell is in the grid and can be walked through.
+     */
+    boolean isOpen(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        return (rows[y * rowWords + (x >>> WORD_SHIFT)] & 1L << (x & BIT_MASK)) != 0;
+    }
+
+    /**
+     * Gets the number of words in each line.
+     * @param vertical true for columns, false for rows.
+     * @return The number of words.
+     */
+    int getWordCount(boolean vertical) {
+        return vertical ? columnWords : rowWords;
+    }
+
+    /**
+     * Gets a word of a row or column. Lines outside the grid can't be walked through.
+     * @param vertical true for a column, false for a row.
+     * @param line The x coordinate of the column, or the y coordinate of the row.
+     * @param word The index of the word in the line.
+     * @return The bits of the 64 cells of the word, 0 if the line is outside the grid.
+     */
+    long getWord(boolean vertical, int line, int word) {
+        if (vertical) {
+            return line < 0 || line >= width ? 0 : columns[line * columnWords + word];
+        }
+        return line < 0 || line >= height ? 0 : rows[line * rowWords + word];
+    }
+
+    /**
+     * Sets what to tell whenever a cell changes whether it can be walked through.
+     * @param listener Told the packed cell which changed, null for nothing.
+     */
+    void setChangeListener(IntConsumer listener) {
+        changeListener = listener;
+    }
+
+    /**
+     * Tests a cell again after its tile has been replaced.
+     * @param position The packed cell whose tile was replaced.
+     */
+    synchronized void tileChanged(int position) {
+        retest(Coordinate.getX(position), Coordinate.getY(position));
+    }
+
+    /**
+     * Tests the player's cell again, and the cell they left if they have moved. Tests at most once a tick.
+     */
+    void refresh() {
+        GameSession session = GameSession.current();
+        long tick = session.tickRegistry.getCurrentTick();
+        if (checkedTick == tick) {
+            return;
+        }
+        synchronized (this) {
+            if (checkedTick == tick) {
+                return;
+            }
+            Point2D player = session.actorLayer.findFirstPositionOf(TileType.PLAYER);
+            int key = player == null ? PathFinder.NO_PATH : Coordinate.of(player);
+            if (playerKey != PathFinder.NO_PATH && playerKey != key) {
+                retest(Coordinate.getX(playerKey), Coordinate.getY(playerKey));
+            }
+            if (key != PathFinder.NO_PATH) {
+                retest(Coordinate.getX(key), Coordinate.getY(key));
+            }
+            playerKey = key;
+            checkedTick = tick;
+        }
+    }
+
+    /**
+     * Tests a cell with the rules and stores the result.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     */
+    private void retest(int x, int y) {
+        boolean open = rules.test(Coordinate.pack(x, y));
+        if (open == isOpen(x, y)) {
+            return;
+        }
+        long rowBit = 1L << (x & BIT_MASK);
+        long columnBit = 1L << (y & BIT_MASK);
+        rows[y * rowWords + (x >>> WORD_SHIFT)] ^= rowBit;
+        columns[x * columnWords + (y >>> WORD_SHIFT)] ^= columnBit;
+        openCount += open ? 1 : -1;
+        if (changeListener != null) {
+            changeListener.accept(Coordinate.pack(x, y));
+        }
+    }
+}
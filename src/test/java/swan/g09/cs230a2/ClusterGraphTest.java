@@ -0,0 +1,201 @@
+package swan.g09.cs230a2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks a {@link ClusterGraph} kept up to date as walls open and close matches one built
+ * afresh, and that following the steps of a {@link HierarchicalPathFinder} always reaches the
+ * goal, on levels whose sides aren't a whole number of clusters.
+ *
+ * @version 0.1
+ */
+class ClusterGraphTest {
+
+    /**
+     * The widths and heights of the levels, none a multiple of the cluster size.
+     */
+    private static final int[][] SIZES = {{75, 53}, {130, 41}, {37, 99}};
+
+    /**
+     * One in how many cells of a level starts as a wall.
+     */
+    private static final int WALL_RARITY = 4;
+
+    /**
+     * The seed of the levels' layouts and of the changes and searches made.
+     */
+    private static final long SEED = 16;
+
+    /**
+     * The number of rounds of changes.
+     */
+    private static final int ROUNDS = 10;
+
+    /**
+     * The number of cells tried each round.
+     */
+    private static final int CHANGES = 50;
+
+    /**
+     * The number of paths followed after each round.
+     */
+    private static final int PATHS = 20;
+
+    /**
+     * How many times longer than the shortest path a followed path may be, before the slack below.
+     */
+    private static final int LENGTH_FACTOR = 2;
+
+    /**
+     * How many steps longer than {@link #LENGTH_FACTOR} times the shortest path a followed path may be.
+     */
+    private static final int LENGTH_SLACK = 4 * ClusterGraph.CLUSTER_SIZE;
+
+    /**
+     * Toggles random walls round after round, comparing every cluster of the graph kept up to
+     * date with a graph built afresh from the level after each round.
+     * @throws Exception If a level can't be generated or loaded.
+     */
+    @Test
+    void incrementalGraphMatchesFreshGraph() throws Exception {
+        for (int[] size : SIZES) {
+            forEachRound(size, (graph, random, round) -> {
+                int width = size[0];
+                int height = size[1];
+                WalkableGrid freshGrid = new WalkableGrid(width, height, Frog::canPathThrough);
+                ClusterGraph fresh = new ClusterGraph(freshGrid);
+                int clusters = ceilDivide(width) * ceilDivide(height);
+                for (int cluster = 0; cluster < clusters; cluster++) {
+                    String where = " of cluster " + cluster + " differ on " + width + "x" + height
+                            + " in round " + round;
+                    assertTrue(Arrays.equals(fresh.getNodes(cluster), graph.getNodes(cluster)),
+                            "Nodes" + where);
+                    assertTrue(Arrays.equals(fresh.getPartners(cluster), graph.getPartners(cluster)),
+                            "Partners" + where);
+                    assertTrue(Arrays.equals(fresh.getDistances(cluster), graph.getDistances(cluster)),
+                            "Distances" + where);
+                }
+            });
+        }
+    }
+
+    /**
+     * Toggles random walls round after round, following hierarchical steps between random
+     * cells after each round and checking each step is to a walkable neighbour and the goal
+     * is reached, or that no step is given if the goal can't be reached.
+     * @throws Exception If a level can't be generated or loaded.
+     */
+    @Test
+    void followingStepsReachesTheGoal() throws Exception {
+        for (int[] size : SIZES) {
+            forEachRound(size, (graph, random, round) -> {
+                int width = size[0];
+                int height = size[1];
+                WalkableGrid grid = GameSession.current().walkableGrid;
+                for (int i = 0; i < PATHS; i++) {
+                    int start = randomOpenCell(grid, random);
+                    int goal = randomOpenCell(grid, random);
+                    int goalX = Coordinate.getX(goal);
+                    int goalY = Coordinate.getY(goal);
+                    int[] distances = TestLevels.distancesTo(grid, goalX, goalY);
+                    int shortest = distances[Coordinate.getY(start) * width + Coordinate.getX(start)];
+                    String where = " from " + Coordinate.getX(start) + "," + Coordinate.getY(start) + " to " + goalX
+                            + "," + goalY + " on " + width + "x" + height + " in round " + round;
+                    if (shortest == TestLevels.UNREACHABLE || shortest == 0) {
+                        assertEquals(PathFinder.NO_PATH, HierarchicalPathFinder.forGraph(graph)
+                                .findFirstStep(start, goal, grid), "Step given to an unreachable goal" + where);
+                        continue;
+                    }
+
+                    int cell = start;
+                    int steps = 0;
+                    while (cell != goal) {
+                        int next = HierarchicalPathFinder.forGraph(graph).findFirstStep(cell, goal, grid);
+                        assertTrue(next != PathFinder.NO_PATH, "No step after " + steps + " steps" + where);
+                        int nextX = Coordinate.getX(next);
+                        int nextY = Coordinate.getY(next);
+                        int moved = Math.abs(nextX - Coordinate.getX(cell)) + Math.abs(nextY - Coordinate.getY(cell));
+                        assertEquals(1, moved, "Step isn't to a neighbour" + where);
+                        assertTrue(grid.isOpen(nextX, nextY), "Step into a wall" + where);
+                        cell = next;
+                        steps++;
+                        assertTrue(steps <= LENGTH_FACTOR * shortest + LENGTH_SLACK,
+                                "Path much longer than the shortest " + shortest + where);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks made on a round.
+     */
+    @FunctionalInterface
+    private interface RoundCheck {
+        /**
+         * Makes the checks of a round.
+         * @param graph The graph kept up to date, refreshed.
+         * @param random The random changes and searches to make.
+         * @param round The number of the round.
+         */
+        void check(ClusterGraph graph, Random random, int round);
+    }
+
+    /**
+     * Generates and loads a level with monsters chasing hierarchically, then runs the checks on
+     * it and again after each round of wall changes.
+     * @param size The width and height of the level.
+     * @param check The checks to make each round.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    private static void forEachRound(int[] size, RoundCheck check) throws Exception {
+        String level = TestLevels.generate(size[0], size[1], 0, WALL_RARITY, SEED);
+        GameSession session = new GameSession();
+        session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            GameManager.setChaseStrategy(ChaseStrategy.HIERARCHICAL);
+            ClusterGraph graph = session.clusterGraph;
+            Random random = new Random(SEED);
+            for (int round = 0; round <= ROUNDS; round++) {
+                if (round > 0) {
+                    TestLevels.toggleWalls(random, CHANGES, false);
+                }
+                GameManager.advanceTick();
+                graph.refresh();
+                check.check(graph, random, round);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Picks a random cell which can be walked through.
+     * @param grid The cells which can be walked through.
+     * @param random The random cell to pick.
+     * @return The packed cell.
+     */
+    private static int randomOpenCell(WalkableGrid grid, Random random) {
+        int x;
+        int y;
+        do {
+            x = random.nextInt(grid.getWidth());
+            y = random.nextInt(grid.getHeight());
+        } while (!grid.isOpen(x, y));
+        return Coordinate.pack(x, y);
+    }
+
+    /**
+     * Gets the number of clusters along a side of a level.
+     * @param length The length of the side.
+     * @return The number of clusters, counting a part cluster at the end.
+     */
+    private static int ceilDivide(int length) {
+        return (length + ClusterGraph.CLUSTER_SIZE - 1) / ClusterGraph.CLUSTER_SIZE;
+    }
+}
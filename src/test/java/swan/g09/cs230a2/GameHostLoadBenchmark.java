@@ -0,0 +1,173 @@
+package swan.g09.cs230a2;
+
+import java.util.ArrayList;
+
+/**
+ * Hosts ten thousand games of {@code maze.txt} on the shared scheduler of a {@link GameHost}
+ * and checks the host holds up: the admission past its capacity is refused, every game runs
+ * close to the 20 ticks a second it should, and a tick held up by a slow action is counted as
+ * overrun and late in the games' metrics. Run it with
+ * {@code gradlew benchmark -Pbenchmark=GameHostLoadBenchmark}, optionally giving the number of
+ * games, scheduler threads and seconds to measure with {@code -PbenchmarkArgs="10000 2 10"}.
+ *
+ * @version 0.1
+ */
+final class GameHostLoadBenchmark {
+
+    /**
+     * The level hosted.
+     */
+    private static final String LEVEL = "maze.txt";
+
+    /**
+     * The default number of games hosted.
+     */
+    private static final int GAMES = 10_000;
+
+    /**
+     * The default number of scheduler threads.
+     */
+    private static final int THREADS = 2;
+
+    /**
+     * The default number of seconds measured.
+     */
+    private static final int SECONDS = 10;
+
+    /**
+     * How long the games are left to settle after being admitted, in milliseconds.
+     */
+    private static final long SETTLE_MILLIS = 3000;
+
+    /**
+     * How long the slow action blocks its game's tick, in milliseconds, more than two ticks.
+     */
+    private static final long SLOW_ACTION_MILLIS = 120;
+
+    /**
+     * The number of ticks a game should run each second.
+     */
+    private static final int TICKS_PER_SECOND = 20;
+
+    /**
+     * The share of the expected ticks every game must run.
+     */
+    private static final double MIN_TICK_SHARE = 0.9;
+
+    /**
+     * The number of milliseconds in a second.
+     */
+    private static final long MILLIS_IN_SECOND = 1000;
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_IN_MILLI = 1_000_000.0;
+
+    /**
+     * The number of bytes in a megabyte.
+     */
+    private static final int MEGABYTE_SHIFT = 20;
+
+    /**
+     * Hidden constructor, the benchmark is only run from {@link #main(String[])}.
+     */
+    private GameHostLoadBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark, prints the ticks run and counted late or overrun, and fails if any of
+     * the checks don't hold.
+     * @param args The number of games, threads and seconds to measure, all optional.
+     * @throws Exception If the level can't be loaded, or a check doesn't hold.
+     */
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : GAMES;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : THREADS;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : SECONDS;
+        String level = TestLevels.bundled(LEVEL);
+
+        GameHost host = new GameHost(games, threads);
+        long start = System.nanoTime();
+        ArrayList<HostedGame> hosted = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            hosted.add(host.admit(level));
+        }
+        System.out.printf("Admitted %d games in %.0f ms%n", host.getGameCount(),
+                (System.nanoTime() - start) / NANOS_IN_MILLI);
+        try {
+            host.admit(level);
+            throw new IllegalStateException("A game was admitted past capacity!");
+        } catch (IllegalStateException e) {
+            if (host.getGameCount() != games) {
+                throw e;
+            }
+            System.out.println("Admission past capacity refused: " + e.getMessage());
+        }
+
+        Thread.sleep(SETTLE_MILLIS);
+        long[] ticksBefore = new long[games];
+        long[] lateBefore = new long[games];
+        long[] overrunBefore = new long[games];
+        for (int i = 0; i < games; i++) {
+            TickMetrics metrics = hosted.get(i).getMetrics();
+            ticksBefore[i] = metrics.getTicks();
+            lateBefore[i] = metrics.getLateTicks();
+            overrunBefore[i] = metrics.getOverrunTicks();
+        }
+        HostedGame slow = hosted.get(0);
+        slow.post(() -> {
+            try {
+                Thread.sleep(SLOW_ACTION_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        start = System.nanoTime();
+        Thread.sleep(seconds * MILLIS_IN_SECOND);
+        double elapsed = (System.nanoTime() - start) / NANOS_IN_MILLI / MILLIS_IN_SECOND;
+
+        long ticks = 0;
+        long fewestTicks = Long.MAX_VALUE;
+        long late = 0;
+        long overrun = 0;
+        for (int i = 0; i < games; i++) {
+            HostedGame game = hosted.get(i);
+            if (game.getFailure() != null) {
+                throw new IllegalStateException("A game crashed!", game.getFailure());
+            }
+            if (game.isFinished()) {
+                throw new IllegalStateException("A game finished early!");
+            }
+            TickMetrics metrics = game.getMetrics();
+            long ran = metrics.getTicks() - ticksBefore[i];
+            ticks += ran;
+            fewestTicks = Math.min(fewestTicks, ran);
+            late += metrics.getLateTicks() - lateBefore[i];
+            overrun += metrics.getOverrunTicks() - overrunBefore[i];
+        }
+        TickMetrics slowMetrics = slow.getMetrics();
+        long slowOverrun = slowMetrics.getOverrunTicks() - overrunBefore[0];
+        long slowLate = slowMetrics.getLateTicks() - lateBefore[0];
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        System.out.printf("%d games on %d threads for %.1f s: %.0f ticks/s (expected %d), fewest per game %d,"
+                + " late %d, overrun %d, heap %d MB%n", games, threads, elapsed, ticks / elapsed,
+                games * TICKS_PER_SECOND, fewestTicks, late, overrun,
+                (runtime.totalMemory() - runtime.freeMemory()) >> MEGABYTE_SHIFT);
+        System.out.printf("Slow game: overrun %d, late %d, longest tick %.1f ms%n", slowOverrun, slowLate,
+                slowMetrics.getMaxTickNanos() / NANOS_IN_MILLI);
+        host.shutdown();
+
+        if (fewestTicks < elapsed * TICKS_PER_SECOND * MIN_TICK_SHARE) {
+            throw new IllegalStateException("A game only ran " + fewestTicks + " ticks!");
+        }
+        if (slowOverrun < 1 || slowLate < 1) {
+            throw new IllegalStateException("The slow tick wasn't counted as overrun and late!");
+        }
+        if (host.getGameCount() != 0) {
+            throw new IllegalStateException("Shutting down the host didn't stop its games!");
+        }
+        System.exit(0);
+    }
+}
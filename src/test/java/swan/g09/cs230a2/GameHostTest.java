@@ -0,0 +1,134 @@
+package swan.g09.cs230a2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks a {@link GameHost} refuses games past its capacity, ticks every game it admits, and
+ * counts the ticks which are run late or run too long in each game's metrics. See
+ * {@link GameHostLoadBenchmark} for the same checks with ten thousand games.
+ *
+ * @version 0.1
+ */
+class GameHostTest {
+
+    /**
+     * The level hosted, small enough that none of its monsters reach the player in the test.
+     */
+    private static final String LEVEL = "maze.txt";
+
+    /**
+     * The number of games hosted while checking they all tick.
+     */
+    private static final int GAMES = 100;
+
+    /**
+     * The number of scheduler threads.
+     */
+    private static final int THREADS = 2;
+
+    /**
+     * How long the games are left to tick, in milliseconds.
+     */
+    private static final long RUN_MILLIS = 1000;
+
+    /**
+     * The fewest ticks each game must run in {@link #RUN_MILLIS}, half of the 20 it should.
+     */
+    private static final long MIN_TICKS = 10;
+
+    /**
+     * How long the slow action blocks its game's tick, in milliseconds, more than two ticks.
+     */
+    private static final long SLOW_ACTION_MILLIS = 120;
+
+    /**
+     * Checks the host refuses a game when full, and admits one again once a game has stopped.
+     * @throws Exception If the level can't be loaded.
+     */
+    @Test
+    void admissionPastCapacityIsRefused() throws Exception {
+        String level = TestLevels.bundled(LEVEL);
+        GameHost host = new GameHost(2, 1);
+        try {
+            HostedGame first = host.admit(level);
+            host.admit(level);
+            assertFalse(host.hasCapacity(), "A full host claimed to have capacity");
+            assertThrows(IllegalStateException.class, () -> host.admit(level), "A game was admitted past capacity");
+
+            first.stop();
+            assertTrue(host.hasCapacity(), "Stopping a game didn't free its slot");
+            host.admit(level);
+        } finally {
+            host.shutdown();
+        }
+        assertThrows(IllegalStateException.class, () -> host.admit(level), "A game was admitted after shut down");
+    }
+
+    /**
+     * Checks every game admitted keeps ticking without failing or finishing.
+     * @throws Exception If the level can't be loaded, or the test is interrupted.
+     */
+    @Test
+    void everyGameRunsItsTicks() throws Exception {
+        String level = TestLevels.bundled(LEVEL);
+        GameHost host = new GameHost(GAMES, THREADS);
+        try {
+            ArrayList<HostedGame> games = new ArrayList<>();
+            for (int i = 0; i < GAMES; i++) {
+                games.add(host.admit(level));
+            }
+            Thread.sleep(RUN_MILLIS);
+            for (HostedGame game : games) {
+                assertNull(game.getFailure(), "A game crashed");
+                assertFalse(game.isFinished(), "A game finished early");
+                assertTrue(game.getMetrics().getTicks() >= MIN_TICKS,
+                        "A game only ran " + game.getMetrics().getTicks() + " ticks");
+            }
+            assertEquals(GAMES, host.getGameCount(), "The host lost count of its games");
+        } finally {
+            host.shutdown();
+        }
+        assertEquals(0, host.getGameCount(), "Shutting down the host didn't stop its games");
+    }
+
+    /**
+     * Checks a tick held up by a slow action is counted as overrun in its game, and that it
+     * makes the game's next tick and the other game on the same thread late.
+     * @throws Exception If the level can't be loaded, or the test is interrupted.
+     */
+    @Test
+    void slowTicksAreCountedLateAndOverrun() throws Exception {
+        String level = TestLevels.bundled(LEVEL);
+        GameHost host = new GameHost(2, 1);
+        try {
+            HostedGame slow = host.admit(level);
+            HostedGame other = host.admit(level);
+            Thread.sleep(RUN_MILLIS / 2);
+            assertEquals(0, slow.getMetrics().getOverrunTicks(), "A tick overran before the slow action");
+
+            slow.post(() -> {
+                try {
+                    Thread.sleep(SLOW_ACTION_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Thread.sleep(RUN_MILLIS / 2);
+            assertEquals(1, slow.getMetrics().getOverrunTicks(), "The slow tick wasn't counted as overrun");
+            assertTrue(slow.getMetrics().getMaxTickNanos() >= SLOW_ACTION_MILLIS * 1_000_000,
+                    "The slow tick wasn't the longest");
+            assertTrue(slow.getMetrics().getLateTicks() + other.getMetrics().getLateTicks() > 0,
+                    "No tick after the slow tick was counted as late");
+        } finally {
+            host.shutdown();
+        }
+    }
+}
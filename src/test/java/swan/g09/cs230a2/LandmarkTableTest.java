@@ -0,0 +1,160 @@
+package swan.g09.cs230a2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the estimates of a {@link LandmarkTable} never exceed the true distance, and that
+ * A* estimating with them still finds shortest paths, as walls open and close on the level.
+ *
+ * @version 0.1
+ */
+class LandmarkTableTest {
+
+    /**
+     * The width of the level.
+     */
+    private static final int WIDTH = 72;
+
+    /**
+     * The height of the level.
+     */
+    private static final int HEIGHT = 40;
+
+    /**
+     * The number of monsters, one of each kind, so a single frog chases the player.
+     */
+    private static final int MONSTERS = 3;
+
+    /**
+     * One in how many cells starts as a wall, so the level has too many walls for jump point search.
+     */
+    private static final int WALL_RARITY = 3;
+
+    /**
+     * The seed of the level's layout and of the changes made to it.
+     */
+    private static final long SEED = 18;
+
+    /**
+     * The number of rounds of changes.
+     */
+    private static final int ROUNDS = 12;
+
+    /**
+     * The number of cells tried each round, with every third round opening more cells than the table updates.
+     */
+    private static final int CHANGES = 40;
+
+    /**
+     * How many rounds apart the rounds opening many cells are.
+     */
+    private static final int REBUILD_EVERY = 3;
+
+    /**
+     * How many times more cells are tried on a round opening many cells.
+     */
+    private static final int REBUILD_FACTOR = 5;
+
+    /**
+     * The number of goals checked after each round.
+     */
+    private static final int GOALS = 15;
+
+    /**
+     * The number of starts searched from for each goal.
+     */
+    private static final int STARTS = 10;
+
+    /**
+     * Checks a level with many walls and a single frog is chased with A* and landmarks.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    @Test
+    void wallsAndFewChasersChooseLandmarks() throws Exception {
+        String level = TestLevels.generate(WIDTH, HEIGHT, MONSTERS, WALL_RARITY, SEED);
+        GameSession session = new GameSession();
+        session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            assertEquals(ChaseStrategy.A_STAR, GameManager.getChaseStrategy(), "Wrong strategy chosen");
+            assertTrue(session.landmarkTable != null, "No landmark table built");
+            return null;
+        });
+    }
+
+    /**
+     * Toggles random walls, then checks every estimate to a few goals against a fresh
+     * breadth first search, and that A* with the landmarks steps along a shortest path.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    @Test
+    void estimatesStayAdmissibleAsWallsChange() throws Exception {
+        String level = TestLevels.generate(WIDTH, HEIGHT, MONSTERS, WALL_RARITY, SEED);
+        GameSession session = new GameSession();
+        session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            GameManager.setChaseStrategy(ChaseStrategy.A_STAR);
+            LandmarkTable table = session.landmarkTable;
+            WalkableGrid grid = session.walkableGrid;
+            int[] goalLandmarks = new int[table.getLandmarkCount()];
+            Random random = new Random(SEED);
+            for (int round = 0; round <= ROUNDS; round++) {
+                if (round > 0) {
+                    boolean rebuild = round % REBUILD_EVERY == 0;
+                    TestLevels.toggleWalls(random, rebuild ? CHANGES * REBUILD_FACTOR : CHANGES, rebuild);
+                }
+                GameManager.advanceTick();
+                grid.refresh();
+                table.refresh();
+
+                for (int i = 0; i < GOALS; i++) {
+                    int goal = randomOpenCell(grid, random);
+                    int goalX = Coordinate.getX(goal);
+                    int goalY = Coordinate.getY(goal);
+                    int[] distances = TestLevels.distancesTo(grid, goalX, goalY);
+                    table.copyDistances(goalY * WIDTH + goalX, goalLandmarks);
+                    for (int cell = 0; cell < distances.length; cell++) {
+                        if (distances[cell] != TestLevels.UNREACHABLE) {
+                            assertTrue(table.estimate(cell, goalLandmarks, 0) <= distances[cell],
+                                    "Estimate from " + cell % WIDTH + "," + cell / WIDTH + " to " + goalX + ","
+                                    + goalY + " is more than the distance " + distances[cell] + " in round " + round);
+                        }
+                    }
+
+                    for (int j = 0; j < STARTS; j++) {
+                        int start = randomOpenCell(grid, random);
+                        int distance = distances[Coordinate.getY(start) * WIDTH + Coordinate.getX(start)];
+                        if (distance <= 0) {
+                            continue;
+                        }
+                        int step = AStarPathFinder.forLevel(WIDTH, HEIGHT, table).findFirstStep(start, goal, grid);
+                        assertTrue(step != PathFinder.NO_PATH, "No path found in round " + round);
+                        assertEquals(distance - 1, distances[Coordinate.getY(step) * WIDTH + Coordinate.getX(step)],
+                                "First step isn't on a shortest path in round " + round);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Picks a random cell which can be walked through.
+     * @param grid The cells which can be walked through.
+     * @param random The random cell to pick.
+     * @return The packed cell.
+     */
+    private static int randomOpenCell(WalkableGrid grid, Random random) {
+        int x;
+        int y;
+        do {
+            x = random.nextInt(WIDTH);
+            y = random.nextInt(HEIGHT);
+        } while (!grid.isOpen(x, y));
+        return Coordinate.pack(x, y);
+    }
+}
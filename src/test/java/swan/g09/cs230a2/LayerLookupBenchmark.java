@@ -0,0 +1,149 @@
+package swan.g09.cs230a2;
+
+/**
+ * Measures how the cost of finding the player and the cells of one type grows with the area of
+ * a level, which with the type index in {@link Layer} should stay flat rather than growing with
+ * the number of cells. Each level has the same number of monsters, so finding them returns the
+ * same number of cells whatever the level's size. For comparison it also times walking every
+ * cell of the actor layer, which is what each lookup cost before the index. Run it with
+ * {@code gradlew benchmark -Pbenchmark=LayerLookupBenchmark}, optionally giving the level sizes
+ * to measure with {@code -PbenchmarkArgs="50 200 800"}.
+ *
+ * @version 0.1
+ */
+final class LayerLookupBenchmark {
+
+    /**
+     * The default widths and heights of the levels measured.
+     */
+    private static final int[] LEVEL_SIZES = {50, 200, 800};
+
+    /**
+     * The number of monsters in every level.
+     */
+    private static final int MONSTERS = 30;
+
+    /**
+     * The seed of the levels' layouts.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * The number of lookups run before timing.
+     */
+    private static final int WARMUP_CALLS = 20000;
+
+    /**
+     * The number of lookups timed.
+     */
+    private static final int TIMED_CALLS = 20000;
+
+    /**
+     * The number of cells walked while warming up and again while timing the walks of a layer.
+     */
+    private static final int WALKED_CELLS = 20_000_000;
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final double NANOS_IN_MICRO = 1000.0;
+
+    /**
+     * Results folded together so the JIT can't skip the lookups.
+     */
+    private static long sink;
+
+    /**
+     * Hidden constructor, the benchmark is only run from {@link #main(String[])}.
+     */
+    private LayerLookupBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the time per lookup on each level.
+     * @param args The widths and heights of the levels to measure, all optional.
+     * @throws Exception If a level can't be generated or loaded.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] sizes = LEVEL_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        for (int size : sizes) {
+            String level = TestLevels.generate(size, size, MONSTERS, SEED);
+            GameSession session = new GameSession();
+            session.run(() -> {
+                try {
+                    GameManager.loadLevel(level, null, false);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Could not load the level!", e);
+                }
+                double player = timePlayerLookup();
+                double bugs = timeTypeLookup(session.actorLayer);
+                double walk = timeWalk(session.actorLayer);
+                System.out.printf("%dx%d: getPlayerPosition %.3f us, findPositionsOf(BUG) %.3f us,"
+                        + " walking every cell %.1f us%n", size, size, player, bugs, walk);
+            });
+        }
+        System.out.println("(checksum " + sink + ")");
+        System.exit(0);
+    }
+
+    /**
+     * Times finding the player in the current session's level.
+     * @return The average time of a lookup, in microseconds.
+     */
+    private static double timePlayerLookup() {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            sink += GameManager.getPlayerPosition().hashCode();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_CALLS; i++) {
+            sink += GameManager.getPlayerPosition().hashCode();
+        }
+        return (System.nanoTime() - start) / NANOS_IN_MICRO / TIMED_CALLS;
+    }
+
+    /**
+     * Times finding the cells of the bugs in a layer.
+     * @param layer The layer of actors.
+     * @return The average time of a lookup, in microseconds.
+     */
+    private static double timeTypeLookup(Layer<Actor> layer) {
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            sink += layer.findPositionsOf(TileType.BUG).size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_CALLS; i++) {
+            sink += layer.findPositionsOf(TileType.BUG).size();
+        }
+        return (System.nanoTime() - start) / NANOS_IN_MICRO / TIMED_CALLS;
+    }
+
+    /**
+     * Times walking every cell of a layer looking for bugs, as finding them did before the index.
+     * @param layer The layer of actors.
+     * @return The average time of a walk, in microseconds.
+     */
+    private static double timeWalk(Layer<Actor> layer) {
+        int walks = Math.max(1, WALKED_CELLS / (layer.getWidth() * layer.getHeight()));
+        long start = 0;
+        for (int i = -walks; i < walks; i++) {
+            if (i == 0) {
+                start = System.nanoTime();
+            }
+            for (int y = 0; y < layer.getHeight(); y++) {
+                for (int x = 0; x < layer.getWidth(); x++) {
+                    Actor actor = layer.getAtPosition(x, y);
+                    if (actor != null && actor.getType() == TileType.BUG) {
+                        sink++;
+                    }
+                }
+            }
+        }
+        return (System.nanoTime() - start) / NANOS_IN_MICRO / walks;
+    }
+}
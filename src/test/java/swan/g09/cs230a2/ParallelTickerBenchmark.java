@@ -0,0 +1,115 @@
+package swan.g09.cs230a2;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how ticking a crowded level scales with the number of threads, ticking it
+ * sequentially and then in parallel with {@link ParallelTicker} on pools of 1, 2, 4 and 8
+ * threads. Each run loads the level in a session of its own, ticks it to warm up, then times
+ * the ticks after. Run it with {@code gradlew benchmark -Pbenchmark=ParallelTickerBenchmark},
+ * optionally giving the width and height of the level and its number of monsters with
+ * {@code -PbenchmarkArgs="400 400 20000"}. Speedups need as many cores as threads.
+ *
+ * @version 0.1
+ */
+final class ParallelTickerBenchmark {
+
+    /**
+     * The default width and height of the level.
+     */
+    private static final int LEVEL_SIZE = 400;
+
+    /**
+     * The default number of monsters.
+     */
+    private static final int MONSTERS = 20000;
+
+    /**
+     * The seed of the level's layout.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * The number of ticks run before timing.
+     */
+    private static final int WARMUP_TICKS = 50;
+
+    /**
+     * The number of ticks timed.
+     */
+    private static final int TIMED_TICKS = 100;
+
+    /**
+     * The numbers of pool threads ticked with.
+     */
+    private static final int[] POOL_SIZES = {1, 2, 4, 8};
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final double NANOS_IN_MICRO = 1000.0;
+
+    /**
+     * Hidden constructor, the benchmark is only run from {@link #main(String[])}.
+     */
+    private ParallelTickerBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the time per tick of each run.
+     * @param args The width, height and number of monsters of the level, all optional.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    public static void main(String[] args) throws Exception {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : LEVEL_SIZE;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : width;
+        int monsters = args.length > 2 ? Integer.parseInt(args[2]) : MONSTERS;
+        String level = TestLevels.generate(width, height, monsters, SEED);
+        System.out.printf("%dx%d level, %d monsters, %d available processors%n",
+                width, height, monsters, Runtime.getRuntime().availableProcessors());
+
+        // Run once untimed first, so the JIT has compiled the tick before the first timed run
+        time(level, 0);
+        double sequential = time(level, 0);
+        System.out.printf("sequential: %.1f us/tick%n", sequential);
+        for (int threads : POOL_SIZES) {
+            double parallel = time(level, threads);
+            System.out.printf("parallel, %d threads: %.1f us/tick, %.2fx sequential%n",
+                    threads, parallel, sequential / parallel);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Loads a level in a session of its own and times ticking it.
+     * @param level The path of the level.
+     * @param threads The number of pool threads to tick with, 0 to tick sequentially.
+     * @return The average time of a timed tick, in microseconds.
+     * @throws Exception If the level can't be loaded, or the game ends before every tick is run.
+     */
+    private static double time(String level, int threads) throws Exception {
+        GameSession session = new GameSession();
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        try {
+            return session.call(() -> {
+                GameManager.loadLevel(level, null, false);
+                if (pool != null) {
+                    session.parallelTicker = new ParallelTicker(session, pool);
+                }
+                GameManager.startHeadlessGame();
+                GameManager.stepGame(WARMUP_TICKS);
+                long start = System.nanoTime();
+                GameManager.stepGame(TIMED_TICKS);
+                long elapsed = System.nanoTime() - start;
+                if (session.gameTimer.getCurrentTick() != WARMUP_TICKS + TIMED_TICKS) {
+                    throw new IllegalStateException("The game ended before every tick was run!");
+                }
+                return elapsed / NANOS_IN_MICRO / TIMED_TICKS;
+            });
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package swan.g09.cs230a2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks ticking a level in parallel with {@link ParallelTicker} gives exactly the same level,
+ * tick by tick, as ticking it sequentially, whatever the number of threads.
+ *
+ * @version 0.1
+ */
+class ParallelTickerTest {
+
+    /**
+     * The width and height of the level, large enough to be split into many regions.
+     */
+    private static final int LEVEL_SIZE = 300;
+
+    /**
+     * The number of monsters, so far more than {@link ParallelTicker#MIN_REGION_ENTITIES} are due each tick.
+     */
+    private static final int MONSTERS = 12000;
+
+    /**
+     * The seed of the level's layout.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * The number of ticks compared.
+     */
+    private static final int TICKS = 100;
+
+    /**
+     * The numbers of pool threads ticked with.
+     */
+    private static final int[] POOL_SIZES = {1, 2, 4, 8};
+
+    /**
+     * Ticks the same level sequentially and in parallel on pools of each size, comparing the
+     * tiles, actors and items after every tick and the whole level at the end.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    @Test
+    void parallelTicksMatchSequential() throws Exception {
+        String level = TestLevels.generate(LEVEL_SIZE, LEVEL_SIZE, MONSTERS, SEED);
+        long[] sequentialHashes = new long[TICKS];
+        String sequential = tick(level, 0, sequentialHashes);
+        for (int threads : POOL_SIZES) {
+            long[] parallelHashes = new long[TICKS];
+            String parallel = tick(level, threads, parallelHashes);
+            for (int i = 0; i < TICKS; i++) {
+                assertEquals(sequentialHashes[i], parallelHashes[i],
+                        "Level differs after tick " + (i + 1) + " with " + threads + " threads");
+            }
+            assertEquals(sequential, parallel, "Level differs at the end with " + threads + " threads");
+        }
+    }
+
+    /**
+     * Loads a level in a session of its own and ticks it.
+     * @param level The path of the level.
+     * @param threads The number of pool threads to tick with, 0 to tick sequentially.
+     * @param hashes Filled with a hash of the level after each tick.
+     * @return The tiles, actors and items of the level after the last tick.
+     * @throws Exception If the level can't be loaded.
+     */
+    static String tick(String level, int threads, long[] hashes) throws Exception {
+        GameSession session = new GameSession();
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : null;
+        try {
+            return session.call(() -> {
+                GameManager.loadLevel(level, null, false);
+                if (pool != null) {
+                    session.parallelTicker = new ParallelTicker(session, pool);
+                }
+                GameManager.startHeadlessGame();
+                String snapshot = "";
+                for (int i = 0; i < hashes.length; i++) {
+                    GameManager.stepGame(1);
+                    snapshot = snapshot(session);
+                    hashes[i] = snapshot.hashCode();
+                }
+                assertEquals(hashes.length, session.gameTimer.getCurrentTick(), "The game ended early");
+                return snapshot;
+            });
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Writes out what is in every cell of a session's level.
+     * @param session The session.
+     * @return The tiles, actors and items of the level, one character per cell.
+     */
+    private static String snapshot(GameSession session) {
+        return session.tileLayer.toString() + session.actorLayer + session.itemLayer;
+    }
+}
@@ -0,0 +1,138 @@
+package swan.g09.cs230a2;
+
+import java.util.Random;
+
+/**
+ * Measures how much work repairing a {@link PlayerDistanceField} saves over searching it again,
+ * when a few tiles change with the player still. Random cells are toggled between paths and
+ * walls, then the field is repaired and a fresh field is searched, timing both. It runs on
+ * {@code maze.txt} and on a generated 512x512 level with many walls. Run it with
+ * {@code gradlew benchmark -Pbenchmark=PlayerDistanceFieldBenchmark}, optionally giving the
+ * numbers of tiles changed at once with {@code -PbenchmarkArgs="1 4"}.
+ *
+ * @version 0.1
+ */
+final class PlayerDistanceFieldBenchmark {
+
+    /**
+     * The default numbers of tiles changed at once.
+     */
+    private static final int[] CHANGES = {1, 4};
+
+    /**
+     * The width and height of the generated level.
+     */
+    private static final int LEVEL_SIZE = 512;
+
+    /**
+     * One in how many cells of the generated level starts as a wall.
+     */
+    private static final int WALL_RARITY = 3;
+
+    /**
+     * The seed of the generated level's layout and of the changes made to the levels.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * The number of rounds of changes run before timing.
+     */
+    private static final int WARMUP_ROUNDS = 50;
+
+    /**
+     * The number of rounds of changes timed.
+     */
+    private static final int TIMED_ROUNDS = 100;
+
+    /**
+     * The number of times the generated level is measured untimed, so the JIT has compiled the field.
+     */
+    private static final int WARMUP_LEVELS = 2;
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final double NANOS_IN_MICRO = 1000.0;
+
+    /**
+     * Results folded together so the JIT can't skip the searches.
+     */
+    private static long sink;
+
+    /**
+     * Hidden constructor, the benchmark is only run from {@link #main(String[])}.
+     */
+    private PlayerDistanceFieldBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the time of a repair and of a search on each level.
+     * @param args The numbers of tiles changed at once, all optional.
+     * @throws Exception If a level can't be generated or loaded.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] changes = CHANGES;
+        if (args.length > 0) {
+            changes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                changes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        String[] names = {"maze.txt", LEVEL_SIZE + "x" + LEVEL_SIZE};
+        String[] levels = {TestLevels.bundled("maze.txt"),
+            TestLevels.generate(LEVEL_SIZE, LEVEL_SIZE, 0, WALL_RARITY, SEED)};
+        for (int i = 0; i < WARMUP_LEVELS; i++) {
+            measure(levels[1], changes[0]);
+        }
+        for (int count : changes) {
+            for (int i = 0; i < levels.length; i++) {
+                double[] times = measure(levels[i], count);
+                System.out.printf("%s, %d change(s): repair %.1f us, search %.1f us%n",
+                        names[i], count, times[0], times[1]);
+            }
+        }
+        System.out.println("(checksum " + sink + ")");
+        System.exit(0);
+    }
+
+    /**
+     * Loads a level in a session of its own and compares repairing the field with searching
+     * it again over rounds of changes.
+     * @param level The path of the level.
+     * @param count The number of tiles changed each round.
+     * @return The average time of a repair and of a search, in microseconds.
+     * @throws Exception If the level can't be loaded.
+     */
+    private static double[] measure(String level, int count) throws Exception {
+        GameSession session = new GameSession();
+        return session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            int player = Coordinate.of(session.actorLayer.findFirstPositionOf(TileType.PLAYER));
+            GameManager.advanceTick();
+            session.playerDistance.getDistance(player);
+
+            Random random = new Random(SEED);
+            long repairNanos = 0;
+            long searchNanos = 0;
+            for (int round = -WARMUP_ROUNDS; round < TIMED_ROUNDS; round++) {
+                TestLevels.toggleWalls(random, count, false);
+                GameManager.advanceTick();
+                long start = System.nanoTime();
+                sink += session.playerDistance.getDistance(Coordinate.pack(1, 1));
+                long repaired = System.nanoTime();
+
+                PlayerDistanceField fresh = new PlayerDistanceField(session.walkableGrid);
+                long searchStart = System.nanoTime();
+                sink += fresh.getDistance(Coordinate.pack(1, 1));
+                long searched = System.nanoTime();
+                if (round >= 0) {
+                    repairNanos += repaired - start;
+                    searchNanos += searched - searchStart;
+                }
+            }
+            return new double[] {repairNanos / NANOS_IN_MICRO / TIMED_ROUNDS,
+                searchNanos / NANOS_IN_MICRO / TIMED_ROUNDS};
+        });
+    }
+}
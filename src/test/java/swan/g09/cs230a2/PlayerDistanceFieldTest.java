@@ -0,0 +1,111 @@
+package swan.g09.cs230a2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks a {@link PlayerDistanceField} repaired as tiles change holds exactly the distances a
+ * fresh breadth first search from the player finds, both when it is repaired around the changed
+ * cells and when so many cells change that it searches again.
+ *
+ * @version 0.1
+ */
+class PlayerDistanceFieldTest {
+
+    /**
+     * The width of the generated level.
+     */
+    private static final int WIDTH = 96;
+
+    /**
+     * The height of the generated level.
+     */
+    private static final int HEIGHT = 64;
+
+    /**
+     * One in how many cells of the generated level starts as a wall.
+     */
+    private static final int WALL_RARITY = 3;
+
+    /**
+     * The seed of the generated level's layout and of the changes made to the levels.
+     */
+    private static final long SEED = 14;
+
+    /**
+     * The number of rounds of changes.
+     */
+    private static final int ROUNDS = 40;
+
+    /**
+     * The most cells tried on a round which repairs the field.
+     */
+    private static final int MAX_CHANGES = 8;
+
+    /**
+     * How many rounds apart the rounds changing more cells than the field repairs are.
+     */
+    private static final int SEARCH_EVERY = 5;
+
+    /**
+     * The number of cells tried on a round changing more cells than the field repairs, more than 64.
+     */
+    private static final int SEARCH_CHANGES = 100;
+
+    /**
+     * Checks the field against a fresh search as cells of {@code maze.txt} change.
+     * @throws Exception If the level can't be loaded.
+     */
+    @Test
+    void repairsMatchSearchOnMaze() throws Exception {
+        checkRepairs(TestLevels.bundled("maze.txt"));
+    }
+
+    /**
+     * Checks the field against a fresh search as cells of a larger level with many walls change.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    @Test
+    void repairsMatchSearchOnGeneratedLevel() throws Exception {
+        checkRepairs(TestLevels.generate(WIDTH, HEIGHT, 0, WALL_RARITY, SEED));
+    }
+
+    /**
+     * Loads a level, then toggles random walls round after round, comparing the distance of
+     * every cell with a breadth first search from the player after each round.
+     * @param level The path of the level.
+     * @throws Exception If the level can't be loaded.
+     */
+    private static void checkRepairs(String level) throws Exception {
+        GameSession session = new GameSession();
+        session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            int width = GameManager.getLevelWidth();
+            int height = GameManager.getLevelHeight();
+            int player = Coordinate.of(session.actorLayer.findFirstPositionOf(TileType.PLAYER));
+            Random random = new Random(SEED);
+            for (int round = 0; round <= ROUNDS; round++) {
+                if (round > 0) {
+                    boolean search = round % SEARCH_EVERY == 0;
+                    TestLevels.toggleWalls(random, search ? SEARCH_CHANGES : 1 + random.nextInt(MAX_CHANGES), false);
+                }
+                GameManager.advanceTick();
+                session.playerDistance.getDistance(player);
+                int[] expected = TestLevels.distancesTo(session.walkableGrid,
+                        Coordinate.getX(player), Coordinate.getY(player));
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        int distance = expected[y * width + x];
+                        assertEquals(distance == TestLevels.UNREACHABLE ? PlayerDistanceField.UNREACHABLE : distance,
+                                session.playerDistance.getDistance(Coordinate.pack(x, y)),
+                                "Distance of " + x + "," + y + " differs in round " + round);
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
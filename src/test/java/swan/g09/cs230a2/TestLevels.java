@@ -0,0 +1,238 @@
+package swan.g09.cs230a2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.Random;
+
+import javafx.geometry.Point2D;
+
+/**
+ * Generates large levels for the tests and benchmarks, written to temporary files so they can
+ * be loaded like any other level. The levels are walled paths with a scattering of walls, the
+ * player and a number of bugs, pink balls and frogs placed at random, the same for a given seed.
+ * It also changes the walls of a loaded level at random, and finds distances through a level
+ * the plain way, for the tests to check the faster ways against.
+ *
+ * <p>Paths the player can't reach are walled up, since a frog with no way to the player moves
+ * in a random direction and the same level would play out differently each time. Monsters are
+ * kept away from the player, so a level can be ticked for a few hundred ticks before the player
+ * is caught and the game ends.</p>
+ *
+ * @version 0.1
+ */
+final class TestLevels {
+
+    /**
+     * The time limit of the levels, in seconds.
+     */
+    private static final int TIME_LIMIT = 300;
+
+    /**
+     * One in how many cells inside the border is a wall, unless another rarity is given.
+     */
+    private static final int WALL_RARITY = 10;
+
+    /**
+     * The distance of a cell which can't be reached, from {@link #distancesTo(WalkableGrid, int, int)}.
+     */
+    static final int UNREACHABLE = -1;
+
+    /**
+     * The fewest cells across and down between the player and a monster, on large enough levels.
+     */
+    private static final int CLEARANCE = 64;
+
+    /**
+     * The fraction of the smaller side of a level kept clear around the player, on smaller levels.
+     */
+    private static final int CLEARANCE_DIVISOR = 4;
+
+    /**
+     * The monsters placed in turn, a bug, a pink ball and a frog.
+     */
+    private static final String MONSTERS = "%@^";
+
+    /**
+     * Hidden constructor, the class only has static methods.
+     */
+    private TestLevels() {
+    }
+
+    /**
+     * Gets the file path of a level bundled with the game, so it can be loaded the way a level
+     * chosen from a file is.
+     * @param name The file name of the level, such as {@code maze.txt}.
+     * @return The path of the level file.
+     * @throws URISyntaxException If the level's location can't be turned into a path.
+     */
+    static String bundled(String name) throws URISyntaxException {
+        return Paths.get(TestLevels.class.getResource("levels/" + name).toURI()).toString();
+    }
+
+    /**
+     * Generates a level and writes it to a temporary file, deleted when the JVM exits.
+     * @param width The width of the level.
+     * @param height The height of the level.
+     * @param monsters The number of monsters in the level.
+     * @param seed The seed of the random layout.
+     * @return The path of the level file.
+     * @throws IOException If the file can't be written.
+     */
+    static String generate(int width, int height, int monsters, long seed) throws IOException {
+        return generate(width, height, monsters, WALL_RARITY, seed);
+    }
+
+    /**
+     * Generates a level with more or fewer walls and writes it to a temporary file, deleted when the JVM exits.
+     * @param width The width of the level.
+     * @param height The height of the level.
+     * @param monsters The number of monsters in the level.
+     * @param wallRarity One in how many cells inside the border is a wall, before unreachable paths are walled up.
+     * @param seed The seed of the random layout.
+     * @return The path of the level file.
+     * @throws IOException If the file can't be written.
+     */
+    static String generate(int width, int height, int monsters, int wallRarity, long seed) throws IOException {
+        Random random = new Random(seed);
+        char[][] tiles = new char[height][width];
+        char[][] actors = new char[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean border = x == 0 || y == 0 || x == width - 1 || y == height - 1;
+                tiles[y][x] = border || random.nextInt(wallRarity) == 0 ? 'W' : 'P';
+                actors[y][x] = '-';
+            }
+        }
+
+        // Put the player on a random path and wall up every path they can't reach
+        int playerX;
+        int playerY;
+        do {
+            playerX = random.nextInt(width);
+            playerY = random.nextInt(height);
+        } while (tiles[playerY][playerX] != 'P');
+        actors[playerY][playerX] = '*';
+        boolean[][] reached = new boolean[height][width];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        reached[playerY][playerX] = true;
+        queue.add(Coordinate.pack(playerX, playerY));
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            for (Direction dir : Direction.values()) {
+                int next = dir.calculateNewPosition(cell);
+                int x = Coordinate.getX(next);
+                int y = Coordinate.getY(next);
+                if (tiles[y][x] == 'P' && !reached[y][x]) {
+                    reached[y][x] = true;
+                    queue.add(next);
+                }
+            }
+        }
+
+        // Place the monsters on random reachable paths away from the player
+        int clearance = Math.min(CLEARANCE, Math.min(width, height) / CLEARANCE_DIVISOR);
+        ArrayList<Integer> free = new ArrayList<>();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!reached[y][x]) {
+                    tiles[y][x] = 'W';
+                } else if (Math.max(Math.abs(x - playerX), Math.abs(y - playerY)) >= clearance) {
+                    free.add(y * width + x);
+                }
+            }
+        }
+        if (free.size() < monsters) {
+            throw new IllegalArgumentException("Not enough room for " + monsters + " monsters!");
+        }
+        Collections.shuffle(free, random);
+        for (int i = 0; i < monsters; i++) {
+            int cell = free.get(i);
+            actors[cell / width][cell % width] = MONSTERS.charAt(i % MONSTERS.length());
+        }
+
+        File file = File.createTempFile("generated" + width + "x" + height, ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.print(width + "," + height + "\n" + TIME_LIMIT + "\n0\n\n");
+            for (char[] row : tiles) {
+                out.print(new String(row) + "\n");
+            }
+            out.print("\n");
+            for (char[] row : actors) {
+                out.print(new String(row) + "\n");
+            }
+            out.print("\n");
+            String noItems = "-".repeat(width);
+            for (int y = 0; y < height; y++) {
+                out.print(noItems + "\n");
+            }
+        }
+        return file.getPath();
+    }
+
+    /**
+     * Turns random cells inside the border of the current session's level from walls to paths
+     * and from paths to walls, through {@link GameManager#replaceTile(Point2D, Tile)} as the game
+     * would. Cells with an actor on them are left alone.
+     * @param random The random cells to change.
+     * @param changes The number of cells to try to change.
+     * @param openOnly Whether to only turn walls into paths.
+     */
+    static void toggleWalls(Random random, int changes, boolean openOnly) {
+        int width = GameManager.getLevelWidth();
+        int height = GameManager.getLevelHeight();
+        for (int i = 0; i < changes; i++) {
+            int x = 1 + random.nextInt(width - 2);
+            int y = 1 + random.nextInt(height - 2);
+            if (GameManager.checkActor(x, y) != null) {
+                continue;
+            }
+            Point2D position = new Point2D(x, y);
+            TileType type = GameManager.checkTile(x, y).getType();
+            if (type == TileType.WALL) {
+                GameManager.replaceTile(position, new Path(position));
+            } else if (type == TileType.PATH && !openOnly) {
+                GameManager.replaceTile(position, new Wall(position));
+            }
+        }
+    }
+
+    /**
+     * Finds the distance from every cell of a grid to a goal, breadth first.
+     * @param grid The cells which can be walked through.
+     * @param goalX The x coordinate of the goal.
+     * @param goalY The y coordinate of the goal.
+     * @return The distance of each cell, indexed by y * width + x, {@link #UNREACHABLE} if it can't be reached.
+     */
+    static int[] distancesTo(WalkableGrid grid, int goalX, int goalY) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int[] distances = new int[width * height];
+        Arrays.fill(distances, UNREACHABLE);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        distances[goalY * width + goalX] = 0;
+        queue.add(Coordinate.pack(goalX, goalY));
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int distance = distances[Coordinate.getY(cell) * width + Coordinate.getX(cell)] + 1;
+            for (Direction dir : Direction.values()) {
+                int next = dir.calculateNewPosition(cell);
+                int x = Coordinate.getX(next);
+                int y = Coordinate.getY(next);
+                if (x >= 0 && y >= 0 && x < width && y < height && grid.isOpen(x, y)
+                        && distances[y * width + x] == UNREACHABLE) {
+                    distances[y * width + x] = distance;
+                    queue.add(next);
+                }
+            }
+        }
+        return distances;
+    }
+}
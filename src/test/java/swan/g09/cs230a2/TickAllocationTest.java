@@ -0,0 +1,99 @@
+package swan.g09.cs230a2;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the tick loop doesn't allocate once it has warmed up, counting the bytes the ticking
+ * thread allocates while a headless game is stepped. A level is played a few times first so the
+ * JIT has compiled the tick, since interpreted code allocates where compiled code doesn't, and
+ * each level is ticked a while before counting so the entities' buffers have grown to size.
+ *
+ * @version 0.1
+ */
+class TickAllocationTest {
+
+    /**
+     * The width and height of the level.
+     */
+    private static final int LEVEL_SIZE = 256;
+
+    /**
+     * The number of monsters.
+     */
+    private static final int MONSTERS = 600;
+
+    /**
+     * The seed of the level's layout.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * The number of times the level is played before counting, to warm up the JIT.
+     */
+    private static final int WARMUP_GAMES = 3;
+
+    /**
+     * The number of times the level is played while counting.
+     */
+    private static final int COUNTED_GAMES = 5;
+
+    /**
+     * The number of ticks each game is run before counting.
+     */
+    private static final int UNCOUNTED_TICKS = 150;
+
+    /**
+     * The number of ticks counted in each game.
+     */
+    private static final int COUNTED_TICKS = 40;
+
+    /**
+     * The most bytes allowed per tick on average, less than the smallest object allocated each tick would add.
+     */
+    private static final double MAX_BYTES_PER_TICK = 16;
+
+    /**
+     * Steps a crowded level headless and checks the ticks allocate next to nothing.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    @Test
+    void tickLoopDoesNotAllocate() throws Exception {
+        String level = TestLevels.generate(LEVEL_SIZE, LEVEL_SIZE, MONSTERS, SEED);
+        for (int i = 0; i < WARMUP_GAMES; i++) {
+            play(level);
+        }
+        long allocated = 0;
+        for (int i = 0; i < COUNTED_GAMES; i++) {
+            allocated += play(level);
+        }
+        double perTick = allocated / (double) (COUNTED_GAMES * COUNTED_TICKS);
+        assertTrue(perTick <= MAX_BYTES_PER_TICK, "Ticking allocated " + perTick + " bytes per tick");
+    }
+
+    /**
+     * Loads a level in a session of its own and steps it headless.
+     * @param level The path of the level.
+     * @return The number of bytes allocated by the counted ticks.
+     * @throws Exception If the level can't be loaded.
+     */
+    private static long play(String level) throws Exception {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        GameSession session = new GameSession();
+        return session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            GameManager.startHeadlessGame();
+            GameManager.stepGame(UNCOUNTED_TICKS);
+            long before = threads.getCurrentThreadAllocatedBytes();
+            GameManager.stepGame(COUNTED_TICKS);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            assertEquals(UNCOUNTED_TICKS + COUNTED_TICKS, session.gameTimer.getCurrentTick(), "The game ended early");
+            return allocated;
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package swan.g09.cs230a2;
+
+/**
+ * Measures how the cost of a tick grows with the area of a mostly static level, which with
+ * {@link TickRegistry} waking only the level's entities should stay flat rather than growing
+ * with the number of cells. Each level has the same number of monsters among its walls and
+ * paths. For comparison it also times walking every cell of the tile and actor layers, which
+ * the tick did before the registry on top of ticking the entities. Run it with
+ * {@code gradlew benchmark -Pbenchmark=TickRegistryBenchmark}, optionally giving the level sizes
+ * to measure with {@code -PbenchmarkArgs="256 512 1024"}.
+ *
+ * @version 0.1
+ */
+final class TickRegistryBenchmark {
+
+    /**
+     * The default widths and heights of the levels measured.
+     */
+    private static final int[] LEVEL_SIZES = {256, 512, 1024};
+
+    /**
+     * The number of monsters in every level.
+     */
+    private static final int MONSTERS = 30;
+
+    /**
+     * The seed of the levels' layouts.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * The number of ticks run before timing.
+     */
+    private static final int WARMUP_TICKS = 50;
+
+    /**
+     * The number of ticks timed.
+     */
+    private static final int TIMED_TICKS = 100;
+
+    /**
+     * The number of times the first level is played untimed, so the JIT has compiled the tick.
+     */
+    private static final int WARMUP_GAMES = 3;
+
+    /**
+     * The number of times the layers are walked while warming up and again while timing.
+     */
+    private static final int WALKS = 20;
+
+    /**
+     * The number of nanoseconds in a microsecond.
+     */
+    private static final double NANOS_IN_MICRO = 1000.0;
+
+    /**
+     * Results folded together so the JIT can't skip the walks.
+     */
+    private static long sink;
+
+    /**
+     * Hidden constructor, the benchmark is only run from {@link #main(String[])}.
+     */
+    private TickRegistryBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the time per tick on each level.
+     * @param args The widths and heights of the levels to measure, all optional.
+     * @throws Exception If a level can't be generated or loaded, or a game ends before every tick is run.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] sizes = LEVEL_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        String first = TestLevels.generate(sizes[0], sizes[0], MONSTERS, SEED);
+        for (int i = 0; i < WARMUP_GAMES; i++) {
+            timeTicks(first);
+        }
+        for (int size : sizes) {
+            String level = TestLevels.generate(size, size, MONSTERS, SEED);
+            double tick = timeTicks(level);
+            double walk = timeWalk(level);
+            System.out.printf("%dx%d: %.1f us/tick, walking every cell %.1f us%n", size, size, tick, walk);
+        }
+        System.out.println("(checksum " + sink + ")");
+        System.exit(0);
+    }
+
+    /**
+     * Loads a level in a session of its own and times ticking it headless.
+     * @param level The path of the level.
+     * @return The average time of a timed tick, in microseconds.
+     * @throws Exception If the level can't be loaded, or the game ends before every tick is run.
+     */
+    private static double timeTicks(String level) throws Exception {
+        GameSession session = new GameSession();
+        return session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            GameManager.startHeadlessGame();
+            GameManager.stepGame(WARMUP_TICKS);
+            long start = System.nanoTime();
+            GameManager.stepGame(TIMED_TICKS);
+            long elapsed = System.nanoTime() - start;
+            if (session.gameTimer.getCurrentTick() != WARMUP_TICKS + TIMED_TICKS) {
+                throw new IllegalStateException("The game ended before every tick was run!");
+            }
+            return elapsed / NANOS_IN_MICRO / TIMED_TICKS;
+        });
+    }
+
+    /**
+     * Loads a level in a session of its own and times walking every cell of its tile and actor
+     * layers, looking up each cell's tile and actor as the tick did before the registry.
+     * @param level The path of the level.
+     * @return The average time of a walk, in microseconds.
+     * @throws Exception If the level can't be loaded.
+     */
+    private static double timeWalk(String level) throws Exception {
+        GameSession session = new GameSession();
+        return session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            int width = GameManager.getLevelWidth();
+            int height = GameManager.getLevelHeight();
+            long start = 0;
+            for (int i = -WALKS; i < WALKS; i++) {
+                if (i == 0) {
+                    start = System.nanoTime();
+                }
+                for (int x = 0; x < width; x++) {
+                    for (int y = 0; y < height; y++) {
+                        Tile tile = GameManager.checkTile(x, y);
+                        Actor actor = GameManager.checkActor(x, y);
+                        if (TickRegistry.isTickable(tile) || actor != null) {
+                            sink++;
+                        }
+                    }
+                }
+            }
+            return (System.nanoTime() - start) / NANOS_IN_MICRO / WALKS;
+        });
+    }
+}
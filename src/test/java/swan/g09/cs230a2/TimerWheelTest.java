@@ -0,0 +1,206 @@
+package swan.g09.cs230a2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks a {@link TimerWheel} wakes every entity exactly once, on exactly the tick it was last
+ * scheduled for, with wakes spread over every wheel and beyond the furthest, and entities
+ * rescheduled and cancelled as the wheel turns. Through a {@link TickRegistry}, it also checks
+ * the entities due on a tick come out in grid order.
+ *
+ * @version 0.1
+ */
+class TimerWheelTest {
+
+    /**
+     * The number of ticks the innermost wheel covers.
+     */
+    private static final long WHEEL_TICKS = 64;
+
+    /**
+     * The number of wheels.
+     */
+    private static final int WHEELS = 4;
+
+    /**
+     * The number of ticks the wheels cover, beyond which wakes are parked and re-checked.
+     */
+    private static final long FURTHEST_TICKS = WHEEL_TICKS * WHEEL_TICKS * WHEEL_TICKS * WHEEL_TICKS;
+
+    /**
+     * The number of ticks past the furthest wheel a parked wake can be.
+     */
+    private static final long PARKED_TICKS = 100_000;
+
+    /**
+     * The number of entities in the wheel.
+     */
+    private static final int ENTITIES = 1000;
+
+    /**
+     * The number of ticks entities are rescheduled and cancelled on, after which the wheel turns until all have woken.
+     */
+    private static final int BUSY_TICKS = 300_000;
+
+    /**
+     * The last tick any wake can be due on, so a wake which never comes fails rather than turning the wheel forever.
+     */
+    private static final long LAST_TICK = BUSY_TICKS + FURTHEST_TICKS + PARKED_TICKS;
+
+    /**
+     * The number of entities rescheduled or cancelled each busy tick.
+     */
+    private static final int CHANGES_PER_TICK = 3;
+
+    /**
+     * One in how many changes cancels the entity rather than rescheduling it.
+     */
+    private static final int CANCEL_RARITY = 5;
+
+    /**
+     * The width and height of the level whose actors are woken through the registry.
+     */
+    private static final int LEVEL_SIZE = 64;
+
+    /**
+     * The number of monsters on the level.
+     */
+    private static final int MONSTERS = 400;
+
+    /**
+     * The seed of the level and of the wakes.
+     */
+    private static final long SEED = 5;
+
+    /**
+     * Schedules, reschedules and cancels random entities over all the wheels, checking each
+     * tick that every entity woken was due on it and hadn't already woken, and at the end
+     * that every entity still scheduled woke.
+     */
+    @Test
+    void wakesEachEntityOnceOnItsTick() {
+        // The wheel tells entities apart by identity, so each is boxed once
+        Integer[] entities = new Integer[ENTITIES];
+        TimerWheel<Integer> wheel = new TimerWheel<>();
+        HashMap<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(SEED);
+        for (int i = 0; i < ENTITIES; i++) {
+            entities[i] = i;
+            long tick = 1 + randomDelay(random);
+            wheel.schedule(entities[i], tick);
+            expected.put(entities[i], tick);
+        }
+
+        ArrayList<Integer> due = new ArrayList<>();
+        long last = 0;
+        while (!expected.isEmpty()) {
+            if (wheel.getCurrentTick() < BUSY_TICKS) {
+                for (int i = 0; i < CHANGES_PER_TICK; i++) {
+                    Integer entity = entities[random.nextInt(ENTITIES)];
+                    if (random.nextInt(CANCEL_RARITY) == 0) {
+                        wheel.cancel(entity);
+                        expected.remove(entity);
+                        assertFalse(wheel.isScheduled(entity), "Entity still scheduled after cancelling");
+                    } else {
+                        long tick = wheel.getCurrentTick() + randomDelay(random);
+                        wheel.schedule(entity, tick);
+                        expected.put(entity, tick);
+                    }
+                }
+            }
+            due.clear();
+            long now = wheel.advance(due);
+            assertEquals(last + 1, now, "Wheel skipped a tick");
+            assertTrue(now <= LAST_TICK, expected.size() + " entities never woke");
+            last = now;
+            for (Integer entity : due) {
+                Long tick = expected.remove(entity);
+                assertNotNull(tick, "Entity " + entity + " woke on " + now + " without being due");
+                assertEquals((long) tick, now, "Entity " + entity + " woke on the wrong tick");
+                assertFalse(wheel.isScheduled(entity), "Entity still scheduled after waking");
+            }
+        }
+        assertTrue(last > FURTHEST_TICKS, "No wake was parked beyond the furthest wheel");
+    }
+
+    /**
+     * Registers the actors of a level with a registry and wakes them at random over all the
+     * wheels, checking each tick that the entities due come out in grid order, and each was due
+     * on that tick and hadn't already woken.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    @Test
+    void registryWakesInGridOrder() throws Exception {
+        String level = TestLevels.generate(LEVEL_SIZE, LEVEL_SIZE, MONSTERS, SEED);
+        GameSession session = new GameSession();
+        session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            TickRegistry registry = new TickRegistry(LEVEL_SIZE);
+            ArrayList<Actor> actors = session.actorLayer.getAllElements();
+            IdentityHashMap<Tile, Long> expected = new IdentityHashMap<>();
+            Random random = new Random(SEED);
+            for (Actor actor : actors) {
+                registry.register(actor);
+                int delay = (int) randomDelay(random);
+                registry.scheduleWake(actor, delay);
+                expected.put(actor, (long) delay);
+            }
+
+            int moreThanOne = 0;
+            while (!expected.isEmpty()) {
+                if (registry.getCurrentTick() < BUSY_TICKS) {
+                    Actor actor = actors.get(random.nextInt(actors.size()));
+                    int delay = (int) randomDelay(random);
+                    registry.scheduleWake(actor, delay);
+                    expected.put(actor, registry.getCurrentTick() + delay);
+                }
+                registry.advance();
+                long now = registry.getCurrentTick();
+                assertTrue(now <= LAST_TICK, expected.size() + " entities never woke");
+                int count = registry.getDueCount();
+                for (int i = 0; i < count; i++) {
+                    Tile entity = registry.getDue(i);
+                    Long tick = expected.remove(entity);
+                    assertNotNull(tick, "Entity woke on " + now + " without being due");
+                    assertEquals((long) tick, now, "Entity woke on the wrong tick");
+                    if (i > 0) {
+                        assertTrue(registry.orderKey(registry.getDue(i - 1)) < registry.orderKey(entity),
+                                "Entities due on " + now + " out of grid order");
+                    }
+                }
+                moreThanOne += count > 1 ? 1 : 0;
+                registry.clearDue();
+            }
+            assertTrue(moreThanOne > 0, "No two entities were due on the same tick");
+            assertTrue(registry.getCurrentTick() > FURTHEST_TICKS, "No wake was parked beyond the furthest wheel");
+            return null;
+        });
+    }
+
+    /**
+     * Picks a random delay in the range of a random wheel, or beyond the furthest.
+     * @param random The random delay to pick.
+     * @return The delay, at least 1.
+     */
+    private static long randomDelay(Random random) {
+        int wheel = random.nextInt(WHEELS + 1);
+        if (wheel == WHEELS) {
+            return FURTHEST_TICKS + random.nextInt((int) PARKED_TICKS);
+        }
+        long range = 1;
+        for (int i = 0; i <= wheel; i++) {
+            range *= WHEEL_TICKS;
+        }
+        return 1 + (long) (random.nextDouble() * (range - 1));
+    }
+}
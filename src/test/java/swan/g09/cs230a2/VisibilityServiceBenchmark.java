@@ -0,0 +1,168 @@
+package swan.g09.cs230a2;
+
+import java.util.Random;
+
+/**
+ * Measures the field of view queries of {@link VisibilityService} under the loads it was built
+ * for: a thousand entities on a 256x128 level each looking from their own cell, and on a
+ * 1024x512 level many entities looking from a few shared cells, a few looking far, and many
+ * looking near. Each tick every query of a load is made once, and casts are only remembered
+ * within a tick. It also times random lines of sight up to 20 cells long. Run it with
+ * {@code gradlew benchmark -Pbenchmark=VisibilityServiceBenchmark}.
+ *
+ * @version 0.1
+ */
+final class VisibilityServiceBenchmark {
+
+    /**
+     * The loads measured, each its level's width and height, the queries made each tick,
+     * their radius, and the number of different origins they are made from.
+     */
+    private static final int[][] LOADS = {
+        {256, 128, 1000, 8, 1000},
+        {1024, 512, 1000, 8, 50},
+        {1024, 512, 100, 16, 100},
+        {1024, 512, 5000, 6, 5000},
+    };
+
+    /**
+     * The seed of the levels' layouts and of the origins.
+     */
+    private static final long SEED = 1;
+
+    /**
+     * The number of ticks run before timing.
+     */
+    private static final int WARMUP_TICKS = 20;
+
+    /**
+     * The number of ticks timed.
+     */
+    private static final int TIMED_TICKS = 50;
+
+    /**
+     * The number of lines of sight checked before timing and again while timing.
+     */
+    private static final int LINES = 200_000;
+
+    /**
+     * The furthest the ends of a line are apart across and down.
+     */
+    private static final int MAX_SPAN = 20;
+
+    /**
+     * The number of nanoseconds in a millisecond.
+     */
+    private static final double NANOS_IN_MILLI = 1_000_000.0;
+
+    /**
+     * Results folded together so the JIT can't skip the queries.
+     */
+    private static long sink;
+
+    /**
+     * Hidden constructor, the benchmark is only run from {@link #main(String[])}.
+     */
+    private VisibilityServiceBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the time per tick of each load, and per line of sight.
+     * @param args Unused.
+     * @throws Exception If a level can't be generated or loaded.
+     */
+    public static void main(String[] args) throws Exception {
+        // The first load runs twice, the first time only to warm up
+        measure(LOADS[0], false);
+        for (int[] load : LOADS) {
+            measure(load, true);
+        }
+        measureLines(LOADS[LOADS.length - 1]);
+        System.out.println("(checksum " + sink + ")");
+        System.exit(0);
+    }
+
+    /**
+     * Loads a load's level in a session of its own and times its queries each tick.
+     * @param load The level size, queries, radius and origins of the load.
+     * @param print Whether to print the time.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    private static void measure(int[] load, boolean print) throws Exception {
+        int width = load[0];
+        int height = load[1];
+        int queries = load[2];
+        int radius = load[3];
+        int[] origins = randomOrigins(width, height, load[4]);
+        String level = TestLevels.generate(width, height, 0, SEED);
+        GameSession session = new GameSession();
+        session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            long start = 0;
+            long casts = 0;
+            for (int tick = 0; tick < WARMUP_TICKS + TIMED_TICKS; tick++) {
+                if (tick == WARMUP_TICKS) {
+                    start = System.nanoTime();
+                    casts = session.visibility.getCastCount();
+                }
+                GameManager.advanceTick();
+                for (int i = 0; i < queries; i++) {
+                    sink += GameManager.findVisibleCells(origins[(i + tick) % origins.length], radius, null).getCount();
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (print) {
+                System.out.printf("%dx%d, %d queries of radius %d from %d origins: %.2f ms/tick, %d casts/tick%n",
+                        width, height, queries, radius, origins.length, elapsed / NANOS_IN_MILLI / TIMED_TICKS,
+                        (session.visibility.getCastCount() - casts) / TIMED_TICKS);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Loads a load's level in a session of its own and times random lines of sight from its origins.
+     * @param load The level size and origins of the load.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    private static void measureLines(int[] load) throws Exception {
+        int[] origins = randomOrigins(load[0], load[1], load[4]);
+        String level = TestLevels.generate(load[0], load[1], 0, SEED);
+        GameSession session = new GameSession();
+        session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            Random random = new Random(SEED);
+            long start = 0;
+            for (int i = 0; i < 2 * LINES; i++) {
+                if (i == LINES) {
+                    start = System.nanoTime();
+                }
+                int from = origins[i % origins.length];
+                int to = Coordinate.offset(from, random.nextInt(2 * MAX_SPAN + 1) - MAX_SPAN,
+                        random.nextInt(2 * MAX_SPAN + 1) - MAX_SPAN);
+                if (GameManager.isLineOfSightClear(from, to)) {
+                    sink++;
+                }
+            }
+            System.out.printf("%dx%d, random lines up to %d cells: %.0f ns each%n", load[0], load[1], MAX_SPAN,
+                    (double) (System.nanoTime() - start) / LINES);
+            return null;
+        });
+    }
+
+    /**
+     * Picks random cells of a level to look from.
+     * @param width The width of the level.
+     * @param height The height of the level.
+     * @param count The number of cells.
+     * @return The packed cells.
+     */
+    private static int[] randomOrigins(int width, int height, int count) {
+        Random random = new Random(SEED);
+        int[] origins = new int[count];
+        for (int i = 0; i < count; i++) {
+            origins[i] = Coordinate.pack(random.nextInt(width), random.nextInt(height));
+        }
+        return origins;
+    }
+}
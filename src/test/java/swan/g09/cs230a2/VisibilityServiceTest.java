@@ -0,0 +1,237 @@
+package swan.g09.cs230a2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the answers of a {@link VisibilityService} on a level with many walls, as walls are
+ * added and removed: lines of sight are the same either way round, lines along a row or column
+ * match checking each cell between the ends, and the cells visible from an origin include the
+ * origin, stay within the radius, and are exactly the cells visible in one of the four cones.
+ *
+ * @version 0.1
+ */
+class VisibilityServiceTest {
+
+    /**
+     * The width of the level.
+     */
+    private static final int WIDTH = 80;
+
+    /**
+     * The height of the level.
+     */
+    private static final int HEIGHT = 48;
+
+    /**
+     * One in how many cells starts as a wall.
+     */
+    private static final int WALL_RARITY = 4;
+
+    /**
+     * The seed of the level's layout and of the queries made.
+     */
+    private static final long SEED = 20;
+
+    /**
+     * The number of rounds of changes, with queries after each.
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * The number of cells tried each round.
+     */
+    private static final int CHANGES = 60;
+
+    /**
+     * The number of lines checked each round.
+     */
+    private static final int LINES = 2000;
+
+    /**
+     * The number of origins cast from each round.
+     */
+    private static final int ORIGINS = 60;
+
+    /**
+     * The furthest the ends of a line are apart across and down.
+     */
+    private static final int MAX_SPAN = 20;
+
+    /**
+     * The largest radius cast with.
+     */
+    private static final int MAX_RADIUS = 12;
+
+    /**
+     * Checks lines of sight give the same answer from either end.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    @Test
+    void linesAreSymmetric() throws Exception {
+        forEachRound((random, round) -> {
+            for (int i = 0; i < LINES; i++) {
+                int from = randomCell(random);
+                int to = nearbyCell(random, from);
+                assertEquals(GameManager.isLineOfSightClear(from, to), GameManager.isLineOfSightClear(to, from),
+                        "Line between " + describe(from) + " and " + describe(to) + " differs by direction in round "
+                        + round);
+            }
+        });
+    }
+
+    /**
+     * Checks lines along a row or column against checking each cell between the ends.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    @Test
+    void axisLinesMatchBruteForce() throws Exception {
+        forEachRound((random, round) -> {
+            for (int i = 0; i < LINES; i++) {
+                int from = randomCell(random);
+                int fromX = Coordinate.getX(from);
+                int fromY = Coordinate.getY(from);
+                boolean vertical = random.nextBoolean();
+                int to = vertical ? Coordinate.pack(fromX, random.nextInt(HEIGHT))
+                        : Coordinate.pack(random.nextInt(WIDTH), fromY);
+                boolean clear = true;
+                int end = vertical ? Coordinate.getY(to) : Coordinate.getX(to);
+                int start = vertical ? fromY : fromX;
+                for (int along = Math.min(start, end) + 1; along < Math.max(start, end); along++) {
+                    clear &= !blocksSight(vertical ? fromX : along, vertical ? along : fromY);
+                }
+                assertEquals(clear, GameManager.isLineOfSightClear(from, to),
+                        "Line between " + describe(from) + " and " + describe(to) + " is wrong in round " + round);
+            }
+        });
+    }
+
+    /**
+     * Checks the cells visible all around an origin include it, lie within the radius and the
+     * level, and are exactly those visible in any of the four cones, each of which includes the origin.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    @Test
+    void conesMakeUpTheCircle() throws Exception {
+        forEachRound((random, round) -> {
+            for (int i = 0; i < ORIGINS; i++) {
+                int origin = randomCell(random);
+                int radius = random.nextInt(MAX_RADIUS + 1);
+                VisibilityService.VisibleCells circle = GameManager.findVisibleCells(origin, radius, null);
+                String where = " from " + describe(origin) + " radius " + radius + " in round " + round;
+                assertTrue(circle.isVisible(origin), "Origin not visible" + where);
+
+                int originX = Coordinate.getX(origin);
+                int originY = Coordinate.getY(origin);
+                int[] counted = new int[1];
+                circle.forEach(cell -> {
+                    int dx = Coordinate.getX(cell) - originX;
+                    int dy = Coordinate.getY(cell) - originY;
+                    assertTrue(dx * dx + dy * dy <= radius * radius, describe(cell) + " out of range" + where);
+                    assertTrue(Coordinate.getX(cell) >= 0 && Coordinate.getY(cell) >= 0
+                            && Coordinate.getX(cell) < WIDTH && Coordinate.getY(cell) < HEIGHT,
+                            describe(cell) + " outside the level" + where);
+                    counted[0]++;
+                });
+                assertEquals(circle.getCount(), counted[0], "Count differs from the cells" + where);
+
+                boolean[] union = new boolean[WIDTH * HEIGHT];
+                int[] unionCount = new int[1];
+                for (Direction facing : Direction.values()) {
+                    VisibilityService.VisibleCells cone = GameManager.findVisibleCells(origin, radius, facing);
+                    assertTrue(cone.isVisible(origin), "Origin not visible facing " + facing + where);
+                    cone.forEach(cell -> {
+                        assertTrue(circle.isVisible(cell), describe(cell) + " only visible facing " + facing + where);
+                        int index = Coordinate.getY(cell) * WIDTH + Coordinate.getX(cell);
+                        if (!union[index]) {
+                            union[index] = true;
+                            unionCount[0]++;
+                        }
+                    });
+                }
+                assertEquals(circle.getCount(), unionCount[0], "Cones don't make up the circle" + where);
+            }
+        });
+    }
+
+    /**
+     * Queries made on a round.
+     */
+    @FunctionalInterface
+    private interface RoundCheck {
+        /**
+         * Makes the queries of a round.
+         * @param random The random queries to make.
+         * @param round The number of the round.
+         */
+        void check(Random random, int round);
+    }
+
+    /**
+     * Loads the level, then runs the checks on it and again after each round of wall changes.
+     * @param check The queries to make each round.
+     * @throws Exception If the level can't be generated or loaded.
+     */
+    private static void forEachRound(RoundCheck check) throws Exception {
+        String level = TestLevels.generate(WIDTH, HEIGHT, 0, WALL_RARITY, SEED);
+        GameSession session = new GameSession();
+        session.call(() -> {
+            GameManager.loadLevel(level, null, false);
+            Random random = new Random(SEED);
+            for (int round = 0; round <= ROUNDS; round++) {
+                if (round > 0) {
+                    TestLevels.toggleWalls(random, CHANGES, false);
+                }
+                GameManager.advanceTick();
+                check.check(random, round);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Checks whether a cell blocks sight by looking at the level, as a wall or block.
+     * @param x The x coordinate of the cell.
+     * @param y The y coordinate of the cell.
+     * @return true if the cell blocks sight.
+     */
+    private static boolean blocksSight(int x, int y) {
+        TileType tile = GameManager.checkTile(x, y).getType();
+        Actor actor = GameManager.checkActor(x, y);
+        return tile == TileType.WALL || tile == TileType.BLOCK || actor != null && actor.getType() == TileType.BLOCK;
+    }
+
+    /**
+     * Picks a random cell of the level.
+     * @param random The random cell to pick.
+     * @return The packed cell.
+     */
+    private static int randomCell(Random random) {
+        return Coordinate.pack(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+    }
+
+    /**
+     * Picks a random cell of the level near another.
+     * @param random The random cell to pick.
+     * @param from The packed cell to pick near.
+     * @return The packed cell, at most {@link #MAX_SPAN} across and down from the other.
+     */
+    private static int nearbyCell(Random random, int from) {
+        int x = Coordinate.getX(from) + random.nextInt(2 * MAX_SPAN + 1) - MAX_SPAN;
+        int y = Coordinate.getY(from) + random.nextInt(2 * MAX_SPAN + 1) - MAX_SPAN;
+        return Coordinate.pack(Math.max(0, Math.min(WIDTH - 1, x)), Math.max(0, Math.min(HEIGHT - 1, y)));
+    }
+
+    /**
+     * Describes a packed cell for a failure message.
+     * @param cell The packed cell.
+     * @return The cell's coordinates.
+     */
+    private static String describe(int cell) {
+        return Coordinate.getX(cell) + "," + Coordinate.getY(cell);
+    }
+}